@@ -0,0 +1,100 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.GarageManagementApplication;
+import com.renault.garage.dao.entity.OpeningTime;
+import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.repository.VehicleRepository;
+import com.renault.garage.dto.CreateAccessoryDto;
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.CreateVehicleDto;
+import com.renault.garage.service.AccessoryService;
+import com.renault.garage.service.GarageService;
+import com.renault.garage.service.VehicleService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spring context started on an embedded H2 database (profile "bench") and filled with a generated dataset.
+ * The dataset is built through the services so that every derived table (occupancy counters...) is consistent.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    static final String[] ACCESSORY_NAMES = {"GPS", "Caméra recul", "Attelage", "Tapis caoutchouc", "Chargeur rapide",
+            "Barres de toit", "Pack LED", "Filet coffre", "Alarm Plus", "Siège enfant"};
+
+    static final int VEHICLES_PER_GARAGE = 20;
+
+    /**
+     * Number of vehicles generated; one accessory is created per vehicle and one garage per {@value #VEHICLES_PER_GARAGE} vehicles.
+     */
+    @Param("1000")
+    public int datasetSize;
+
+    ConfigurableApplicationContext context;
+    GarageService garageService;
+    VehicleService vehicleService;
+    AccessoryService accessoryService;
+    VehicleRepository vehicleRepository;
+
+    long[] garageIds;
+    long[] vehicleIds;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        context = new SpringApplicationBuilder(GarageManagementApplication.class).profiles("bench").run();
+        garageService = context.getBean(GarageService.class);
+        vehicleService = context.getBean(VehicleService.class);
+        accessoryService = context.getBean(AccessoryService.class);
+        vehicleRepository = context.getBean(VehicleRepository.class);
+        generateDataset();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private void generateDataset() throws Exception {
+        Map<DayOfWeek, List<OpeningTime>> openingHours = Map.of(
+                DayOfWeek.MONDAY, List.of(new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0)), new OpeningTime(LocalTime.of(13, 30), LocalTime.of(18, 0))),
+                DayOfWeek.TUESDAY, List.of(new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0)), new OpeningTime(LocalTime.of(13, 30), LocalTime.of(18, 0))),
+                DayOfWeek.SATURDAY, List.of(new OpeningTime(LocalTime.of(9, 0), LocalTime.of(13, 0)))
+        );
+        int garageCount = Math.max(1, datasetSize / VEHICLES_PER_GARAGE);
+        garageIds = new long[garageCount];
+        for (int i = 0; i < garageCount; i++) {
+            garageIds[i] = garageService.createGarage(new CreateGarageDto("Garage " + i, i + " rue du Banc", "01020304" + (i % 100),
+                    "garage" + i + "@bench.local", openingHours)).id();
+        }
+
+        Vehicle.FuelType[] fuelTypes = Vehicle.FuelType.values();
+        vehicleIds = new long[datasetSize];
+        for (int i = 0; i < datasetSize; i++) {
+            CreateVehicleDto vehicle = new CreateVehicleDto("Renault " + i, 2015 + i % 10, fuelTypes[i % fuelTypes.length]);
+            vehicleIds[i] = vehicleService.create(garageIds[i % garageCount], vehicle).id();
+            String accessoryName = ACCESSORY_NAMES[i % ACCESSORY_NAMES.length];
+            accessoryService.createAccessory(vehicleIds[i], new CreateAccessoryDto(accessoryName, accessoryName + " " + i, 10.0 + i % 500, "BENCH"));
+        }
+    }
+
+    long randomGarageId() {
+        return garageIds[ThreadLocalRandom.current().nextInt(garageIds.length)];
+    }
+
+    long randomVehicleId() {
+        return vehicleIds[ThreadLocalRandom.current().nextInt(vehicleIds.length)];
+    }
+}
@@ -0,0 +1,60 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.dao.entity.WeeklySchedule;
+import com.renault.garage.dao.projection.GarageRow;
+import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.search.GarageLocationIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GarageLocationIndexBenchmark {
+
+    /**
+     * Number of garages, spread over metropolitan France.
+     */
+    @Param({"10000", "100000"})
+    public int garages;
+
+    /**
+     * One garage in {@code filterRatio} may be returned: with a selective filter the search grows up to a large radius.
+     */
+    @Param({"1", "1000"})
+    public int filterRatio;
+
+    private GarageLocationIndex index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<GarageRow> rows = new ArrayList<>(garages);
+        for (long id = 1; id <= garages; id++) {
+            rows.add(new GarageRow(id, "G" + id, null, null, null, WeeklySchedule.EMPTY,
+                    42 + random.nextDouble() * 9, -5 + random.nextDouble() * 13, 0));
+        }
+        GarageRepository repository = (GarageRepository) Proxy.newProxyInstance(GarageRepository.class.getClassLoader(),
+                new Class<?>[]{GarageRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAllRows")) {
+                        return rows;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        index = new GarageLocationIndex(repository);
+        index.rebuild();
+    }
+
+    @Benchmark
+    public List<GarageLocationIndex.Hit> nearestWithinLargeRadius() {
+        return index.nearest(48.8566, 2.3522, 1000, 10, id -> id % filterRatio == 0);
+    }
+}
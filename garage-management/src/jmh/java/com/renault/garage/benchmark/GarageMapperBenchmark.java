@@ -0,0 +1,79 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.dao.entity.Garage;
+import com.renault.garage.dao.entity.OpeningTime;
+import com.renault.garage.dao.entity.WeeklySchedule;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.mapper.GarageMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GarageMapperBenchmark {
+
+    /**
+     * Number of opening slots per day, for the seven days of the week.
+     */
+    @Param({"1", "2"})
+    public int slotsPerDay;
+
+    private final GarageMapper garageMapper = GarageMapper.INSTANCE;
+
+    private Garage garage;
+    private Map<DayOfWeek, List<OpeningTime>> openingHours;
+
+    @Setup
+    public void setup() {
+        openingHours = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<OpeningTime> times = new ArrayList<>();
+            for (int i = 0; i < slotsPerDay; i++) {
+                LocalTime start = LocalTime.of(8 + 5 * i, 0);
+                times.add(new OpeningTime(start, start.plusHours(4)));
+            }
+            openingHours.put(day, times);
+        }
+        garage = new Garage();
+        garage.setId(1L);
+        garage.setName("Garage Bench");
+        garage.setAddress("1 rue du Banc");
+        garage.setTelephone("0102030405");
+        garage.setEmail("bench@garage.local");
+        garage.setOpeningHours(WeeklySchedule.of(openingHours));
+    }
+
+    @Benchmark
+    public GarageDto entity2dto() {
+        return garageMapper.entity2dto(garage);
+    }
+
+    @Benchmark
+    public Map<DayOfWeek, List<OpeningTime>> mapWeeklySchedule() {
+        return garageMapper.map(garage.getOpeningHours());
+    }
+
+    @Benchmark
+    public WeeklySchedule mapOpeningHours() {
+        return garageMapper.map(openingHours);
+    }
+
+    /**
+     * Read of the column of an already loaded schedule, served by the shared instance.
+     */
+    @Benchmark
+    public WeeklySchedule parseSharedSchedule() {
+        return WeeklySchedule.parse(garage.getOpeningHours().encoded());
+    }
+}
@@ -0,0 +1,30 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.dto.GarageDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GarageServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Benchmark
+    public Page<GarageDto> getGaragesFirstPage(BenchmarkContext context) {
+        return context.garageService.getGarages(PageRequest.of(0, PAGE_SIZE, Sort.by("name")));
+    }
+
+    @Benchmark
+    public Page<GarageDto> getGaragesLastPage(BenchmarkContext context) {
+        int lastPage = Math.max(0, (context.garageIds.length - 1) / PAGE_SIZE);
+        return context.garageService.getGarages(PageRequest.of(lastPage, PAGE_SIZE, Sort.by("name")));
+    }
+}
@@ -0,0 +1,77 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.mapper.VehicleMapper;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the read paths before and after the projection queries: managed entities mapped afterward,
+ * against rows read directly into the DTOs. Run with {@code -prof gc} to compare the allocations per read.
+ * <p>
+ * The entities are read in a read-write transaction by default, so Hibernate keeps their dirty-check snapshots and
+ * flushes before commit; {@code -p entitiesReadOnly=true} reads them in a read-only transaction instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionReadBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param("false")
+    public boolean entitiesReadOnly;
+
+    private TransactionTemplate readOnly;
+    private TransactionTemplate entityTransaction;
+    private EntityManager entityManager;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        PlatformTransactionManager transactionManager = context.context.getBean(PlatformTransactionManager.class);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        entityTransaction = new TransactionTemplate(transactionManager);
+        entityTransaction.setReadOnly(entitiesReadOnly);
+        entityManager = context.context.getBean(EntityManager.class);
+    }
+
+    @Benchmark
+    public List<VehicleDto> pageAsEntities() {
+        return entityTransaction.execute(status -> entityManager
+                .createQuery("SELECT v FROM Vehicle v WHERE v.id > :afterId ORDER BY v.id", Vehicle.class)
+                .setParameter("afterId", 0L)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList().stream().map(VehicleMapper.INSTANCE::entity2dto).toList());
+    }
+
+    @Benchmark
+    public List<VehicleDto> pageAsProjection(BenchmarkContext context) {
+        return readOnly.execute(status -> context.vehicleRepository.findNextPage(0L, Limit.of(PAGE_SIZE)));
+    }
+
+    @Benchmark
+    public List<VehicleDto> garageVehiclesAsEntities(BenchmarkContext context) {
+        long garageId = context.randomGarageId();
+        return entityTransaction.execute(status -> entityManager
+                .createQuery("SELECT v FROM Vehicle v JOIN v.garages g WHERE g.id = :garageId", Vehicle.class)
+                .setParameter("garageId", garageId)
+                .getResultList().stream().map(VehicleMapper.INSTANCE::entity2dto).toList());
+    }
+
+    @Benchmark
+    public List<VehicleDto> garageVehiclesAsProjection(BenchmarkContext context) {
+        long garageId = context.randomGarageId();
+        return readOnly.execute(status -> context.vehicleRepository.findByGarageId(garageId));
+    }
+}
@@ -0,0 +1,100 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.GarageManagementApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the request execution modes: while {@code slowClients} clients keep the database busy
+ * (each statement lasting {@code dbLatencyMillis}), measure the latency of a request that does not use the database.
+ * <p>
+ * On platform threads the slow requests take all the Tomcat threads and the fast one waits for a free thread;
+ * on virtual threads ({@code spring.threads.virtual.enabled}) the slow ones wait on the {@code DatabaseConcurrencyLimiter}
+ * and the fast one is served right away.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+// Hibernate runs some queries inside a monitor, pinning the carrier of the virtual thread for the statement:
+// at most garage.db-limiter.max-concurrency carriers are pinned, the scheduler needs more to serve the other requests
+@Fork(value = 1, jvmArgsAppend = "-Djdk.virtualThreadScheduler.parallelism=16")
+@State(Scope.Benchmark)
+public class RequestConcurrencyBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param("300")
+    public int slowClients;
+
+    @Param("200")
+    public long dbLatencyMillis;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clients;
+    private HttpClient http;
+    private URI slowUri;
+    private HttpRequest fastRequest;
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void start() {
+        SlowDatabaseInspector.latencyMillis = dbLatencyMillis;
+        context = new SpringApplicationBuilder(GarageManagementApplication.class).profiles("bench").run(
+                "--spring.main.web-application-type=servlet",
+                "--server.port=0",
+                "--server.tomcat.threads.max=50",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--garage.db-limiter.acquire-timeout=1m",
+                "--spring.jpa.open-in-view=false",
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector=" + SlowDatabaseInspector.class.getName());
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        slowUri = URI.create("http://localhost:" + port + "/api/v1/garages?page=0&size=5");
+        fastRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/info")).build();
+
+        running = true;
+        clients = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < slowClients; i++) {
+            clients.execute(this::slowClient);
+        }
+    }
+
+    private void slowClient() {
+        HttpRequest request = HttpRequest.newBuilder(slowUri).build();
+        while (running) {
+            try {
+                http.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                // Connection refused or reset under load: try again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        running = false;
+        clients.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int requestWithoutDatabase() throws IOException, InterruptedException {
+        return http.send(fastRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,21 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.metrics.SqlTextInspector;
+
+/**
+ * Simulate a database latency spike: every statement waits {@link #latencyMillis} while holding its connection.
+ */
+public class SlowDatabaseInspector extends SqlTextInspector {
+
+    static volatile long latencyMillis;
+
+    @Override
+    public String inspect(String sql) {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return super.inspect(sql);
+    }
+}
@@ -0,0 +1,23 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.dao.projection.AccessoryVehicle;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VehicleRepositoryBenchmark {
+
+    private static final List<Long> ACCESSORY_IDS = LongStream.rangeClosed(1, 100).boxed().toList();
+
+    @Benchmark
+    public List<AccessoryVehicle> findByAccessoryIdIn(BenchmarkContext context) {
+        return context.vehicleRepository.findByAccessoryIdIn(ACCESSORY_IDS);
+    }
+}
@@ -0,0 +1,45 @@
+package com.renault.garage.benchmark;
+
+import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dto.CreateVehicleDto;
+import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.exception.GarageCapacityExceededException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VehicleServiceBenchmark {
+
+    private static final CreateVehicleDto NEW_VEHICLE = new CreateVehicleDto("Renault Bench", 2024, Vehicle.FuelType.ELECTRIC);
+
+    @Benchmark
+    public VehicleDto create(BenchmarkContext context) throws GarageCapacityExceededException {
+        return context.vehicleService.create(context.randomGarageId(), NEW_VEHICLE);
+    }
+
+    @Benchmark
+    public List<VehicleDto> linkVehicleToGarage(BenchmarkContext context) throws GarageCapacityExceededException {
+        return context.vehicleService.linkVehicleToGarage(context.randomGarageId(), context.randomVehicleId());
+    }
+
+    @Benchmark
+    public List<VehicleDto> searchByAccessory(BenchmarkContext context) {
+        return context.vehicleService.getByAccessory("GPS", 0, 20);
+    }
+
+    @Benchmark
+    public List<VehicleDto> searchByAccessoryWithoutAccent(BenchmarkContext context) {
+        return context.vehicleService.getByAccessory("siege", 0, 20);
+    }
+
+    @Benchmark
+    public List<VehicleDto> searchByAccessoryWithTypo(BenchmarkContext context) {
+        return context.vehicleService.getByAccessory("camra", 0, 20);
+    }
+}
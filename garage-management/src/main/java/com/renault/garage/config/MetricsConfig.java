@@ -0,0 +1,16 @@
+package com.renault.garage.config;
+
+import com.renault.garage.metrics.GarageIdBuckets;
+import com.renault.garage.metrics.HttpSqlMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HttpSqlMetricsFilter httpSqlMetricsFilter(MeterRegistry meterRegistry, GarageIdBuckets garageIdBuckets) {
+        return new HttpSqlMetricsFilter(meterRegistry, garageIdBuckets);
+    }
+}
@@ -0,0 +1,111 @@
+package com.renault.garage.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Check at startup that the indexes the queries rely on exist, and stop the application otherwise: without them
+ * the vehicle and garage queries scan whole tables, which is only noticed once the tables have grown.
+ * <p>
+ * An index is found when its leading columns are the expected ones, whatever its name.
+ * The indexes are created by the Flyway migrations ({@code db/migration}).
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "garage.schema.verify-indexes", havingValue = "true", matchIfMissing = true)
+public class SchemaIndexVerifier implements ApplicationRunner {
+
+    static final List<ExpectedIndex> EXPECTED_INDEXES = List.of(
+            new ExpectedIndex("vehicle_garages", "garage_id", "vehicle_id"),
+            new ExpectedIndex("vehicle_garages", "vehicle_id", "garage_id"),
+            new ExpectedIndex("accessory_vehicles", "vehicle_id", "accessory_id"),
+            new ExpectedIndex("accessory_vehicles", "accessory_id", "vehicle_id"),
+            new ExpectedIndex("vehicle", "brand"),
+            new ExpectedIndex("vehicle", "fuel_type"),
+            new ExpectedIndex("garage_fuel_type_count", "fuel_type", "vehicle_count"),
+            new ExpectedIndex("garage", "name", "id"),
+            new ExpectedIndex("garage", "address", "id"),
+            new ExpectedIndex("garage", "telephone", "id"),
+            new ExpectedIndex("garage", "email", "id")
+    );
+
+    private final DataSource dataSource;
+
+    public SchemaIndexVerifier(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        verify();
+    }
+
+    /**
+     * @throws IllegalStateException if an expected index is missing
+     */
+    public void verify() throws SQLException {
+        List<ExpectedIndex> missing = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (ExpectedIndex expected : EXPECTED_INDEXES) {
+                if (!exists(metaData, connection.getSchema(), expected)) {
+                    missing.add(expected);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Index manquants en base, vérifier les migrations Flyway : " + missing);
+        }
+        log.info("{} database indexes verified", EXPECTED_INDEXES.size());
+    }
+
+    private static boolean exists(DatabaseMetaData metaData, String schema, ExpectedIndex expected) throws SQLException {
+        String table = metaData.storesUpperCaseIdentifiers() ? expected.table().toUpperCase(Locale.ROOT) : expected.table();
+        Map<String, Map<Short, String>> columnsByIndex = new TreeMap<>();
+        try (ResultSet indexes = metaData.getIndexInfo(null, schema, table, false, true)) {
+            while (indexes.next()) {
+                String indexName = indexes.getString("INDEX_NAME");
+                String column = indexes.getString("COLUMN_NAME");
+                if (indexName != null && column != null) {
+                    columnsByIndex.computeIfAbsent(indexName, name -> new TreeMap<>())
+                            .put(indexes.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return columnsByIndex.values().stream()
+                .map(columns -> List.copyOf(columns.values()))
+                .anyMatch(columns -> columns.size() >= expected.columns().size()
+                        && columns.subList(0, expected.columns().size()).equals(expected.columns()));
+    }
+
+    /**
+     * Index expected on a table.
+     * @param table the table name
+     * @param columns the leading columns of the index, in order
+     */
+    record ExpectedIndex(String table, List<String> columns) {
+
+        ExpectedIndex(String table, String... columns) {
+            this(table, List.of(columns));
+        }
+
+        @Override
+        public String toString() {
+            return table + columns;
+        }
+    }
+}
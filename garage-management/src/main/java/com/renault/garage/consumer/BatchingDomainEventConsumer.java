@@ -0,0 +1,20 @@
+package com.renault.garage.consumer;
+
+import com.renault.garage.event.DomainEvent;
+
+import java.util.List;
+
+/**
+ * Consumer receiving the events in micro-batches, coalesced by the pipeline within
+ * {@code garage.events.batch-window} and up to {@code garage.events.max-batch-size} events.
+ * @param <E> the type of events consumed
+ */
+public interface BatchingDomainEventConsumer<E extends DomainEvent> extends DomainEventConsumer<E> {
+
+    void consumeBatch(List<E> events);
+
+    @Override
+    default void consume(E event) {
+        consumeBatch(List.of(event));
+    }
+}
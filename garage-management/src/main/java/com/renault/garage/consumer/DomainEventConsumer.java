@@ -0,0 +1,18 @@
+package com.renault.garage.consumer;
+
+import com.renault.garage.event.DomainEvent;
+
+/**
+ * Consumer of domain events, called asynchronously by the {@link com.renault.garage.event.DomainEventPipeline}
+ * after the publishing transaction has committed.
+ * @param <E> the type of events consumed
+ */
+public interface DomainEventConsumer<E extends DomainEvent> {
+
+    /**
+     * @return the type of events this consumer receives, subtypes included
+     */
+    Class<E> eventType();
+
+    void consume(E event);
+}
@@ -0,0 +1,27 @@
+package com.renault.garage.consumer;
+
+import com.renault.garage.dto.OutboxEventDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publish the relayed events as application events, for the {@code @EventListener(OutboxEventDto)} methods of the application.
+ */
+@Component
+@ConditionalOnProperty(name = "garage.outbox.sinks.in-process.enabled", havingValue = "true", matchIfMissing = true)
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher publisher;
+
+    public InProcessOutboxSink(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void publish(List<OutboxEventDto> events) {
+        events.forEach(publisher::publishEvent);
+    }
+}
@@ -0,0 +1,51 @@
+package com.renault.garage.consumer;
+
+import com.renault.garage.dto.OutboxEventDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory stand-in for a message broker: one topic per aggregate type, each keeping its last events
+ * so that subscribers can read them incrementally by position.
+ */
+@Component
+@ConditionalOnProperty(name = "garage.outbox.sinks.broker.enabled", havingValue = "true")
+public class LocalBrokerOutboxSink implements OutboxSink {
+
+    private final Map<String, ConcurrentNavigableMap<Long, OutboxEventDto>> topics = new ConcurrentHashMap<>();
+    private final int topicCapacity;
+
+    public LocalBrokerOutboxSink(@Value("${garage.outbox.sinks.broker.topic-capacity:10000}") int topicCapacity) {
+        this.topicCapacity = topicCapacity;
+    }
+
+    @Override
+    public void publish(List<OutboxEventDto> events) {
+        for (OutboxEventDto event : events) {
+            ConcurrentNavigableMap<Long, OutboxEventDto> topic = topics.computeIfAbsent(event.aggregateType(), t -> new ConcurrentSkipListMap<>());
+            topic.put(event.position(), event);
+            while (topic.size() > topicCapacity) {
+                topic.pollFirstEntry();
+            }
+        }
+    }
+
+    /**
+     * Read the events of a topic after the given position.
+     * @param topic the aggregate type
+     * @param afterPosition the position of the last event already read (exclusive)
+     * @param limit the maximum number of events returned
+     * @return the events, ordered by position
+     */
+    public List<OutboxEventDto> poll(String topic, long afterPosition, int limit) {
+        ConcurrentNavigableMap<Long, OutboxEventDto> events = topics.getOrDefault(topic, new ConcurrentSkipListMap<>());
+        return events.tailMap(afterPosition, false).values().stream().limit(limit).toList();
+    }
+}
@@ -2,20 +2,27 @@ package com.renault.garage.consumer;
 
 import com.renault.garage.event.VehicleCreatedEvent;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @Slf4j
-public class LoggerConsumer {
+public class LoggerConsumer implements BatchingDomainEventConsumer<VehicleCreatedEvent> {
+
+    @Override
+    public Class<VehicleCreatedEvent> eventType() {
+        return VehicleCreatedEvent.class;
+    }
 
     /**
-     * Method to consume VehicleCreatedEvent and log the vehicle ID.
-     * @param vehicleCreatedEvent the event containing vehicle details
+     * Method to consume a batch of VehicleCreatedEvent and log the vehicle IDs.
+     * @param vehicleCreatedEvents the events containing vehicle details
      */
-    @EventListener
-    public void consumeCreatedVehicleEvent(VehicleCreatedEvent vehicleCreatedEvent) {
-        log.info("Received Vehicle Created Event: {}", vehicleCreatedEvent.vehicleId());
+    @Override
+    public void consumeBatch(List<VehicleCreatedEvent> vehicleCreatedEvents) {
+        log.info("Received {} Vehicle Created Event(s): {}", vehicleCreatedEvents.size(),
+                vehicleCreatedEvents.stream().map(VehicleCreatedEvent::vehicleId).toList());
     }
 
 }
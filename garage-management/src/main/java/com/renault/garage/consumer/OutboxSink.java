@@ -0,0 +1,17 @@
+package com.renault.garage.consumer;
+
+import com.renault.garage.dto.OutboxEventDto;
+
+import java.util.List;
+
+/**
+ * Destination of the events relayed from the outbox. A batch is marked as relayed only if every sink accepted it,
+ * otherwise it is relayed again later: sinks must tolerate receiving the same events twice (same position).
+ */
+public interface OutboxSink {
+
+    /**
+     * @param events the events, ordered by position
+     */
+    void publish(List<OutboxEventDto> events);
+}
@@ -1,19 +1,27 @@
 package com.renault.garage.controller;
 
 import com.renault.garage.dto.AccessoryDto;
+import com.renault.garage.dto.BatchGetRequestDto;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateAccessoryDto;
+import com.renault.garage.dto.VersionedDto;
 import com.renault.garage.service.AccessoryService;
+import com.renault.garage.service.OptimisticLockRetry;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
-import java.util.List;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
@@ -23,9 +31,13 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 public class AccessoryController {
 
     private final AccessoryService accessoryService;
+    private final JsonResponseCache responseCache;
+    private final OptimisticLockRetry optimisticLockRetry;
 
-    public AccessoryController(AccessoryService accessoryService) {
+    public AccessoryController(AccessoryService accessoryService, JsonResponseCache responseCache, OptimisticLockRetry optimisticLockRetry) {
         this.accessoryService = accessoryService;
+        this.responseCache = responseCache;
+        this.optimisticLockRetry = optimisticLockRetry;
     }
 
     @Operation(summary = "Créer un accessoire")
@@ -43,11 +55,14 @@ public class AccessoryController {
     @Operation(summary = "Récupérer tous les accessoires d'un véhicule")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liste des accessoires",
-                    content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = AccessoryDto.class)))
+                    content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = AccessoryDto.class))),
+            @ApiResponse(responseCode = "304", description = "Liste non modifiée depuis la version indiquée par If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Véhicule non trouvé", content = @Content)
     })
     @GetMapping(value = "/vehicles/{vehicleId}/accessories", produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<AccessoryDto>> getAllAccessoriesByVehicleId(@PathVariable long vehicleId) {
-        return ResponseEntity.ok(accessoryService.getAllByVehicleId(vehicleId));
+    public ResponseEntity<byte[]> getAllAccessoriesByVehicleId(@PathVariable long vehicleId, WebRequest request) {
+        return responseCache.respond("vehicle-accessories:" + vehicleId, accessoryService.getListVersion(vehicleId), request,
+                () -> accessoryService.getVersionedList(vehicleId));
     }
 
     @Operation(summary = "Récupérer un accessoire par son id")
@@ -63,17 +78,38 @@ public class AccessoryController {
         return ResponseEntity.ok(accessoryById);
     }
 
+    @Operation(summary = "Récupérer plusieurs accessoires par leurs ids, dans l'ordre demandé, avec la liste des ids introuvables")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Accessoires trouvés et ids manquants",
+                    content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = BatchGetResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Id null ou trop d'ids demandés", content = @Content)
+    })
+    @PostMapping(value = "/accessories/batch-get", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchGetResultDto<AccessoryDto>> batchGet(@RequestBody BatchGetRequestDto request) {
+        return ResponseEntity.ok(accessoryService.getAccessoriesByIds(request.ids()));
+    }
+
     @Operation(summary = "Mettre à jour un accessoire")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Accessoire mis à jour",
                     content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = AccessoryDto.class))),
-            @ApiResponse(responseCode = "404", description = "Accessoire non trouvé", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Accessoire non trouvé", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Accessoire modifié depuis la version indiquée par If-Match", content = @Content)
     })
     @PutMapping(value = "/accessories/{accessoryId}", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<AccessoryDto> updateAccessory(@PathVariable Long accessoryId, @RequestBody CreateAccessoryDto accessoryDto) {
-        AccessoryDto updatedAccessory = accessoryService.updateAccessory(accessoryId, accessoryDto);
+    public ResponseEntity<AccessoryDto> updateAccessory(@PathVariable Long accessoryId, @RequestBody CreateAccessoryDto accessoryDto,
+                                                        @Parameter(description = "ETag de la version modifiée, pour une mise à jour conditionnelle") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETags.parseVersion(ifMatch);
+        VersionedDto<AccessoryDto> updatedAccessory;
+        try {
+            updatedAccessory = expectedVersion == null
+                    ? optimisticLockRetry.execute(() -> accessoryService.updateAccessory(accessoryId, accessoryDto, null))
+                    : accessoryService.updateAccessory(accessoryId, accessoryDto, expectedVersion);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
         if (updatedAccessory == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(updatedAccessory);
+        return ResponseEntity.ok().eTag(ETags.format(updatedAccessory.version())).body(updatedAccessory.body());
     }
 
     @Operation(summary = "Supprimer un accessoire")
@@ -0,0 +1,70 @@
+package com.renault.garage.controller;
+
+/**
+ * Conversion between entity versions and the ETags exposed over HTTP.
+ */
+final class ETags {
+
+    /**
+     * Version of an If-Match header that cannot be parsed: it matches no version.
+     */
+    static final long UNKNOWN_VERSION = -1;
+
+    private ETags() {
+    }
+
+    /**
+     * @return the strong ETag of the version, null if the version is null
+     */
+    static String format(Object version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Check whether an If-None-Match header lists an ETag, with the weak comparison it calls for.
+     * @param ifNoneMatch the header values, null if there is no header
+     * @param etag the strong ETag to look for
+     * @return true if one of the values is the ETag, its weak form or {@code *}
+     */
+    static boolean isListed(String[] ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String value : ifNoneMatch) {
+            for (String tag : value.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals(etag) || tag.equals("*")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the version expected by an If-Match header.
+     * @param ifMatch the header value, as {@code "3"} or {@code W/"3"}
+     * @return the version, null if there is no header or if it is {@code *},
+     * {@link #UNKNOWN_VERSION} if it is not the ETag of a version
+     */
+    static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return UNKNOWN_VERSION;
+        }
+    }
+}
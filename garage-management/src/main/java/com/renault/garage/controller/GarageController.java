@@ -1,8 +1,19 @@
 package com.renault.garage.controller;
 
+import com.renault.garage.dao.entity.OpeningTime;
+import com.renault.garage.dao.entity.Vehicle.FuelType;
+import com.renault.garage.dto.BatchGetRequestDto;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateGarageDto;
 import com.renault.garage.dto.GarageDto;
+import com.renault.garage.dto.GarageScrollDto;
+import com.renault.garage.dto.GarageSummaryDto;
+import com.renault.garage.dto.NearbyGarageDto;
+import com.renault.garage.dto.ScrollCursor;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.search.GarageLocationIndex;
 import com.renault.garage.service.GarageService;
+import com.renault.garage.service.OptimisticLockRetry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,17 +22,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.domain.Sort.Order;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.springframework.data.domain.Sort.Direction.ASC;
@@ -33,24 +53,58 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @Tag(name = "Garages", description = "Operations sur les garages")
 public class GarageController {
 
+    /**
+     * Maximum search radius of {@link #listNearbyGarages}, in kilometers
+     */
+    static final int MAX_NEARBY_RADIUS_KM = 1000;
+    /**
+     * Maximum number of garages returned by {@link #listNearbyGarages}
+     */
+    static final int MAX_NEARBY_LIMIT = 100;
+
     private final GarageService garageService;
+    private final JsonResponseCache responseCache;
+    private final OptimisticLockRetry optimisticLockRetry;
 
-    public GarageController(GarageService garageService) {
+    public GarageController(GarageService garageService, JsonResponseCache responseCache, OptimisticLockRetry optimisticLockRetry) {
         this.garageService = garageService;
+        this.responseCache = responseCache;
+        this.optimisticLockRetry = optimisticLockRetry;
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Récupérer un garage par son identifiant")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Garage trouvé", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageDto.class))),
+            @ApiResponse(responseCode = "304", description = "Garage non modifié depuis la version indiquée par If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Garage non trouvé", content = @Content)
+    })
+    public ResponseEntity<byte[]> findById(@Parameter(description = "Identifiant du garage", required = true) @PathVariable long id, WebRequest request) {
+        return responseCache.respond("garage:" + id, garageService.getVersion(id), request, () -> garageService.getVersionedGarage(id));
+    }
+
+    @PostMapping(value = "/batch-get", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Récupérer plusieurs garages par leurs identifiants, dans l'ordre demandé, avec la liste des identifiants introuvables")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Garages trouvés et identifiants manquants", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = BatchGetResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Identifiant null ou trop d'identifiants demandés", content = @Content)
+    })
+    public ResponseEntity<BatchGetResultDto<GarageDto>> batchGet(@RequestBody BatchGetRequestDto request) {
+        return ResponseEntity.ok(garageService.getGaragesByIds(request.ids()));
+    }
+
+    @GetMapping(value = "/{id}/summary", produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Récupérer en un appel un garage, ses véhicules avec leurs accessoires et ses agrégats (carburants, capacité restante, valeur des accessoires)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Synthèse du garage", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageSummaryDto.class))),
             @ApiResponse(responseCode = "404", description = "Garage non trouvé", content = @Content)
     })
-    public ResponseEntity<GarageDto> findById(@Parameter(description = "Identifiant du garage", required = true) @PathVariable long id) {
-        GarageDto garageDto = garageService.getGarageById(id);
-        if (garageDto == null) {
+    public ResponseEntity<GarageSummaryDto> getSummary(@Parameter(description = "Identifiant du garage", required = true) @PathVariable long id) {
+        GarageSummaryDto summary = garageService.getGarageSummary(id);
+        if (summary == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(garageDto);
+        return ResponseEntity.ok(summary);
     }
 
     @DeleteMapping("/{id}")
@@ -70,7 +124,8 @@ public class GarageController {
     @PostMapping
     @Operation(summary = "Créer un nouveau garage")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "Garage créé", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageDto.class)))
+            @ApiResponse(responseCode = "201", description = "Garage créé", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Garage absent, latitude sans longitude (ou l'inverse), coordonnées hors limites ou horaires trop longs", content = @Content)
     })
     public ResponseEntity<GarageDto> createGarage(@RequestBody CreateGarageDto garageDto) {
         GarageDto created = garageService.createGarage(garageDto);
@@ -84,14 +139,75 @@ public class GarageController {
     @Operation(summary = "Mettre à jour un garage (remplacement partiel ou complet des champs fournis)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Garage mis à jour", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageDto.class))),
-            @ApiResponse(responseCode = "404", description = "Garage non trouvé", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Latitude sans longitude (ou l'inverse), coordonnées hors limites ou horaires trop longs", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Garage non trouvé", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Garage modifié depuis la version indiquée par If-Match", content = @Content)
+    })
+    public ResponseEntity<GarageDto> updateGarage(@PathVariable long id, @RequestBody CreateGarageDto updateDto,
+                                                  @Parameter(description = "ETag de la version modifiée, pour une mise à jour conditionnelle") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETags.parseVersion(ifMatch);
+        VersionedDto<GarageDto> updated;
+        try {
+            updated = expectedVersion == null
+                    ? optimisticLockRetry.execute(() -> garageService.updateGarage(id, updateDto, null))
+                    : garageService.updateGarage(id, updateDto, expectedVersion);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        if (updated == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(ETags.format(updated.version())).body(updated.body());
+    }
+
+    @PatchMapping(value = "/{id}/opening-hours", consumes = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Modifier les horaires de certains jours d'un garage (liste vide : fermé ce jour), sans écriture si rien ne change")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Garage avec ses horaires", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Horaires trop longs", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Garage non trouvé", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Garage modifié depuis la version indiquée par If-Match", content = @Content)
+    })
+    public ResponseEntity<GarageDto> patchOpeningHours(@Parameter(description = "Identifiant du garage", required = true) @PathVariable long id,
+                                                       @RequestBody Map<DayOfWeek, List<OpeningTime>> days,
+                                                       @Parameter(description = "ETag de la version modifiée, pour une mise à jour conditionnelle") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETags.parseVersion(ifMatch);
+        VersionedDto<GarageDto> updated;
+        try {
+            updated = expectedVersion == null
+                    ? optimisticLockRetry.execute(() -> garageService.patchOpeningHours(id, days, null))
+                    : garageService.patchOpeningHours(id, days, expectedVersion);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        if (updated == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(ETags.format(updated.version())).body(updated.body());
+    }
+
+    @DeleteMapping("/{id}/location")
+    @Operation(summary = "Supprimer la position d'un garage, qui n'est alors plus trouvé par la recherche des garages proches")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Garage sans position", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageDto.class))),
+            @ApiResponse(responseCode = "404", description = "Garage non trouvé", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Garage modifié depuis la version indiquée par If-Match", content = @Content)
     })
-    public ResponseEntity<GarageDto> updateGarage(@PathVariable long id, @RequestBody CreateGarageDto updateDto) {
-        GarageDto updated = garageService.updateGarage(id, updateDto);
+    public ResponseEntity<GarageDto> clearLocation(@Parameter(description = "Identifiant du garage", required = true) @PathVariable long id,
+                                                   @Parameter(description = "ETag de la version modifiée, pour une mise à jour conditionnelle") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETags.parseVersion(ifMatch);
+        VersionedDto<GarageDto> updated;
+        try {
+            updated = expectedVersion == null
+                    ? optimisticLockRetry.execute(() -> garageService.clearLocation(id, null))
+                    : garageService.clearLocation(id, expectedVersion);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
         if (updated == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(updated);
+        return ResponseEntity.ok().eTag(ETags.format(updated.version())).body(updated.body());
     }
 
     @GetMapping
@@ -136,6 +252,138 @@ public class GarageController {
         return ResponseEntity.ok(garages);
     }
 
+    @GetMapping(value = "scroll", produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Parcourir les garages par curseur (pagination par clé, sans comptage), le coût d'une page ne dépendant pas de sa position")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Garages et curseur de la suite", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageScrollDto.class))),
+            @ApiResponse(responseCode = "400", description = "Tri ou curseur invalide", content = @Content)
+    })
+    public ResponseEntity<GarageScrollDto> scrollGarages(
+            @Parameter(description = "Tri: champ;[asc,desc], ignoré avec un curseur") @RequestParam(value = "sort", required = false) String sort,
+            @Parameter(description = "Curseur renvoyé par la page précédente") @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "Taille de page") @RequestParam(value = "size", defaultValue = "10") int pageSize,
+            @Parameter(description = "Inclure le nombre total de garages (comptage mis en cache)") @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        return scroll(sort, cursor, null, pageSize, withTotal);
+    }
+
+    @GetMapping(value = "byVehicleFuelType/{vehicleFuelType}/scroll", produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Parcourir par curseur les garages ayant des véhicules du carburant demandé, sans comptage")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Garages et curseur de la suite", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = GarageScrollDto.class))),
+            @ApiResponse(responseCode = "400", description = "Type de carburant inconnu, tri ou curseur invalide", content = @Content)
+    })
+    public ResponseEntity<GarageScrollDto> scrollGaragesByVehicleFuelType(
+            @Parameter(description = "Type de carburant du véhicule") @PathVariable String vehicleFuelType,
+            @Parameter(description = "Tri: champ;[asc,desc], ignoré avec un curseur") @RequestParam(value = "sort", required = false) String sort,
+            @Parameter(description = "Curseur renvoyé par la page précédente") @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "Taille de page") @RequestParam(value = "size", defaultValue = "10") int pageSize,
+            @Parameter(description = "Inclure le nombre total de garages (comptage mis en cache)") @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        FuelType fuelType = FuelType.fromString(vehicleFuelType);
+        if (fuelType == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return scroll(sort, cursor, fuelType, pageSize, withTotal);
+    }
+
+    private ResponseEntity<GarageScrollDto> scroll(String sort, String cursor, FuelType fuelType, int pageSize, boolean withTotal) {
+        Order order = Order.by("id");
+        if (sort != null) {
+            String[] array = sort.split(";");
+            if (array.length != 2 || !isValidSort(array[1], array[0])) {
+                return ResponseEntity.badRequest().build();
+            }
+            order = new Order(Direction.fromString(array[1]), array[0]);
+        }
+        ScrollCursor position = null;
+        if (cursor != null) {
+            try {
+                position = ScrollCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            if (!isValidSort(position.direction().name(), position.property())) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(garageService.scrollGarages(order, position, fuelType, pageSize, withTotal));
+    }
+
+    @GetMapping("byVehicleFuelTypes")
+    @Operation(summary = "Lister les garages ayant au moins minCount véhicules de chacun (match=ALL) ou de l'un (match=ANY) des carburants demandés")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page de garages"),
+            @ApiResponse(responseCode = "400", description = "Type de carburant inconnu", content = @Content)
+    })
+    public ResponseEntity<Page<GarageDto>> listGaragesByVehicleFuelTypes(
+            @Parameter(description = "Types de carburant des véhicules") @RequestParam(value = "fuelType") List<String> fuelTypes,
+            @Parameter(description = "Nombre minimal de véhicules par carburant") @RequestParam(value = "minCount", defaultValue = "1") int minCount,
+            @Parameter(description = "ALL : tous les carburants, ANY : au moins un") @RequestParam(value = "match", defaultValue = "ALL") String match,
+            @Parameter(description = "Index de page (0..n)") @RequestParam(value = "page", defaultValue = "0") int page,
+            @Parameter(description = "Taille de page") @RequestParam(value = "size", defaultValue = "10") int pageSize) {
+        Set<FuelType> types = EnumSet.noneOf(FuelType.class);
+        for (String fuelType : fuelTypes) {
+            FuelType type = FuelType.fromString(fuelType);
+            if (type == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            types.add(type);
+        }
+        if (!StringUtils.equalsAnyIgnoreCase(match, "ALL", "ANY")) {
+            return ResponseEntity.badRequest().build();
+        }
+        Pageable pageable = PageRequest.of(page, pageSize, Sort.by("id"));
+        return ResponseEntity.ok(garageService.getGaragesHavingVehiclesWithFuelTypes(types, minCount, "ALL".equalsIgnoreCase(match), pageable));
+    }
+
+    @GetMapping("open")
+    @Operation(summary = "Lister les garages ouverts à une date et heure données (maintenant par défaut), éventuellement ayant un véhicule du carburant demandé")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page de garages ouverts, triés par identifiant"),
+            @ApiResponse(responseCode = "400", description = "Date invalide ou type de carburant inconnu", content = @Content)
+    })
+    public ResponseEntity<Page<GarageDto>> listOpenGarages(
+            @Parameter(description = "Date et heure locales des garages (ISO, ex. 2025-01-06T09:30), maintenant si absente") @RequestParam(value = "at", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @Parameter(description = "Type de carburant d'au moins un véhicule du garage") @RequestParam(value = "fuelType", required = false) String fuelType,
+            @Parameter(description = "Index de page (0..n)") @RequestParam(value = "page", defaultValue = "0") int page,
+            @Parameter(description = "Taille de page") @RequestParam(value = "size", defaultValue = "10") int pageSize) {
+        FuelType type = null;
+        if (fuelType != null) {
+            type = FuelType.fromString(fuelType);
+            if (type == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        Pageable pageable = PageRequest.of(page, pageSize, Sort.by("id"));
+        return ResponseEntity.ok(garageService.getOpenGarages(at != null ? at : LocalDateTime.now(), type, pageable));
+    }
+
+    @GetMapping("nearby")
+    @Operation(summary = "Lister les garages les plus proches d'un point, éventuellement ayant un véhicule du carburant demandé et des places libres")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Garages localisés dans le rayon, du plus proche au plus éloigné, avec leur distance en km"),
+            @ApiResponse(responseCode = "400", description = "Coordonnées, rayon ou nombre invalides, ou type de carburant inconnu", content = @Content)
+    })
+    public ResponseEntity<List<NearbyGarageDto>> listNearbyGarages(
+            @Parameter(description = "Latitude du point en degrés (-90..90)") @RequestParam("lat") double latitude,
+            @Parameter(description = "Longitude du point en degrés (-180..180)") @RequestParam("lon") double longitude,
+            @Parameter(description = "Distance maximale en km (jusqu'à " + MAX_NEARBY_RADIUS_KM + ")") @RequestParam(value = "radius", defaultValue = "50") double radiusKm,
+            @Parameter(description = "Type de carburant d'au moins un véhicule du garage") @RequestParam(value = "fuelType", required = false) String fuelType,
+            @Parameter(description = "Nombre minimal de places libres pour des véhicules") @RequestParam(value = "minCapacity", required = false) Integer minCapacity,
+            @Parameter(description = "Nombre maximal de garages (jusqu'à " + MAX_NEARBY_LIMIT + ")") @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (!GarageLocationIndex.isValid(latitude, longitude) || !(radiusKm > 0 && radiusKm <= MAX_NEARBY_RADIUS_KM)
+                || limit < 1 || limit > MAX_NEARBY_LIMIT || (minCapacity != null && minCapacity < 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+        FuelType type = null;
+        if (fuelType != null) {
+            type = FuelType.fromString(fuelType);
+            if (type == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(garageService.getNearbyGarages(latitude, longitude, radiusKm, type, minCapacity, limit));
+    }
+
     /**
      * Check if the sort direction and property are valid
      *
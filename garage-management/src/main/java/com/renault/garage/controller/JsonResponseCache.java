@@ -0,0 +1,97 @@
+package com.renault.garage.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.renault.garage.dto.VersionedDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Cache of the JSON bodies of the read endpoints, stored already serialized and validated against the version
+ * of the resource: a request costs a version lookup, and nothing more when the client already has that version.
+ * <p>
+ * The version is sent as a strong ETag; a request whose {@code If-None-Match} matches it gets a 304 without body.
+ * A body is cached and sent with the version it was loaded with, never with the one looked up beforehand:
+ * a change committed in between would otherwise store the new body under the old version.
+ */
+@Component
+public class JsonResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedJson> cache;
+
+    public JsonResponseCache(ObjectMapper objectMapper,
+                             @Value("${garage.response-cache.maximum-size:10000}") long maximumSize,
+                             ObjectProvider<MeterRegistry> meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "responses"));
+    }
+
+    /**
+     * @see #respond(String, String, WebRequest, Supplier)
+     */
+    public ResponseEntity<byte[]> respond(String key, Long version, WebRequest request, Supplier<? extends VersionedDto<?>> loader) {
+        return respond(key, version == null ? null : version.toString(), request, loader);
+    }
+
+    /**
+     * Build the response of a read endpoint.
+     * @param key the key of the resource in the cache
+     * @param version the current version of the resource, null if it does not exist
+     * @param request the request, checked for {@code If-None-Match}
+     * @param loader loads the resource with the version read in the same transaction when the cache does not hold
+     *               the current version, may return null if it no longer exists
+     * @return the cached JSON body with its ETag, a 404 if the resource does not exist,
+     * or null when the response was already completed as 304 Not Modified
+     */
+    public ResponseEntity<byte[]> respond(String key, String version, WebRequest request, Supplier<? extends VersionedDto<?>> loader) {
+        if (version == null) {
+            cache.invalidate(key);
+            return ResponseEntity.notFound().build();
+        }
+        String etag = ETags.format(version);
+        // checkNotModified sets the ETag of the response even when it does not match, only call it when it will match
+        if (ETags.isListed(request.getHeaderValues(HttpHeaders.IF_NONE_MATCH), etag) && request.checkNotModified(etag)) {
+            return null;
+        }
+        CachedJson cached = cache.getIfPresent(key);
+        if (cached == null || !cached.etag().equals(etag)) {
+            VersionedDto<?> loaded = loader.get();
+            if (loaded == null) {
+                cache.invalidate(key);
+                return ResponseEntity.notFound().build();
+            }
+            cached = new CachedJson(ETags.format(loaded.version()), serialize(loaded.body()));
+            cache.put(key, cached);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(cached.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(cached.body());
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + body.getClass().getSimpleName(), e);
+        }
+    }
+
+    private record CachedJson(String etag, byte[] body) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.renault.garage.controller;
+
+import com.renault.garage.dto.OutboxEventDto;
+import com.renault.garage.service.OutboxService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RestController
+@RequestMapping("/api/v1")
+@Tag(name = "Outbox", description = "Flux des changements (garages, véhicules, accessoires)")
+public class OutboxController {
+
+    private final OutboxService outboxService;
+
+    public OutboxController(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
+    @GetMapping(value = "outbox", produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Lire les changements publiés après une position donnée")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changements triés par position", content = @Content(mediaType = APPLICATION_JSON_VALUE, array = @ArraySchema(schema = @Schema(implementation = OutboxEventDto.class))))
+    })
+    public ResponseEntity<List<OutboxEventDto>> listAfter(@Parameter(description = "Position du dernier changement lu") @RequestParam(value = "after", defaultValue = "0") long after,
+                                                          @Parameter(description = "Nombre maximum de changements") @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return ResponseEntity.ok(outboxService.getRelayedAfter(after, limit));
+    }
+}
@@ -1,8 +1,15 @@
 package com.renault.garage.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renault.garage.dto.BatchGetRequestDto;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateVehicleDto;
 import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.dto.VehiclePageDto;
+import com.renault.garage.dto.VersionedDto;
 import com.renault.garage.exception.GarageCapacityExceededException;
+import com.renault.garage.service.OptimisticLockRetry;
 import com.renault.garage.service.VehicleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,24 +18,43 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
 @RestController
 @RequestMapping("/api/v1")
 @Tag(name = "Véhicules", description = "Opérations sur les véhicules")
 public class VehicleController {
 
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+
     private final VehicleService vehicleService;
+    private final ObjectMapper objectMapper;
+    private final JsonResponseCache responseCache;
+    private final OptimisticLockRetry optimisticLockRetry;
 
-    public VehicleController(VehicleService vehicleService) {
+    public VehicleController(VehicleService vehicleService, ObjectMapper objectMapper, JsonResponseCache responseCache,
+                             OptimisticLockRetry optimisticLockRetry) {
         this.vehicleService = vehicleService;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.optimisticLockRetry = optimisticLockRetry;
     }
 
     @PostMapping("garages/{garageId}/vehicles")
@@ -70,30 +96,65 @@ public class VehicleController {
     @Operation(summary = "Récupérer un véhicule par son id")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Trouvé", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = VehicleDto.class))),
+            @ApiResponse(responseCode = "304", description = "Non modifié depuis la version indiquée par If-None-Match", content = @Content),
             @ApiResponse(responseCode = "404", description = "Non trouvé", content = @Content)
     })
-    public ResponseEntity<VehicleDto> get(@Parameter(description = "Identifiant véhicule") @PathVariable Long id) {
-        VehicleDto dto = vehicleService.get(id);
-        if (dto == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(dto);
+    public ResponseEntity<byte[]> get(@Parameter(description = "Identifiant véhicule") @PathVariable Long id, WebRequest request) {
+        return responseCache.respond("vehicle:" + id, vehicleService.getVersion(id), request, () -> vehicleService.getVersioned(id));
+    }
+
+    @GetMapping(value = "vehicles", produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Lister tous les véhicules (tableau JSON écrit en flux)")
+    public ResponseEntity<StreamingResponseBody> listAll() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> streamVehicles(out, false));
+    }
+
+    @GetMapping(value = "vehicles", produces = APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Lister tous les véhicules au format NDJSON (un véhicule par ligne)")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> streamVehicles(out, true));
     }
 
-    @GetMapping("vehicles")
-    @Operation(summary = "Lister tous les véhicules")
-    public ResponseEntity<List<VehicleDto>> listAll() {
-        return ResponseEntity.ok(vehicleService.getAll());
+    @GetMapping(value = "vehicles/page", produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Lister les véhicules par page (pagination par curseur sur l'id)")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page de véhicules", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = VehiclePageDto.class)))
+    })
+    public ResponseEntity<VehiclePageDto> listPage(@Parameter(description = "Curseur: id du dernier véhicule lu") @RequestParam(value = "after", required = false) Long after,
+                                                   @Parameter(description = "Taille de page") @RequestParam(value = "size", defaultValue = "100") int size) {
+        return ResponseEntity.ok(vehicleService.getPage(after, size));
+    }
+
+    @PostMapping(value = "vehicles/batch-get", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Récupérer plusieurs véhicules par leurs ids, dans l'ordre demandé, avec la liste des ids introuvables")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Véhicules trouvés et ids manquants", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = BatchGetResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Id null ou trop d'ids demandés", content = @Content)
+    })
+    public ResponseEntity<BatchGetResultDto<VehicleDto>> batchGet(@RequestBody BatchGetRequestDto request) {
+        return ResponseEntity.ok(vehicleService.getByIds(request.ids()));
     }
 
     @PutMapping("vehicles/{id}")
     @Operation(summary = "Mettre à jour un véhicule (remplace les champs fournis)")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Mis à jour", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = VehicleDto.class))),
-            @ApiResponse(responseCode = "404", description = "Non trouvé", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Non trouvé", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Modifié depuis la version indiquée par If-Match", content = @Content)
     })
-    public ResponseEntity<VehicleDto> update(@PathVariable Long id, @RequestBody CreateVehicleDto dto) {
-        VehicleDto updated = vehicleService.update(id, dto);
+    public ResponseEntity<VehicleDto> update(@PathVariable Long id, @RequestBody CreateVehicleDto dto,
+                                             @Parameter(description = "ETag de la version modifiée, pour une mise à jour conditionnelle") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETags.parseVersion(ifMatch);
+        VersionedDto<VehicleDto> updated;
+        try {
+            updated = expectedVersion == null
+                    ? optimisticLockRetry.execute(() -> vehicleService.update(id, dto, null))
+                    : vehicleService.update(id, dto, expectedVersion);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
         if (updated == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(updated);
+        return ResponseEntity.ok().eTag(ETags.format(updated.version())).body(updated.body());
     }
 
     @DeleteMapping("vehicles/{id}")
@@ -133,18 +194,50 @@ public class VehicleController {
     }
 
     @GetMapping("vehicles/byAccessory/{accessory}")
-    @Operation(summary = "Lister les véhicules qui ont un accessoire donné")
+    @Operation(summary = "Rechercher les véhicules par accessoire (nom ou description, sans tenir compte des accents, préfixe ou faute de frappe), les plus pertinents d'abord")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Liste des véhicules", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = VehicleDto.class))),
             @ApiResponse(responseCode = "404", description = "Garage non trouvé", content = @Content)
     })
-    public ResponseEntity<List<VehicleDto>> listByAccessory(@PathVariable String accessory) {
-        List<VehicleDto> vehicles = vehicleService.getByAccessory(accessory);
+    public ResponseEntity<List<VehicleDto>> listByAccessory(@Parameter(description = "Texte recherché") @PathVariable String accessory,
+                                                            @Parameter(description = "Index de page (0..n)") @RequestParam(value = "page", defaultValue = "0") int page,
+                                                            @Parameter(description = "Taille de page") @RequestParam(value = "size", defaultValue = "20") int size) {
+        List<VehicleDto> vehicles = vehicleService.getByAccessory(accessory, page, size);
         if (CollectionUtils.isEmpty(vehicles)) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(vehicles);
     }
 
-
+    /**
+     * Write every vehicle to the response as it is read from the database, either as a JSON array
+     * or as newline-delimited JSON.
+     */
+    private void streamVehicles(OutputStream out, boolean ndjson) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            int[] written = {0};
+            vehicleService.streamAll(vehicle -> {
+                try {
+                    generator.writeObject(vehicle);
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
 }
@@ -0,0 +1,56 @@
+package com.renault.garage.controller;
+
+import com.renault.garage.dto.VehicleImportReportDto;
+import com.renault.garage.service.VehicleImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RestController
+@RequestMapping("/api/v1")
+@Tag(name = "Véhicules", description = "Opérations sur les véhicules")
+public class VehicleImportController {
+
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final VehicleImportService vehicleImportService;
+
+    public VehicleImportController(VehicleImportService vehicleImportService) {
+        this.vehicleImportService = vehicleImportService;
+    }
+
+    @PostMapping(value = "vehicles/import", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Importer des véhicules en masse depuis un tableau JSON")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rapport d'import ligne par ligne", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = VehicleImportReportDto.class))),
+            @ApiResponse(responseCode = "400", description = "Le document n'est pas un tableau JSON", content = @Content)
+    })
+    public ResponseEntity<VehicleImportReportDto> importJson(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(vehicleImportService.importJson(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping(value = "vehicles/import", consumes = TEXT_CSV_VALUE, produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Importer des véhicules en masse depuis un CSV (garageId,brand,yearOfManufacture,fuelType)")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rapport d'import ligne par ligne", content = @Content(mediaType = APPLICATION_JSON_VALUE, schema = @Schema(implementation = VehicleImportReportDto.class)))
+    })
+    public ResponseEntity<VehicleImportReportDto> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(vehicleImportService.importCsv(body));
+    }
+}
@@ -0,0 +1,96 @@
+package com.renault.garage.dao;
+
+import com.renault.garage.exception.DatabaseBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bound the number of threads working with the database to the size of the connection pool, so that with request
+ * handlers on virtual threads thousands of slow requests wait on a fair semaphore instead of piling up in Hikari
+ * (and failing on its connection timeout).
+ * <p>
+ * The permit is taken by the first service or repository call of a thread, before the transaction gets its
+ * connection, and held until that call returns: the nested calls of the same thread do not take another one.
+ * A call that waits more than {@code garage.db-limiter.acquire-timeout} fails with a {@link DatabaseBusyException} (503).
+ * <p>
+ * The limiter refuses to start with {@code spring.jpa.open-in-view}: the request would keep its connection after
+ * giving back its permit, so the pool, not the limiter, would bound the concurrency again.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "garage.db-limiter.enabled", havingValue = "true")
+public class DatabaseConcurrencyLimiter {
+
+    private static final ThreadLocal<Boolean> HOLDS_PERMIT = new ThreadLocal<>();
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final Duration acquireTimeout;
+    private final Timer waitTimer;
+
+    public DatabaseConcurrencyLimiter(@Value("${garage.db-limiter.max-concurrency:10}") int maxConcurrency,
+                                      @Value("${garage.db-limiter.acquire-timeout:5s}") Duration acquireTimeout,
+                                      @Value("${spring.jpa.open-in-view:true}") boolean openInView,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        if (openInView) {
+            throw new IllegalStateException("garage.db-limiter.enabled requires spring.jpa.open-in-view=false");
+        }
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeout = acquireTimeout;
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        Gauge.builder("garage.db.limiter.in-use", permits, s -> maxConcurrency - s.availablePermits())
+                .description("Threads working with the database").register(registry);
+        Gauge.builder("garage.db.limiter.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a database slot").register(registry);
+        this.waitTimer = Timer.builder("garage.db.limiter.wait").publishPercentileHistogram().register(registry);
+    }
+
+    @Around("(within(com.renault.garage.service..*) && @within(org.springframework.stereotype.Service))"
+            + " || this(org.springframework.data.repository.Repository)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (HOLDS_PERMIT.get() != null) {
+            return joinPoint.proceed();
+        }
+        acquire();
+        HOLDS_PERMIT.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            HOLDS_PERMIT.remove();
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseBusyException("Interrompu en attente d'un accès à la base");
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            throw new DatabaseBusyException("Base saturée : aucun des " + maxConcurrency + " accès libéré en " + acquireTimeout.toMillis() + " ms");
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.renault.garage.dao.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +18,13 @@ public class Accessory {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * Incremented by Hibernate on every update, used for optimistic locking and as the HTTP ETag of the resource.
+     */
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
     private String name;
     private String description;
     private Double price;
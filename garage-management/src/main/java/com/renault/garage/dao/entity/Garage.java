@@ -2,6 +2,11 @@ package com.renault.garage.dao.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Mutability;
+import org.hibernate.type.descriptor.java.Immutability;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,17 +17,38 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Garage.CACHE_REGION)
 public class Garage {
+
+    public static final String CACHE_REGION = "garage";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    /**
+     * Incremented by Hibernate on every update, used for optimistic locking and as the HTTP ETag of the resource.
+     */
+    @Version
+    @ColumnDefault("0")
+    private long version;
     private String name;
     private String address;
     private String telephone;
     private String email;
+    /**
+     * Location in degrees (WGS 84), both null when the garage is not located.
+     */
+    private Double latitude;
+    private Double longitude;
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})
-    private List<OpeningSlot> openingSlots;
+    /**
+     * Shared immutable value, replaced as a whole when the opening hours change.
+     */
+    @Convert(converter = WeeklyScheduleConverter.class)
+    @Mutability(Immutability.class)
+    @Column(length = WeeklySchedule.MAX_LENGTH)
+    private WeeklySchedule openingHours = WeeklySchedule.EMPTY;
 
     @ManyToMany(fetch = FetchType.LAZY, mappedBy = "garages")
     private List<Vehicle> vehicles;
@@ -0,0 +1,45 @@
+package com.renault.garage.dao.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Number of vehicles of a fuel type linked to a garage, maintained with the vehicles so that the garages having
+ * vehicles of a fuel type are found with an index lookup instead of joining the vehicle table.
+ * A row exists for every garage and every fuel type, created with the garage.
+ */
+@Entity
+@IdClass(GarageFuelTypeCount.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GarageFuelTypeCount {
+
+    @Id
+    private Long garageId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private Vehicle.FuelType fuelType;
+
+    private int vehicleCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long garageId;
+        private Vehicle.FuelType fuelType;
+    }
+}
@@ -0,0 +1,25 @@
+package com.renault.garage.dao.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Number of vehicles linked to a garage, kept next to the garage so that the capacity check
+ * never has to load or count the vehicles collection.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GarageOccupancy {
+
+    @Id
+    private Long garageId;
+
+    private int vehicleCount;
+}
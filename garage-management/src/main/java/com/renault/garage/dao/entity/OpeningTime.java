@@ -1,19 +1,15 @@
 package com.renault.garage.dao.entity;
 
-import jakarta.persistence.Embeddable;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
+import lombok.Value;
 
 import java.time.LocalTime;
 
-@Embeddable
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * Opening slot of a day, from its start time (inclusive) to its end time (exclusive).
+ * Immutable: the slots of a {@link WeeklySchedule} are shared by its days and by every garage having it.
+ */
+@Value
 public class OpeningTime {
-    private LocalTime startTime;
-    private LocalTime endTime;
+    LocalTime startTime;
+    LocalTime endTime;
 }
@@ -0,0 +1,48 @@
+package com.renault.garage.dao.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Change event written in the same transaction as the change itself, then relayed to the outbox sinks.
+ * The position is assigned when the event is relayed: it gives the order in which downstream systems see the events.
+ * Its unique index and the one on the publication time are created by the Flyway migrations.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;
+
+    private String aggregateType;
+
+    private Long aggregateId;
+
+    private String type;
+
+    @Lob
+    private String payload;
+
+    private Instant createdAt;
+
+    private Long position;
+
+    private Instant publishedAt;
+
+    public OutboxEvent(String aggregateType, Long aggregateId, String type, String payload, Instant createdAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.type = type;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
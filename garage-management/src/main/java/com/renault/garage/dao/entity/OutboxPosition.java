@@ -0,0 +1,23 @@
+package com.renault.garage.dao.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Last position given to a relayed {@link OutboxEvent}. It is kept in its own row rather than computed from the events,
+ * so positions keep increasing once the relayed events are deleted; the relay locks the row until its batch commits.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxPosition {
+
+    @Id
+    private Long id;
+
+    private long lastPosition;
+}
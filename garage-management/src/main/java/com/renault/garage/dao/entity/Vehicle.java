@@ -2,6 +2,7 @@ package com.renault.garage.dao.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,10 +15,21 @@ import java.util.List;
 @EqualsAndHashCode
 public class Vehicle {
 
+    /**
+     * Sequence-based so that Hibernate can batch the inserts (IDENTITY forces one round-trip per row).
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vehicle_seq")
+    @SequenceGenerator(name = "vehicle_seq", sequenceName = "vehicle_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * Incremented by Hibernate on every update, used for optimistic locking and as the HTTP ETag of the resource.
+     */
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
     private String brand;
 
     private int yearOfManufacture;
@@ -0,0 +1,191 @@
+package com.renault.garage.dao.entity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opening hours of a garage over the week, stored in a single column of the garage.
+ * <p>
+ * A schedule is immutable and shared: identical schedules, as most garages of a network have, are the same instance
+ * as long as one garage uses it, so reading a garage neither joins nor groups its opening slots. The slots are kept
+ * by day of the week and sorted by start time.
+ * <p>
+ * The column holds the days as their ISO number, each followed by its slots:
+ * {@code 1=08:00-12:00,13:30-18:00;6=09:00-13:00}.
+ */
+public final class WeeklySchedule implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum length of the column, about 50 slots
+     */
+    public static final int MAX_LENGTH = 1024;
+
+    private static final Cache<String, WeeklySchedule> SHARED = Caffeine.newBuilder().weakValues().build();
+    private static final Comparator<OpeningTime> BY_START_TIME = Comparator.comparing(OpeningTime::getStartTime)
+            .thenComparing(OpeningTime::getEndTime);
+
+    public static final WeeklySchedule EMPTY = new WeeklySchedule("", Collections.unmodifiableMap(new EnumMap<>(DayOfWeek.class)));
+
+    private final String encoded;
+    private final transient Map<DayOfWeek, List<OpeningTime>> openingHours;
+
+    private WeeklySchedule(String encoded, Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        this.encoded = encoded;
+        this.openingHours = openingHours;
+    }
+
+    /**
+     * @param openingHours the opening slots by day, null or empty when the garage is never open; slots without
+     *                     start or end time are ignored
+     * @return the shared schedule having these slots
+     */
+    public static WeeklySchedule of(Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        if (openingHours == null) {
+            return EMPTY;
+        }
+        Map<DayOfWeek, List<OpeningTime>> sorted = new EnumMap<>(DayOfWeek.class);
+        openingHours.forEach((day, times) -> {
+            if (day != null && times != null && !times.isEmpty()) {
+                List<OpeningTime> copy = new ArrayList<>(times.size());
+                for (OpeningTime time : times) {
+                    if (time != null && time.getStartTime() != null && time.getEndTime() != null) {
+                        copy.add(new OpeningTime(time.getStartTime(), time.getEndTime()));
+                    }
+                }
+                if (!copy.isEmpty()) {
+                    copy.sort(BY_START_TIME);
+                    sorted.put(day, copy);
+                }
+            }
+        });
+        return share(encode(sorted), sorted);
+    }
+
+    /**
+     * @param encoded the schedule as stored in the column, null or empty when the garage is never open
+     * @return the shared schedule
+     * @throws IllegalArgumentException if the value is not a schedule
+     */
+    public static WeeklySchedule parse(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return EMPTY;
+        }
+        WeeklySchedule shared = SHARED.getIfPresent(encoded);
+        if (shared != null) {
+            return shared;
+        }
+        Map<DayOfWeek, List<OpeningTime>> openingHours = new EnumMap<>(DayOfWeek.class);
+        try {
+            for (String day : encoded.split(";")) {
+                int separator = day.indexOf('=');
+                List<OpeningTime> times = new ArrayList<>();
+                for (String slot : day.substring(separator + 1).split(",")) {
+                    int dash = slot.indexOf('-');
+                    times.add(new OpeningTime(LocalTime.parse(slot.substring(0, dash)), LocalTime.parse(slot.substring(dash + 1))));
+                }
+                openingHours.put(DayOfWeek.of(Integer.parseInt(day.substring(0, separator))), times);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid weekly schedule: " + encoded, e);
+        }
+        return share(encoded, openingHours);
+    }
+
+    private static WeeklySchedule share(String encoded, Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        if (encoded.isEmpty()) {
+            return EMPTY;
+        }
+        openingHours.replaceAll((day, times) -> List.copyOf(times));
+        return SHARED.get(encoded, key -> new WeeklySchedule(key, Collections.unmodifiableMap(openingHours)));
+    }
+
+    private static String encode(Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        StringBuilder encoded = new StringBuilder();
+        openingHours.forEach((day, times) -> {
+            if (!encoded.isEmpty()) {
+                encoded.append(';');
+            }
+            encoded.append(day.getValue()).append('=');
+            for (int i = 0; i < times.size(); i++) {
+                if (i > 0) {
+                    encoded.append(',');
+                }
+                encoded.append(times.get(i).getStartTime()).append('-').append(times.get(i).getEndTime());
+            }
+        });
+        return encoded.toString();
+    }
+
+    /**
+     * Replace the slots of some days, keeping the other days as they are.
+     * @param days the new slots of the changed days, null or empty for a day the garage is now closed
+     * @return the shared schedule with these changes, this schedule itself if nothing changes
+     */
+    public WeeklySchedule with(Map<DayOfWeek, List<OpeningTime>> days) {
+        if (days == null || days.isEmpty()) {
+            return this;
+        }
+        Map<DayOfWeek, List<OpeningTime>> merged = new EnumMap<>(DayOfWeek.class);
+        merged.putAll(openingHours);
+        days.forEach((day, times) -> {
+            if (times == null || times.isEmpty()) {
+                merged.remove(day);
+            } else {
+                merged.put(day, times);
+            }
+        });
+        return of(merged);
+    }
+
+    /**
+     * @return the opening slots by day of the week, read-only
+     */
+    public Map<DayOfWeek, List<OpeningTime>> openingHours() {
+        return openingHours;
+    }
+
+    public boolean isEmpty() {
+        return openingHours.isEmpty();
+    }
+
+    /**
+     * @return the schedule as stored in the column
+     */
+    public String encoded() {
+        return encoded;
+    }
+
+    @Serial
+    private Object readResolve() {
+        return parse(encoded);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WeeklySchedule other && encoded.equals(other.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return encoded.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return encoded;
+    }
+}
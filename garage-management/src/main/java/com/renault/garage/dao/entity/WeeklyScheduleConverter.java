@@ -0,0 +1,21 @@
+package com.renault.garage.dao.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Store a {@link WeeklySchedule} in a single column, null when the garage is never open.
+ */
+@Converter
+public class WeeklyScheduleConverter implements AttributeConverter<WeeklySchedule, String> {
+
+    @Override
+    public String convertToDatabaseColumn(WeeklySchedule schedule) {
+        return schedule == null || schedule.isEmpty() ? null : schedule.encoded();
+    }
+
+    @Override
+    public WeeklySchedule convertToEntityAttribute(String column) {
+        return WeeklySchedule.parse(column);
+    }
+}
@@ -0,0 +1,7 @@
+package com.renault.garage.dao.projection;
+
+/**
+ * Link between an accessory and a vehicle that has it.
+ */
+public record AccessoryVehicle(Long accessoryId, Long vehicleId) {
+}
@@ -0,0 +1,7 @@
+package com.renault.garage.dao.projection;
+
+/**
+ * Id and version of an entity, read without loading the entity itself.
+ */
+public record EntityVersion(Long id, long version) {
+}
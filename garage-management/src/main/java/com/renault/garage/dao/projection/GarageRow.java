@@ -0,0 +1,10 @@
+package com.renault.garage.dao.projection;
+
+import com.renault.garage.dao.entity.WeeklySchedule;
+
+/**
+ * A garage with its opening hours and its version, read without loading the entity.
+ */
+public record GarageRow(Long id, String name, String address, String telephone, String email, WeeklySchedule openingHours,
+                        Double latitude, Double longitude, long version) {
+}
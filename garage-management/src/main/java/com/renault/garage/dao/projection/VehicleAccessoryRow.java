@@ -0,0 +1,10 @@
+package com.renault.garage.dao.projection;
+
+import com.renault.garage.dao.entity.Vehicle;
+
+/**
+ * A vehicle with one of its accessories (null accessory columns when the vehicle has none), read without loading the entities.
+ */
+public record VehicleAccessoryRow(Long vehicleId, String brand, int yearOfManufacture, Vehicle.FuelType fuelType,
+                                  Long accessoryId, String accessoryName, String accessoryDescription, Double accessoryPrice, String accessoryType) {
+}
@@ -1,20 +1,46 @@
 package com.renault.garage.dao.repository;
 
 import com.renault.garage.dao.entity.Accessory;
+import com.renault.garage.dao.projection.EntityVersion;
+import com.renault.garage.dto.AccessoryDto;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface AccessoryRepository extends CrudRepository<Accessory, Long> {
+public interface AccessoryRepository extends JpaRepository<Accessory, Long> {
+
+    /**
+     * Find an accessory, read directly into its DTO without loading the entity
+     * @param id the accessory ID
+     * @return the accessory, empty if it does not exist
+     */
+    @Query("SELECT new com.renault.garage.dto.AccessoryDto(a.id, a.name, a.description, a.price, a.type) FROM Accessory a WHERE a.id = :id")
+    Optional<AccessoryDto> findDtoById(long id);
 
     /**
      * Find accessories by vehicle ID
      * @param vehicleId the vehicle ID
      * @return list of accessories
      */
-    @Query("SELECT a FROM Accessory a JOIN a.vehicles v WHERE v.id = :vehicleId")
-    List<Accessory> findByVehicleId(Long vehicleId);
+    @Query("SELECT new com.renault.garage.dto.AccessoryDto(a.id, a.name, a.description, a.price, a.type) FROM Accessory a JOIN a.vehicles v WHERE v.id = :vehicleId")
+    List<AccessoryDto> findByVehicleId(Long vehicleId);
 
+    /**
+     * Find accessories by ids, read directly into their DTOs
+     * @param ids the accessory IDs
+     * @return the accessories found, in no particular order
+     */
+    @Query("SELECT new com.renault.garage.dto.AccessoryDto(a.id, a.name, a.description, a.price, a.type) FROM Accessory a WHERE a.id IN :ids")
+    List<AccessoryDto> findDtosByIdIn(Collection<Long> ids);
 
+    /**
+     * Find the ids and versions of the accessories of a vehicle, without loading them
+     * @param vehicleId the vehicle ID
+     * @return the ids and versions, ordered by id
+     */
+    @Query("SELECT new com.renault.garage.dao.projection.EntityVersion(a.id, a.version) FROM Accessory a JOIN a.vehicles v WHERE v.id = :vehicleId ORDER BY a.id")
+    List<EntityVersion> findVersionsByVehicleId(Long vehicleId);
 }
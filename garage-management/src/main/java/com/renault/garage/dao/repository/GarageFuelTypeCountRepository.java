@@ -0,0 +1,60 @@
+package com.renault.garage.dao.repository;
+
+import com.renault.garage.dao.entity.GarageFuelTypeCount;
+import com.renault.garage.dao.entity.Vehicle;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface GarageFuelTypeCountRepository extends CrudRepository<GarageFuelTypeCount, GarageFuelTypeCount.Key> {
+
+    /**
+     * Add vehicles of a fuel type to the counter of a garage.
+     * @param garageId the garage ID
+     * @param fuelType the fuel type of the vehicles
+     * @param delta the number of vehicles added, negative when they are removed
+     * @return the number of counters updated, 0 if the garage is unknown
+     */
+    @Modifying
+    @Query("UPDATE GarageFuelTypeCount c SET c.vehicleCount = c.vehicleCount + :delta WHERE c.garageId = :garageId AND c.fuelType = :fuelType")
+    int add(Long garageId, Vehicle.FuelType fuelType, int delta);
+
+    /**
+     * Add a vehicle to the counters of every garage it is linked to, or remove it with a negative delta.
+     * When removing, must be called before the vehicle links are removed.
+     * @param vehicleId the vehicle ID
+     * @param fuelType the fuel type counted for the vehicle
+     * @param delta 1 to add the vehicle, -1 to remove it
+     * @return the number of counters updated
+     */
+    @Modifying
+    @Query("UPDATE GarageFuelTypeCount c SET c.vehicleCount = c.vehicleCount + :delta WHERE c.fuelType = :fuelType AND c.garageId IN (SELECT g.id FROM Vehicle v JOIN v.garages g WHERE v.id = :vehicleId)")
+    int addVehicle(Long vehicleId, Vehicle.FuelType fuelType, int delta);
+
+    /**
+     * Remove the counters of a garage
+     * @param garageId the garage ID
+     */
+    @Modifying
+    @Query("DELETE FROM GarageFuelTypeCount c WHERE c.garageId = :garageId")
+    void deleteByGarageId(Long garageId);
+
+    /**
+     * Find the garages having at least {@code minCount} vehicles of a fuel type, read from the counters index only
+     * @param fuelType the fuel type of the vehicles
+     * @param minCount the minimum number of vehicles
+     * @return the garage IDs
+     */
+    @Query("SELECT c.garageId FROM GarageFuelTypeCount c WHERE c.fuelType = :fuelType AND c.vehicleCount >= :minCount")
+    List<Long> findGarageIdsByFuelType(Vehicle.FuelType fuelType, int minCount);
+
+    /**
+     * Find the counters of a garage
+     * @param garageId the garage ID
+     * @return one counter per fuel type
+     */
+    @Query("SELECT c FROM GarageFuelTypeCount c WHERE c.garageId = :garageId ORDER BY c.fuelType")
+    List<GarageFuelTypeCount> findByGarageId(Long garageId);
+}
@@ -0,0 +1,43 @@
+package com.renault.garage.dao.repository;
+
+import com.renault.garage.dao.entity.GarageOccupancy;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface GarageOccupancyRepository extends CrudRepository<GarageOccupancy, Long> {
+
+    /**
+     * Atomically reserve places in a garage: the counter is only incremented if the garage stays within its capacity.
+     * The updated row stays locked until the end of the transaction, so concurrent reservations are serialized.
+     * @param garageId the garage ID
+     * @param count the number of places to reserve
+     * @param capacity the maximum number of vehicles allowed in the garage
+     * @return 1 if the places were reserved, 0 if the garage is unknown or full
+     */
+    @Modifying
+    @Query("UPDATE GarageOccupancy o SET o.vehicleCount = o.vehicleCount + :count WHERE o.garageId = :garageId AND o.vehicleCount + :count <= :capacity")
+    int reserve(Long garageId, int count, int capacity);
+
+    /**
+     * Release the place taken by a vehicle in every garage it is linked to.
+     * Must be called before the vehicle links are removed.
+     * @param vehicleId the vehicle ID
+     * @return the number of garages updated
+     */
+    @Modifying
+    @Query("UPDATE GarageOccupancy o SET o.vehicleCount = o.vehicleCount - 1 WHERE o.vehicleCount > 0 AND o.garageId IN (SELECT g.id FROM Vehicle v JOIN v.garages g WHERE v.id = :vehicleId)")
+    int releaseVehicle(Long vehicleId);
+
+    /**
+     * Find, among some garages, the ones having at most a number of vehicles
+     * @param garageIds the garage IDs
+     * @param maxVehicleCount the maximum number of vehicles
+     * @return the garage IDs, in any order
+     */
+    @Query("SELECT o.garageId FROM GarageOccupancy o WHERE o.garageId IN :garageIds AND o.vehicleCount <= :maxVehicleCount")
+    List<Long> findGarageIdsByVehicleCountAtMost(Collection<Long> garageIds, int maxVehicleCount);
+}
@@ -2,22 +2,93 @@ package com.renault.garage.dao.repository;
 
 import com.renault.garage.dao.entity.Garage;
 import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.projection.GarageRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface GarageRepository extends PagingAndSortingRepository<Garage, Long>, JpaRepository<Garage, Long> {
+public interface GarageRepository extends PagingAndSortingRepository<Garage, Long>, JpaRepository<Garage, Long>, GarageScrollRepository {
+
+    /**
+     * Find a page of garage ids, to be loaded afterward with {@link #findRowsByIdIn(Collection)}.
+     * The result is kept in the query cache until the garage table changes.
+     * @param pageable the pagination information
+     * @return a page of garage ids
+     */
+    @Query("SELECT g.id FROM Garage g")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Page<Long> findPageOfIds(Pageable pageable);
+
+    /**
+     * Count the garages, the result being kept in the query cache until the garage table changes.
+     * @return the number of garages
+     */
+    @Query("SELECT COUNT(g) FROM Garage g")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    long countCached();
+
+    /**
+     * Count the garages having vehicles of a fuel type from the per fuel type counters, the result being kept
+     * in the query cache until the counters change.
+     * @param fuelType the fuel type of the vehicles
+     * @return the number of garages
+     */
+    @Query("SELECT COUNT(c) FROM GarageFuelTypeCount c WHERE c.fuelType = :fuelType AND c.vehicleCount >= 1")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    long countCachedByVehicleFuelType(Vehicle.FuelType fuelType);
 
     /**
-     * Find garages by vehicle fuel type
-     * @param vehicleFuelType the fuel type of the vehicles
+     * Find a page of ids of garages having at least {@code minCount} vehicles of {@code requiredTypes} of the given
+     * fuel types, read from the per fuel type counters instead of joining the vehicles.
+     * @param fuelTypes the fuel types of the vehicles
+     * @param minCount the minimum number of vehicles of a fuel type for the garage to match it
+     * @param requiredTypes the number of fuel types the garage must match: 1 for any of them, their number for all
      * @param pageable the pagination information
-     * @return a page of garages
+     * @return a page of garage ids
+     */
+    @Query(value = "SELECT g.id FROM Garage g WHERE g.id IN (SELECT c.garageId FROM GarageFuelTypeCount c WHERE c.fuelType IN :fuelTypes AND c.vehicleCount >= :minCount GROUP BY c.garageId HAVING COUNT(c) >= :requiredTypes)",
+            countQuery = "SELECT COUNT(g) FROM Garage g WHERE g.id IN (SELECT c.garageId FROM GarageFuelTypeCount c WHERE c.fuelType IN :fuelTypes AND c.vehicleCount >= :minCount GROUP BY c.garageId HAVING COUNT(c) >= :requiredTypes)")
+    Page<Long> findPageOfIdsByVehicleFuelTypes(Collection<Vehicle.FuelType> fuelTypes, int minCount, long requiredTypes, Pageable pageable);
+
+    /**
+     * Find garages with their opening hours, without loading the entities
+     * @param ids the garage ids
+     * @return the garages found, in no particular order
+     */
+    @Query("SELECT new com.renault.garage.dao.projection.GarageRow(g.id, g.name, g.address, g.telephone, g.email, g.openingHours, g.latitude, g.longitude, g.version) FROM Garage g WHERE g.id IN :ids")
+    List<GarageRow> findRowsByIdIn(Collection<Long> ids);
+
+    /**
+     * Find all the garages with their opening hours, without loading the entities
+     * @return the garages
+     */
+    @Query("SELECT new com.renault.garage.dao.projection.GarageRow(g.id, g.name, g.address, g.telephone, g.email, g.openingHours, g.latitude, g.longitude, g.version) FROM Garage g")
+    List<GarageRow> findAllRows();
+
+    /**
+     * Find a garage with its opening hours, without loading the entity
+     * @param id the garage ID
+     * @return the garage, empty if it does not exist
+     */
+    @Query("SELECT new com.renault.garage.dao.projection.GarageRow(g.id, g.name, g.address, g.telephone, g.email, g.openingHours, g.latitude, g.longitude, g.version) FROM Garage g WHERE g.id = :id")
+    Optional<GarageRow> findRowById(long id);
+
+    /**
+     * Find the version of a garage, without loading it
+     * @param id the garage ID
+     * @return the version, empty if the garage does not exist
      */
-    @Query("SELECT DISTINCT g FROM Garage g JOIN g.vehicles v WHERE v.fuelType = :vehicles_fuelType")
-    Page<Garage> findDistinctByVehicles_FuelTypeIgnoreCase(Vehicle.FuelType vehicleFuelType, Pageable pageable);
+    @Query("SELECT g.version FROM Garage g WHERE g.id = :id")
+    Optional<Long> findVersionById(long id);
 }
@@ -0,0 +1,26 @@
+package com.renault.garage.dao.repository;
+
+import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.projection.GarageRow;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * Keyset pagination of the garages on one of their properties, without offset nor count: reading a page deep
+ * in the listing costs the same as reading the first one.
+ */
+public interface GarageScrollRepository {
+
+    /**
+     * Find the garages following a position, sorted on a property then on the id in the same direction.
+     * Garages without value for the property come first in ascending order, last in descending order.
+     * @param order the sort property, one of the garage columns, and its direction
+     * @param afterValue the value of the property at the position, null if the garage there had none
+     * @param afterId the id of the garage at the position (exclusive), null to start from the beginning
+     * @param fuelType the fuel type of at least one vehicle of the garages, null for any garage
+     * @param limit the maximum number of garages to return
+     * @return the garages, in the order of the sort
+     */
+    List<GarageRow> findRowsAfter(Sort.Order order, String afterValue, Long afterId, Vehicle.FuelType fuelType, int limit);
+}
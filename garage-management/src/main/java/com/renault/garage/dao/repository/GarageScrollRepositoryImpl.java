@@ -0,0 +1,78 @@
+package com.renault.garage.dao.repository;
+
+import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.projection.GarageRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The query is built for the sort property, which is checked against the garage columns before being written in it.
+ */
+class GarageScrollRepositoryImpl implements GarageScrollRepository {
+
+    static final Set<String> PROPERTIES = Set.of("id", "name", "address", "telephone", "email");
+
+    private final EntityManager entityManager;
+
+    GarageScrollRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<GarageRow> findRowsAfter(Sort.Order order, String afterValue, Long afterId, Vehicle.FuelType fuelType, int limit) {
+        String property = order.getProperty();
+        if (!PROPERTIES.contains(property)) {
+            throw new IllegalArgumentException("Unknown garage sort property: " + property);
+        }
+        boolean ascending = order.isAscending();
+        String after = ascending ? ">" : "<";
+        String column = "g." + property;
+
+        List<String> conditions = new ArrayList<>();
+        if (fuelType != null) {
+            conditions.add("g.id IN (SELECT c.garageId FROM GarageFuelTypeCount c WHERE c.fuelType = :fuelType AND c.vehicleCount >= 1)");
+        }
+        if (afterId != null) {
+            if ("id".equals(property)) {
+                conditions.add("g.id " + after + " :afterId");
+            } else if (afterValue == null) {
+                conditions.add(ascending
+                        ? "((" + column + " IS NULL AND g.id > :afterId) OR " + column + " IS NOT NULL)"
+                        : "(" + column + " IS NULL AND g.id < :afterId)");
+            } else {
+                conditions.add("(" + column + " " + after + " :afterValue OR (" + column + " = :afterValue AND g.id " + after + " :afterId)"
+                        + (ascending ? ")" : " OR " + column + " IS NULL)"));
+            }
+        }
+
+        StringBuilder jpql = new StringBuilder("""
+                SELECT new com.renault.garage.dao.projection.GarageRow(g.id, g.name, g.address, g.telephone, g.email, g.openingHours, g.latitude, g.longitude, g.version) \
+                FROM Garage g""");
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        String direction = ascending ? " ASC" : " DESC";
+        jpql.append(" ORDER BY ");
+        if (!"id".equals(property)) {
+            jpql.append(column).append(direction).append(ascending ? " NULLS FIRST, " : " NULLS LAST, ");
+        }
+        jpql.append("g.id").append(direction);
+
+        TypedQuery<GarageRow> query = entityManager.createQuery(jpql.toString(), GarageRow.class).setMaxResults(limit);
+        if (fuelType != null) {
+            query.setParameter("fuelType", fuelType);
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+            if (afterValue != null && !"id".equals(property)) {
+                query.setParameter("afterValue", afterValue);
+            }
+        }
+        return query.getResultList();
+    }
+}
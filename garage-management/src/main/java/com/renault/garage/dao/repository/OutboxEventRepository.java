@@ -0,0 +1,33 @@
+package com.renault.garage.dao.repository;
+
+import com.renault.garage.dao.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Find the events not relayed yet, in the order they were recorded.
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.position IS NULL ORDER BY e.id")
+    List<OutboxEvent> findPending(Limit limit);
+
+    /**
+     * Find the relayed events after the given position, in relay order.
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.position > :afterPosition ORDER BY e.position")
+    List<OutboxEvent> findRelayedAfter(long afterPosition, Limit limit);
+
+    /**
+     * Delete the relayed events older than the given instant.
+     * @return the number of events deleted
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :before")
+    int deleteRelayedBefore(Instant before);
+}
@@ -0,0 +1,25 @@
+package com.renault.garage.dao.repository;
+
+import com.renault.garage.dao.entity.OutboxPosition;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+public interface OutboxPositionRepository extends Repository<OutboxPosition, Long> {
+
+    /**
+     * Reserve the next positions. The row stays locked until the end of the transaction, so concurrent relays
+     * take their positions in commit order.
+     * @param count the number of positions to reserve
+     * @return 1, 0 if the row is missing
+     */
+    @Modifying
+    @Query("UPDATE OutboxPosition p SET p.lastPosition = p.lastPosition + :count WHERE p.id = 1")
+    int advance(int count);
+
+    /**
+     * @return the last position reserved
+     */
+    @Query("SELECT p.lastPosition FROM OutboxPosition p WHERE p.id = 1")
+    long findLastPosition();
+}
@@ -1,33 +1,108 @@
 package com.renault.garage.dao.repository;
 
 import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.projection.AccessoryVehicle;
+import com.renault.garage.dao.projection.VehicleAccessoryRow;
+import com.renault.garage.dto.VehicleDto;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface VehicleRepository extends JpaRepository<Vehicle,Long> {
 
+    /**
+     * Find a vehicle, read directly into its DTO without loading the entity
+     * @param id the vehicle ID
+     * @return the vehicle, empty if it does not exist
+     */
+    @Query("SELECT new com.renault.garage.dto.VehicleDto(v.id, v.brand, v.yearOfManufacture, v.fuelType) FROM Vehicle v WHERE v.id = :id")
+    Optional<VehicleDto> findDtoById(long id);
+
+    /**
+     * Find vehicles by ids, read directly into their DTOs
+     * @param ids the vehicle IDs
+     * @return the vehicles found, in no particular order
+     */
+    @Query("SELECT new com.renault.garage.dto.VehicleDto(v.id, v.brand, v.yearOfManufacture, v.fuelType) FROM Vehicle v WHERE v.id IN :ids")
+    List<VehicleDto> findDtosByIdIn(Collection<Long> ids);
+
     /**
      * Find all vehicles associated with a specific garage ID.
      * @param garageId the ID of the garage
      * @return list of vehicles in the specified garage
      */
-    @Query("SELECT v FROM Vehicle v JOIN v.garages g WHERE g.id = :garageId")
-    List<Vehicle> findByGarageId(Long garageId);
+    @Query("SELECT new com.renault.garage.dto.VehicleDto(v.id, v.brand, v.yearOfManufacture, v.fuelType) FROM Vehicle v JOIN v.garages g WHERE g.id = :garageId")
+    List<VehicleDto> findByGarageId(Long garageId);
+
+    /**
+     * Find the vehicles of a garage with their accessories as flat rows, one per accessory, without loading the entities
+     * @param garageId the ID of the garage
+     * @return the rows, ordered by vehicle and accessory
+     */
+    @Query("""
+            SELECT new com.renault.garage.dao.projection.VehicleAccessoryRow(v.id, v.brand, v.yearOfManufacture, v.fuelType,
+                   a.id, a.name, a.description, a.price, a.type)
+            FROM Vehicle v JOIN v.garages g LEFT JOIN v.accessories a WHERE g.id = :garageId ORDER BY v.id, a.id""")
+    List<VehicleAccessoryRow> findAccessoryRowsByGarageId(long garageId);
 
     /**
      * Find all vehicles of a specific brand.
      * @param brand the brand of the vehicles
      * @return list of vehicles of the specified brand
      */
-    List<Vehicle> findByBrandIs(String brand);
+    @Query("SELECT new com.renault.garage.dto.VehicleDto(v.id, v.brand, v.yearOfManufacture, v.fuelType) FROM Vehicle v WHERE v.brand = :brand")
+    List<VehicleDto> findByBrandIs(String brand);
+
+    /**
+     * Find the vehicles having the given accessories, without loading them
+     * @param accessoryIds the accessory IDs
+     * @return the links between the accessories and their vehicles
+     */
+    @Query("SELECT new com.renault.garage.dao.projection.AccessoryVehicle(a.id, v.id) FROM Accessory a JOIN a.vehicles v WHERE a.id IN :accessoryIds ORDER BY v.id")
+    List<AccessoryVehicle> findByAccessoryIdIn(Collection<Long> accessoryIds);
+
+    /**
+     * Check whether a vehicle is already linked to a garage.
+     * @param vehicleId the vehicle ID
+     * @param garageId the garage ID
+     * @return true if the link exists
+     */
+    @Query("SELECT COUNT(v) > 0 FROM Vehicle v JOIN v.garages g WHERE v.id = :vehicleId AND g.id = :garageId")
+    boolean isLinkedToGarage(Long vehicleId, Long garageId);
+
+    /**
+     * Find the next vehicles after the given id (keyset pagination on the primary key).
+     * @param afterId the last id already read by the client (exclusive)
+     * @param limit the maximum number of vehicles to return
+     * @return vehicles ordered by id
+     */
+    @Query("SELECT new com.renault.garage.dto.VehicleDto(v.id, v.brand, v.yearOfManufacture, v.fuelType) FROM Vehicle v WHERE v.id > :afterId ORDER BY v.id")
+    List<VehicleDto> findNextPage(long afterId, Limit limit);
+
+    /**
+     * Stream all vehicles ordered by id, reading them from a JDBC cursor instead of loading the whole table.
+     * The rows are read directly into DTOs, so nothing accumulates in the persistence context.
+     * The stream must be consumed inside a transaction and closed afterward.
+     * @return a stream of vehicles
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.renault.garage.dto.VehicleDto(v.id, v.brand, v.yearOfManufacture, v.fuelType) FROM Vehicle v ORDER BY v.id")
+    Stream<VehicleDto> streamAll();
 
     /**
-     * Find all vehicles that have an accessory with a name matching the given pattern.
-     * @param accessoryName the name pattern of the accessory
-     * @return list of vehicles with accessories matching the name pattern
+     * Find the version of a vehicle, without loading it
+     * @param id the vehicle ID
+     * @return the version, empty if the vehicle does not exist
      */
-    @Query("SELECT v FROM Vehicle v JOIN v.accessories a WHERE a.name LIKE %:accessoryName%")
-    List<Vehicle> findByAccessoryName(String accessoryName);
+    @Query("SELECT v.version FROM Vehicle v WHERE v.id = :id")
+    Optional<Long> findVersionById(long id);
 }
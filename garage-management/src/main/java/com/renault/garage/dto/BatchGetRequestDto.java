@@ -0,0 +1,10 @@
+package com.renault.garage.dto;
+
+import java.util.List;
+
+/**
+ * Ids of the entities to read in a single call.
+ * @param ids the ids, the response follows their order
+ */
+public record BatchGetRequestDto(List<Long> ids) {
+}
@@ -0,0 +1,11 @@
+package com.renault.garage.dto;
+
+import java.util.List;
+
+/**
+ * Result of a read by a list of ids.
+ * @param found the entities found, in the order of the requested ids, each id at most once
+ * @param missing the requested ids matching no entity, in the order of the request
+ */
+public record BatchGetResultDto<T>(List<T> found, List<Long> missing) {
+}
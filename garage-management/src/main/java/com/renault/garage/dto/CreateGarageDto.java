@@ -6,9 +6,22 @@ import java.time.DayOfWeek;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * @param latitude the latitude of the garage in degrees, null to leave it unchanged on update
+ * @param longitude the longitude of the garage in degrees, null to leave it unchanged on update
+ */
 public record CreateGarageDto(String name,
                               String address,
                               String telephone,
                               String email,
-                              Map<DayOfWeek, List<OpeningTime>> openingHours) {
+                              Map<DayOfWeek, List<OpeningTime>> openingHours,
+                              Double latitude,
+                              Double longitude) {
+
+    /**
+     * Garage without location.
+     */
+    public CreateGarageDto(String name, String address, String telephone, String email, Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        this(name, address, telephone, email, openingHours, null, null);
+    }
 }
@@ -6,10 +6,23 @@ import java.time.DayOfWeek;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * @param latitude the latitude of the garage in degrees, null if it is not located
+ * @param longitude the longitude of the garage in degrees, null if it is not located
+ */
 public record GarageDto(Long id,
                         String name,
                         String address,
                         String telephone,
                         String email,
-                        Map<DayOfWeek, List<OpeningTime>> openingHours) {
+                        Map<DayOfWeek, List<OpeningTime>> openingHours,
+                        Double latitude,
+                        Double longitude) {
+
+    /**
+     * Garage without location.
+     */
+    public GarageDto(Long id, String name, String address, String telephone, String email, Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        this(id, name, address, telephone, email, openingHours, null, null);
+    }
 }
@@ -0,0 +1,12 @@
+package com.renault.garage.dto;
+
+import java.util.List;
+
+/**
+ * Garages read with keyset pagination, without counting them.
+ * @param content the garages, in the order of the sort
+ * @param nextCursor the token to pass as {@code cursor} to read the next garages, null after the last ones
+ * @param totalElements the number of garages of the listing when asked for, null otherwise
+ */
+public record GarageScrollDto(List<GarageDto> content, String nextCursor, Long totalElements) {
+}
@@ -0,0 +1,19 @@
+package com.renault.garage.dto;
+
+import com.renault.garage.dao.entity.Vehicle;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything needed to render a garage card: the garage, its vehicles with their accessories and the aggregates.
+ * @param vehicleCountByFuelType number of vehicles per fuel type, every fuel type being present
+ * @param remainingCapacity vehicles that can still be added before reaching {@code garage.vehicle.max-per-garage}
+ * @param totalAccessoryValue sum of the prices of the accessories of the vehicles, an accessory shared by several vehicles counting once
+ */
+public record GarageSummaryDto(GarageDto garage,
+                               List<VehicleSummaryDto> vehicles,
+                               Map<Vehicle.FuelType, Long> vehicleCountByFuelType,
+                               int remainingCapacity,
+                               double totalAccessoryValue) {
+}
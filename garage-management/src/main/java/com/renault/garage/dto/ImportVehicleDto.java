@@ -0,0 +1,10 @@
+package com.renault.garage.dto;
+
+/**
+ * Row of a bulk vehicle import. The fuel type is kept as text so that an unknown value only rejects its own row.
+ */
+public record ImportVehicleDto(Long garageId,
+                               String brand,
+                               Integer yearOfManufacture,
+                               String fuelType) {
+}
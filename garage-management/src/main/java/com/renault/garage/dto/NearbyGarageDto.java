@@ -0,0 +1,9 @@
+package com.renault.garage.dto;
+
+/**
+ * A garage found near a point.
+ * @param garage the garage
+ * @param distanceKm the distance from the point in kilometers
+ */
+public record NearbyGarageDto(GarageDto garage, double distanceKm) {
+}
@@ -0,0 +1,22 @@
+package com.renault.garage.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+/**
+ * Change event as delivered to the outbox sinks and to the clients of the outbox API.
+ * @param position the position of the event in the outbox, strictly increasing in relay order
+ * @param aggregateType the type of the changed aggregate (GARAGE, VEHICLE, ACCESSORY)
+ * @param aggregateId the id of the changed aggregate
+ * @param type the kind of change (CREATED, UPDATED, DELETED)
+ * @param payload the JSON state of the aggregate after the change, null when it was deleted
+ * @param createdAt when the change was recorded
+ */
+public record OutboxEventDto(long position,
+                             String aggregateType,
+                             Long aggregateId,
+                             String type,
+                             @JsonRawValue String payload,
+                             Instant createdAt) {
+}
@@ -0,0 +1,46 @@
+package com.renault.garage.dto;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a client in a listing sorted on one property then on the id (keyset pagination), sent to the client
+ * as an opaque token. The token carries the sort, so the next pages keep the order of the first one.
+ * @param property the sort property
+ * @param direction the sort direction, also used for the id
+ * @param value the value of the sort property of the last element read, null if it had none
+ * @param id the id of the last element read
+ */
+public record ScrollCursor(String property, Sort.Direction direction, String value, long id) {
+
+    private static final char SEPARATOR = '\n';
+    private static final char VALUE_PREFIX = '=';
+
+    /**
+     * @return the token given to the client
+     */
+    public String encode() {
+        String position = property + SEPARATOR + direction + SEPARATOR + id + SEPARATOR + (value == null ? "" : VALUE_PREFIX + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token a token returned by {@link #encode()}
+     * @return the cursor
+     * @throws IllegalArgumentException if the token was not returned by {@link #encode()}
+     */
+    public static ScrollCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(String.valueOf(SEPARATOR), 4);
+            if (parts.length != 4 || !(parts[3].isEmpty() || parts[3].charAt(0) == VALUE_PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            String value = parts[3].isEmpty() ? null : parts[3].substring(1);
+            return new ScrollCursor(parts[0], Sort.Direction.valueOf(parts[1]), value, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
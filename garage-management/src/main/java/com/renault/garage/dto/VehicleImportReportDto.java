@@ -0,0 +1,13 @@
+package com.renault.garage.dto;
+
+import java.util.List;
+
+/**
+ * Report of a bulk vehicle import.
+ * @param total the number of rows read
+ * @param imported the number of vehicles created
+ * @param rejected the number of rows rejected
+ * @param rows the result of each row, in the order of the document
+ */
+public record VehicleImportReportDto(int total, int imported, int rejected, List<VehicleImportRowDto> rows) {
+}
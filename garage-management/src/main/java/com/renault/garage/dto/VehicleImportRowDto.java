@@ -0,0 +1,24 @@
+package com.renault.garage.dto;
+
+/**
+ * Result of the import of one row.
+ * @param row the row number in the imported document, starting at 1 (CSV header excluded)
+ * @param status whether the vehicle was created
+ * @param vehicleId the id of the created vehicle, null if the row was rejected
+ * @param message the reason of the rejection, null if the row was imported
+ */
+public record VehicleImportRowDto(int row, Status status, Long vehicleId, String message) {
+
+    public enum Status {
+        IMPORTED,
+        REJECTED
+    }
+
+    public static VehicleImportRowDto imported(int row, Long vehicleId) {
+        return new VehicleImportRowDto(row, Status.IMPORTED, vehicleId, null);
+    }
+
+    public static VehicleImportRowDto rejected(int row, String message) {
+        return new VehicleImportRowDto(row, Status.REJECTED, null, message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.renault.garage.dto;
+
+import java.util.List;
+
+/**
+ * Page of vehicles read with keyset pagination.
+ * @param content the vehicles of the page, ordered by id
+ * @param nextCursor the cursor to pass as {@code after} to read the next page, null on the last page
+ */
+public record VehiclePageDto(List<VehicleDto> content, Long nextCursor) {
+}
@@ -0,0 +1,12 @@
+package com.renault.garage.dto;
+
+import com.renault.garage.dao.entity.Vehicle;
+
+import java.util.List;
+
+public record VehicleSummaryDto(Long id,
+                                String brand,
+                                int yearOfManufacture,
+                                Vehicle.FuelType fuelType,
+                                List<AccessoryDto> accessories) {
+}
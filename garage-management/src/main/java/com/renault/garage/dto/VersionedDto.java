@@ -0,0 +1,13 @@
+package com.renault.garage.dto;
+
+/**
+ * A resource with the version of the state it was read or written from, sent as its ETag.
+ * @param body the resource
+ * @param version the version of the resource: the entity version, or a digest for a list
+ */
+public record VersionedDto<T>(T body, String version) {
+
+    public static <T> VersionedDto<T> of(T body, long version) {
+        return new VersionedDto<>(body, Long.toString(version));
+    }
+}
@@ -0,0 +1,29 @@
+package com.renault.garage.event;
+
+import com.renault.garage.dto.AccessoryDto;
+
+/**
+ * Event triggered when a accessory is created, updated or deleted.
+ * @param type the kind of change
+ * @param accessoryId the accessory ID
+ * @param accessory the accessory after the change, null when it was deleted
+ */
+public record AccessoryChangedEvent(ChangeType type, Long accessoryId, AccessoryDto accessory) implements ChangeEvent {
+
+    public static final String AGGREGATE_TYPE = "ACCESSORY";
+
+    @Override
+    public String aggregateType() {
+        return AGGREGATE_TYPE;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return accessoryId;
+    }
+
+    @Override
+    public Object payload() {
+        return accessory;
+    }
+}
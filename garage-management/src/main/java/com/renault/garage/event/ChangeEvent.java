@@ -0,0 +1,21 @@
+package com.renault.garage.event;
+
+/**
+ * Change of an aggregate, published inside the transaction that made it and recorded in the outbox by the same transaction.
+ */
+public interface ChangeEvent extends DomainEvent {
+
+    /**
+     * @return the type of the changed aggregate, e.g. {@code VEHICLE}
+     */
+    String aggregateType();
+
+    Long aggregateId();
+
+    ChangeType type();
+
+    /**
+     * @return the state of the aggregate after the change, null when it was deleted
+     */
+    Object payload();
+}
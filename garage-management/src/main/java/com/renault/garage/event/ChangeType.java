@@ -0,0 +1,10 @@
+package com.renault.garage.event;
+
+/**
+ * Kind of change carried by a {@link ChangeEvent}.
+ */
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
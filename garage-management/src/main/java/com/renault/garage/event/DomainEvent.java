@@ -0,0 +1,7 @@
+package com.renault.garage.event;
+
+/**
+ * Marker of the events dispatched by the {@link DomainEventPipeline} once the transaction that published them has committed.
+ */
+public interface DomainEvent {
+}
@@ -0,0 +1,234 @@
+package com.renault.garage.event;
+
+import com.renault.garage.consumer.BatchingDomainEventConsumer;
+import com.renault.garage.consumer.DomainEventConsumer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch the {@link DomainEvent}s to the {@link DomainEventConsumer}s once the publishing transaction has committed
+ * (immediately when published outside of a transaction), so that consumers neither slow down the writes nor see rolled back data.
+ * <p>
+ * Events go through a bounded queue; a dispatcher thread drains it in micro-batches and runs the consumers on virtual threads,
+ * at most {@code maxConcurrency} at a time. When consumers fall behind the queue fills up and the configured
+ * {@link DomainEventPipelineProperties.Backpressure} applies. Events are delivered at most once and without ordering guarantee.
+ */
+@Component
+@Slf4j
+@EnableConfigurationProperties(DomainEventPipelineProperties.class)
+public class DomainEventPipeline {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final List<DomainEventConsumer<?>> consumers;
+    private final DomainEventPipelineProperties properties;
+    private final BlockingQueue<PendingEvent> queue;
+    private final Semaphore inFlight;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MeterRegistry meterRegistry;
+
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter callerRuns;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public DomainEventPipeline(List<DomainEventConsumer<?>> consumers, DomainEventPipelineProperties properties, MeterRegistry meterRegistry) {
+        this.consumers = consumers;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.inFlight = new Semaphore(properties.maxConcurrency());
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("garage.events.queue.depth", queue, Collection::size)
+                .description("Events waiting to be dispatched").register(meterRegistry);
+        Gauge.builder("garage.events.in-flight", inFlight, s -> properties.maxConcurrency() - s.availablePermits())
+                .description("Consumer calls running").register(meterRegistry);
+        this.published = Counter.builder("garage.events.published").register(meterRegistry);
+        this.dropped = Counter.builder("garage.events.dropped").description("Events lost because the queue was full").register(meterRegistry);
+        this.callerRuns = Counter.builder("garage.events.caller-runs").description("Events delivered by the publishing thread").register(meterRegistry);
+        this.lag = Timer.builder("garage.events.lag").description("Time between the commit and the consumer call").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = Thread.ofVirtual().name("domain-event-dispatcher").start(this::dispatchLoop);
+    }
+
+    /**
+     * Stop accepting events in the queue, dispatch the ones already queued and wait for the running consumers.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (dispatcher != null && !dispatcher.join(SHUTDOWN_TIMEOUT)) {
+            dispatcher.interrupt();
+        }
+        executor.close();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDomainEvent(DomainEvent event) {
+        submit(event);
+    }
+
+    /**
+     * Queue an event for dispatch, applying the backpressure policy if the queue is full.
+     * @param event the event
+     */
+    public void submit(DomainEvent event) {
+        PendingEvent pending = new PendingEvent(event, System.nanoTime());
+        if (!running) {
+            deliverNow(pending);
+            return;
+        }
+        boolean queued = switch (properties.backpressure()) {
+            case BLOCK -> offer(pending, properties.blockTimeout());
+            case DROP -> queue.offer(pending);
+            case CALLER_RUNS -> {
+                if (queue.offer(pending)) {
+                    yield true;
+                }
+                deliverNow(pending);
+                yield false;
+            }
+        };
+        if (queued) {
+            published.increment();
+        } else if (properties.backpressure() != DomainEventPipelineProperties.Backpressure.CALLER_RUNS) {
+            dropped.increment();
+            log.warn("Domain event queue full, event dropped: {}", event);
+        }
+    }
+
+    private boolean offer(PendingEvent pending, Duration timeout) {
+        try {
+            return queue.offer(pending, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void deliverNow(PendingEvent pending) {
+        callerRuns.increment();
+        List<PendingEvent> events = List.of(pending);
+        consumers.stream()
+                .filter(consumer -> consumer.eventType().isInstance(pending.event()))
+                .forEach(consumer -> invoke(consumer, events));
+    }
+
+    private void dispatchLoop() {
+        int maxBatchSize = properties.maxBatchSize();
+        long batchWindow = properties.batchWindow().toNanos();
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingEvent> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindow;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            }
+        } catch (InterruptedException e) {
+            log.warn("Domain event dispatcher interrupted, {} event(s) not dispatched", queue.size());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(List<PendingEvent> batch) throws InterruptedException {
+        for (DomainEventConsumer<?> consumer : consumers) {
+            List<PendingEvent> events = batch.stream().filter(p -> consumer.eventType().isInstance(p.event())).toList();
+            if (events.isEmpty()) {
+                continue;
+            }
+            if (consumer instanceof BatchingDomainEventConsumer<?>) {
+                runAsync(consumer, events);
+            } else {
+                for (PendingEvent event : events) {
+                    runAsync(consumer, List.of(event));
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the consumer on a virtual thread once a slot is free: while all the slots are taken the dispatcher waits,
+     * the queue fills up and the backpressure reaches the publishers.
+     */
+    private void runAsync(DomainEventConsumer<?> consumer, List<PendingEvent> events) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            executor.execute(() -> {
+                try {
+                    invoke(consumer, events);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void invoke(DomainEventConsumer<?> consumer, List<PendingEvent> events) {
+        long now = System.nanoTime();
+        events.forEach(p -> lag.record(now - p.enqueuedAt(), TimeUnit.NANOSECONDS));
+        try {
+            deliver(consumer, events.stream().map(PendingEvent::event).toList());
+        } catch (RuntimeException e) {
+            meterRegistry.counter("garage.events.consumer.failures", "consumer", consumer.getClass().getSimpleName()).increment();
+            log.error("Domain event consumer {} failed on {} event(s)", consumer.getClass().getSimpleName(), events.size(), e);
+        }
+    }
+
+    private static <E extends DomainEvent> void deliver(DomainEventConsumer<E> consumer, List<DomainEvent> events) {
+        List<E> typed = events.stream().map(consumer.eventType()::cast).toList();
+        if (consumer instanceof BatchingDomainEventConsumer<E> batching) {
+            batching.consumeBatch(typed);
+        } else {
+            typed.forEach(consumer::consume);
+        }
+    }
+
+    private record PendingEvent(DomainEvent event, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.renault.garage.event;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link DomainEventPipeline}.
+ * @param queueCapacity the number of events waiting to be dispatched before backpressure applies
+ * @param maxBatchSize the maximum number of events given at once to a batching consumer
+ * @param batchWindow how long the dispatcher waits for more events before dispatching an incomplete batch
+ * @param maxConcurrency the maximum number of consumer calls running at the same time
+ * @param backpressure what happens to a published event when the queue is full
+ * @param blockTimeout how long a publisher waits for room in the queue with {@link Backpressure#BLOCK}, before the event is dropped
+ */
+@ConfigurationProperties("garage.events")
+public record DomainEventPipelineProperties(@DefaultValue("10000") int queueCapacity,
+                                            @DefaultValue("100") int maxBatchSize,
+                                            @DefaultValue("10ms") Duration batchWindow,
+                                            @DefaultValue("64") int maxConcurrency,
+                                            @DefaultValue("BLOCK") Backpressure backpressure,
+                                            @DefaultValue("1s") Duration blockTimeout) {
+
+    public enum Backpressure {
+        /**
+         * The publisher waits for room in the queue, up to the block timeout.
+         */
+        BLOCK,
+        /**
+         * The event is dropped and counted.
+         */
+        DROP,
+        /**
+         * The publisher delivers the event itself, synchronously.
+         */
+        CALLER_RUNS
+    }
+}
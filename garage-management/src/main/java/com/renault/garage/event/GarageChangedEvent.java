@@ -0,0 +1,31 @@
+package com.renault.garage.event;
+
+import com.renault.garage.dto.GarageDto;
+
+/**
+ * Event triggered when a garage is created, updated or deleted.
+ * @param type the kind of change
+ * @param garageId the garage ID
+ * @param version the version of the garage after the change, one more than its last version when it was deleted:
+ *                the listeners called after the commit may receive the changes of a garage out of order
+ * @param garage the garage after the change, null when it was deleted
+ */
+public record GarageChangedEvent(ChangeType type, Long garageId, long version, GarageDto garage) implements ChangeEvent {
+
+    public static final String AGGREGATE_TYPE = "GARAGE";
+
+    @Override
+    public String aggregateType() {
+        return AGGREGATE_TYPE;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return garageId;
+    }
+
+    @Override
+    public Object payload() {
+        return garage;
+    }
+}
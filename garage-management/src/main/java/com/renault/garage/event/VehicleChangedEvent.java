@@ -0,0 +1,39 @@
+package com.renault.garage.event;
+
+import com.renault.garage.dao.entity.Vehicle.FuelType;
+import com.renault.garage.dto.VehicleDto;
+
+/**
+ * Event triggered when a vehicle is created, updated or deleted.
+ * @param type the kind of change
+ * @param vehicleId the vehicle ID
+ * @param previousFuelType the fuel type the vehicle was counted for in the garages the change affects, null if it was
+ *                         not counted there: the vehicle is new, or newly linked to the garage
+ * @param vehicle the vehicle after the change, null when it was deleted
+ */
+public record VehicleChangedEvent(ChangeType type, Long vehicleId, FuelType previousFuelType, VehicleDto vehicle) implements ChangeEvent {
+
+    public static final String AGGREGATE_TYPE = "VEHICLE";
+
+    @Override
+    public String aggregateType() {
+        return AGGREGATE_TYPE;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return vehicleId;
+    }
+
+    @Override
+    public Object payload() {
+        return vehicle;
+    }
+
+    /**
+     * @return the fuel type the vehicle is counted for after the change, null if it is no longer counted
+     */
+    public FuelType fuelType() {
+        return vehicle == null ? null : vehicle.fuelType();
+    }
+}
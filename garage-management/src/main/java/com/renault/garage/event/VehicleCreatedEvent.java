@@ -4,5 +4,5 @@ package com.renault.garage.event;
  * Event triggered when a vehicle is created.
  * @param vehicleId
  */
-public record VehicleCreatedEvent(Long vehicleId) {
+public record VehicleCreatedEvent(Long vehicleId) implements DomainEvent {
 }
@@ -0,0 +1,14 @@
+package com.renault.garage.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a read by a list of ids asks for too many ids, or for a null one.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBatchRequestException extends RuntimeException {
+    public InvalidBatchRequestException(String s) {
+        super(s);
+    }
+}
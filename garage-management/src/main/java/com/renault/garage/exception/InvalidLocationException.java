@@ -0,0 +1,14 @@
+package com.renault.garage.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a garage is given a latitude without longitude, or the reverse, or coordinates out of range.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidLocationException extends RuntimeException {
+    public InvalidLocationException(Double latitude, Double longitude) {
+        super("Invalid location: latitude " + latitude + ", longitude " + longitude);
+    }
+}
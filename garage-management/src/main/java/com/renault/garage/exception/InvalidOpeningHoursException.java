@@ -0,0 +1,15 @@
+package com.renault.garage.exception;
+
+import com.renault.garage.dao.entity.WeeklySchedule;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when the opening hours of a garage have too many slots to be stored.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidOpeningHoursException extends RuntimeException {
+    public InvalidOpeningHoursException(WeeklySchedule openingHours) {
+        super("Opening hours too long: " + openingHours.encoded().length() + " characters stored, at most " + WeeklySchedule.MAX_LENGTH);
+    }
+}
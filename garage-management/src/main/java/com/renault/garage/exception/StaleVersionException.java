@@ -0,0 +1,12 @@
+package com.renault.garage.exception;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Exception thrown when a conditional update is based on a version of the entity that is no longer the current one.
+ */
+public class StaleVersionException extends OptimisticLockingFailureException {
+    public StaleVersionException(String entityName, long id, long expectedVersion) {
+        super(entityName + " id=" + id + " a été modifié depuis la version " + expectedVersion);
+    }
+}
@@ -17,10 +17,12 @@ public interface AccessoryMapper {
 
     @Mapping(target = "vehicles", ignore = true)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Accessory dto2entity(CreateAccessoryDto accessoryDto);
 
     @Mapping(target = "vehicles", ignore = true)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateEntityFromDto(CreateAccessoryDto accessoryDto, @MappingTarget Accessory accessoryEntity);
 
 }
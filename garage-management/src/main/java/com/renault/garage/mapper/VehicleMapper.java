@@ -16,11 +16,13 @@ public interface VehicleMapper {
     VehicleDto entity2dto(Vehicle vehicle);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "garages", ignore = true)
     @Mapping(target = "accessories", ignore = true)
     Vehicle dto2entity(CreateVehicleDto vehicleDto);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "garages", ignore = true)
     @Mapping(target = "accessories", ignore = true)
     void updateEntityFromDto(CreateVehicleDto dto, @MappingTarget Vehicle entity);
@@ -0,0 +1,59 @@
+package com.renault.garage.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Bounded tag value for the garage targeted by a request: garage ids are grouped in ranges of {@code width} ids,
+ * the ids beyond {@code count} ranges sharing the last one, so that the number of time series stays fixed.
+ */
+@Component
+public class GarageIdBuckets {
+
+    static final String TAG = "garage.bucket";
+    static final String NONE = "none";
+
+    private final long width;
+    private final int count;
+
+    public GarageIdBuckets(@Value("${garage.metrics.garage-id-bucket-width:1000}") long width,
+                           @Value("${garage.metrics.garage-id-bucket-count:10}") int count) {
+        this.width = width;
+        this.count = count;
+    }
+
+    /**
+     * @return the bucket of the garage id found in the path variables of the request, {@value #NONE} if there is none
+     */
+    public String of(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(variables instanceof Map<?, ?> map)) {
+            return NONE;
+        }
+        Object garageId = map.get("garageId");
+        if (garageId == null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            garageId = pattern != null && pattern.toString().startsWith("/api/v1/garages/{id}") ? map.get("id") : null;
+        }
+        if (garageId == null) {
+            return NONE;
+        }
+        try {
+            return of(Long.parseLong(garageId.toString()));
+        } catch (NumberFormatException e) {
+            return NONE;
+        }
+    }
+
+    String of(long garageId) {
+        long bucket = Math.max(garageId, 0) / width;
+        if (bucket >= count - 1) {
+            return (count - 1) * width + "+";
+        }
+        return bucket * width + "-" + ((bucket + 1) * width - 1);
+    }
+}
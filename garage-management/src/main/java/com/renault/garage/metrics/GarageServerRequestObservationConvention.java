@@ -0,0 +1,24 @@
+package com.renault.garage.metrics;
+
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Add the garage id bucket ({@link GarageIdBuckets}) to the {@code http.server.requests} metrics.
+ */
+@Component
+public class GarageServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private final GarageIdBuckets garageIdBuckets;
+
+    public GarageServerRequestObservationConvention(GarageIdBuckets garageIdBuckets) {
+        this.garageIdBuckets = garageIdBuckets;
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(GarageIdBuckets.TAG, garageIdBuckets.of(context.getCarrier()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.renault.garage.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record for each request the number of SQL statements it executed ({@code garage.http.sql.statements}) and their
+ * total duration ({@code garage.http.sql.time}), tagged like {@code http.server.requests} by method, endpoint and garage
+ * id bucket. Statements executed on other threads (streamed responses, domain event consumers) are not counted.
+ * The request is traced by {@link SqlLog} when it carries the {@value SqlLog#TRACE_HEADER} header and tracing is enabled.
+ * Registered by {@link com.renault.garage.config.MetricsConfig}, out of the web test slices.
+ */
+public class HttpSqlMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final GarageIdBuckets garageIdBuckets;
+
+    public HttpSqlMetricsFilter(MeterRegistry meterRegistry, GarageIdBuckets garageIdBuckets) {
+        this.meterRegistry = meterRegistry;
+        this.garageIdBuckets = garageIdBuckets;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        boolean traced = SqlLog.settings().traceHeaderEnabled() && Boolean.parseBoolean(request.getHeader(SqlLog.TRACE_HEADER));
+        RequestSqlStatistics statistics = RequestSqlStatistics.start(request.getMethod() + " " + request.getRequestURI(), traced);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestSqlStatistics.stop();
+            SqlLog.clear();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Tags tags = Tags.of("method", request.getMethod(),
+                    "uri", pattern != null ? pattern.toString() : "UNKNOWN",
+                    GarageIdBuckets.TAG, garageIdBuckets.of(request));
+            DistributionSummary.builder("garage.http.sql.statements")
+                    .description("SQL statements executed per request")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(statistics.statements());
+            Timer.builder("garage.http.sql.time")
+                    .description("Time spent executing SQL per request")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(statistics.nanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.renault.garage.metrics;
+
+/**
+ * SQL statements executed by the thread serving the current HTTP request, filled by {@link SqlStatisticsSessionListener}
+ * between {@link #start()} and {@link #stop()} ({@link HttpSqlMetricsFilter}).
+ */
+public final class RequestSqlStatistics {
+
+    private static final ThreadLocal<RequestSqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final String target;
+    private final boolean traced;
+    private int statements;
+    private long nanos;
+
+    private RequestSqlStatistics(String target, boolean traced) {
+        this.target = target;
+        this.traced = traced;
+    }
+
+    /**
+     * @param target method and path of the request, for the logs
+     * @param traced whether every statement of the request is logged ({@link SqlLog})
+     */
+    static RequestSqlStatistics start(String target, boolean traced) {
+        RequestSqlStatistics statistics = new RequestSqlStatistics(target, traced);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the statistics of the current request, null outside of a request
+     */
+    static RequestSqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    void record(long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+    }
+
+    String target() {
+        return target;
+    }
+
+    boolean traced() {
+        return traced;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,89 @@
+package com.renault.garage.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * SQL logging decided per statement, in place of the Hibernate SQL logs: the statements slower than the threshold are
+ * logged on {@code garage.sql.slow} (a sample of them), and every statement of the requests traced with the
+ * {@value #TRACE_HEADER} header on {@code garage.sql.trace}.
+ * <p>
+ * Hibernate instantiates {@link SqlTextInspector} and {@link SqlStatisticsSessionListener} itself, hence the static
+ * settings, set at startup and at runtime by {@link SqlLogEndpoint}.
+ */
+public final class SqlLog {
+
+    public static final String TRACE_HEADER = "X-Sql-Trace";
+
+    private static final Logger SLOW = LoggerFactory.getLogger("garage.sql.slow");
+    private static final Logger TRACE = LoggerFactory.getLogger("garage.sql.trace");
+
+    private static final ThreadLocal<String> PREPARED_SQL = new ThreadLocal<>();
+
+    private static volatile Settings settings = new Settings(Duration.ofMillis(200), 1.0, false);
+
+    private SqlLog() {
+    }
+
+    /**
+     * @param slowThreshold statements lasting at least this long are slow
+     * @param slowSampleRate share of the slow statements logged, between 0 and 1
+     * @param traceHeaderEnabled whether the {@value #TRACE_HEADER} header is honoured
+     */
+    public record Settings(Duration slowThreshold, double slowSampleRate, boolean traceHeaderEnabled) {
+        public Settings {
+            if (slowSampleRate < 0 || slowSampleRate > 1) {
+                throw new IllegalArgumentException("Taux d'échantillonnage hors de [0, 1] : " + slowSampleRate);
+            }
+        }
+    }
+
+    public static Settings settings() {
+        return settings;
+    }
+
+    public static void configure(Settings newSettings) {
+        settings = newSettings;
+    }
+
+    static void prepared(String sql) {
+        PREPARED_SQL.set(sql);
+    }
+
+    /**
+     * Forget the statement prepared by the current thread, at the end of a request.
+     */
+    static void clear() {
+        PREPARED_SQL.remove();
+    }
+
+    /**
+     * Log the last statement prepared by the current thread if it is slow or if the request is traced, then forget it:
+     * a pooled thread must not log it again under its next request.
+     */
+    static void executed(long nanos, RequestSqlStatistics request) {
+        String sql = PREPARED_SQL.get();
+        PREPARED_SQL.remove();
+        Settings current = settings;
+        boolean traced = request != null && request.traced();
+        boolean slow = nanos >= current.slowThreshold().toNanos();
+        if (!traced && !(slow && sampled(current.slowSampleRate()))) {
+            return;
+        }
+        double millis = nanos / 1_000_000.0;
+        String target = request != null ? request.target() : "-";
+        if (traced) {
+            TRACE.info("sql duration_ms={} request=\"{}\" slow={} statement=\"{}\"", String.format("%.3f", millis), target, slow, sql);
+        } else {
+            SLOW.warn("slow_sql duration_ms={} threshold_ms={} request=\"{}\" statement=\"{}\"",
+                    String.format("%.3f", millis), current.slowThreshold().toMillis(), target, sql);
+        }
+    }
+
+    private static boolean sampled(double rate) {
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
@@ -0,0 +1,45 @@
+package com.renault.garage.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@code /actuator/sqllog}: read and change the {@link SqlLog} settings at runtime, e.g. to let a request be traced
+ * with the {@value SqlLog#TRACE_HEADER} header while investigating, without restarting nor logging every statement.
+ */
+@Component
+@Endpoint(id = "sqllog")
+public class SqlLogEndpoint {
+
+    public SqlLogEndpoint(@Value("${garage.sql.slow-threshold:200ms}") Duration slowThreshold,
+                          @Value("${garage.sql.slow-sample-rate:1.0}") double slowSampleRate,
+                          @Value("${garage.sql.trace-header-enabled:false}") boolean traceHeaderEnabled) {
+        SqlLog.configure(new SqlLog.Settings(slowThreshold, slowSampleRate, traceHeaderEnabled));
+    }
+
+    @ReadOperation
+    public SqlLog.Settings settings() {
+        return SqlLog.settings();
+    }
+
+    @WriteOperation
+    public SqlLog.Settings configure(@Nullable Long slowThresholdMs, @Nullable Double slowSampleRate, @Nullable Boolean traceHeaderEnabled) {
+        SqlLog.Settings current = SqlLog.settings();
+        try {
+            SqlLog.configure(new SqlLog.Settings(
+                    slowThresholdMs != null ? Duration.ofMillis(slowThresholdMs) : current.slowThreshold(),
+                    slowSampleRate != null ? slowSampleRate : current.slowSampleRate(),
+                    traceHeaderEnabled != null ? traceHeaderEnabled : current.traceHeaderEnabled()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return SqlLog.settings();
+    }
+}
@@ -0,0 +1,42 @@
+package com.renault.garage.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Hibernate session listener ({@code hibernate.session.events.auto}) timing the JDBC executions of the session
+ * into the {@link RequestSqlStatistics} of the current request, and hand them to {@link SqlLog}.
+ * A JDBC batch counts as one statement.
+ */
+public class SqlStatisticsSessionListener implements SessionEventListener {
+
+    private long executionStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        long elapsed = System.nanoTime() - executionStart;
+        RequestSqlStatistics statistics = RequestSqlStatistics.current();
+        if (statistics != null) {
+            statistics.record(elapsed);
+        }
+        SqlLog.executed(elapsed, statistics);
+    }
+}
@@ -0,0 +1,16 @@
+package com.renault.garage.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Keep the SQL of the statement being prepared for {@link SqlLog}, without altering it
+ * ({@code hibernate.session_factory.statement_inspector}).
+ */
+public class SqlTextInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlLog.prepared(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,338 @@
+package com.renault.garage.search;
+
+import com.renault.garage.dao.entity.Accessory;
+import com.renault.garage.dao.repository.AccessoryRepository;
+import com.renault.garage.dto.AccessoryDto;
+import com.renault.garage.event.AccessoryChangedEvent;
+import com.renault.garage.event.ChangeType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Full-text index of the accessories on their name and description, used to find vehicles by accessory
+ * without scanning the accessory table.
+ * <p>
+ * The index lives in memory: it is built from the database once the application is ready, or by the first search
+ * if it comes earlier, and then follows the accessory changes once they are committed. The changes applied while
+ * the accessories are being read are applied again on them, as the rows read may predate them. Matching ignores case and accents ("camera" finds "Caméra"),
+ * accepts prefixes ("cam") and small typos ("camra"). Exact words score higher than prefixes, prefixes higher
+ * than typos, and the name higher than the description.
+ */
+@Component
+@Slf4j
+public class AccessorySearchIndex {
+
+    static final String ID = "id";
+    static final String NAME = "name";
+    static final String DESCRIPTION = "description";
+
+    private static final float NAME_BOOST = 2f;
+    private static final float EXACT_BOOST = 3f;
+    private static final float PREFIX_BOOST = 2f;
+    private static final int FUZZY_MIN_LENGTH = 4;
+
+    private final AccessoryRepository accessoryRepository;
+    private final Analyzer analyzer = new FoldingAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    /** Orders the changes with the replacement of the documents by a rebuild. */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    /** Changes applied during a rebuild, to apply again once it is done; null out of a rebuild. */
+    private List<Runnable> changesDuringRebuild;
+    private volatile boolean built;
+
+    public AccessorySearchIndex(AccessoryRepository accessoryRepository) throws IOException {
+        this.accessoryRepository = accessoryRepository;
+        this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+
+    /**
+     * Index all the accessories of the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            recordChanges(new ArrayList<>());
+            List<Accessory> accessories;
+            try {
+                accessories = accessoryRepository.findAll();
+            } catch (RuntimeException e) {
+                // the changes were applied to the current documents, which stay as they are
+                recordChanges(null);
+                throw e;
+            }
+            lock.lock();
+            try {
+                // the searches see the previous documents until the refresh
+                writer.deleteAll();
+                accessories.forEach(accessory -> write(accessory.getId(), accessory.getName(), accessory.getDescription()));
+                changesDuringRebuild.forEach(Runnable::run);
+                changesDuringRebuild = null;
+                refresh();
+                built = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                lock.unlock();
+            }
+            log.info("Accessory search index built with {} accessories", accessories.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void buildOnce() {
+        rebuildLock.lock();
+        try {
+            if (!built) {
+                rebuild();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void recordChanges(List<Runnable> changes) {
+        lock.lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccessoryChanged(AccessoryChangedEvent event) {
+        try {
+            if (event.type() == ChangeType.DELETED) {
+                remove(event.accessoryId());
+            } else {
+                index(event.accessory());
+            }
+        } catch (UncheckedIOException e) {
+            log.error("Accessory id={} could not be updated in the search index", event.accessoryId(), e);
+        }
+    }
+
+    /**
+     * Add an accessory to the index, or replace it.
+     * @param accessory the accessory
+     */
+    public void index(AccessoryDto accessory) {
+        lock.lock();
+        try {
+            write(accessory.id(), accessory.name(), accessory.description());
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(() -> write(accessory.id(), accessory.name(), accessory.description()));
+            }
+            refresh();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove an accessory from the index.
+     * @param accessoryId the accessory ID
+     */
+    public void remove(long accessoryId) {
+        lock.lock();
+        try {
+            delete(accessoryId);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(() -> delete(accessoryId));
+            }
+            refresh();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Search the accessories matching every word of a text, in their name or their description.
+     * @param text the searched text
+     * @param maxHits the maximum number of accessories returned
+     * @return the matching accessories, the most relevant first
+     */
+    public List<Hit> search(String text, int maxHits) {
+        Query query = buildQuery(text);
+        if (query == null) {
+            return List.of();
+        }
+        if (!built) {
+            buildOnce();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, maxHits);
+                StoredFields storedFields = searcher.storedFields();
+                List<Hit> hits = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc scoreDoc : top.scoreDocs) {
+                    String id = storedFields.document(scoreDoc.doc, Set.of(ID)).get(ID);
+                    hits.add(new Hit(Long.parseLong(id), scoreDoc.score));
+                }
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Each word of the text must match the name or the description, exactly, as a prefix or with a typo.
+     * @return the query, null if the text has no word
+     */
+    Query buildQuery(String text) {
+        List<String> words = analyze(text);
+        if (words.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String word : words) {
+            BooleanQuery.Builder wordQuery = new BooleanQuery.Builder();
+            addWordClauses(wordQuery, NAME, word, NAME_BOOST);
+            addWordClauses(wordQuery, DESCRIPTION, word, 1f);
+            query.add(wordQuery.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private static void addWordClauses(BooleanQuery.Builder wordQuery, String field, String word, float fieldBoost) {
+        Term term = new Term(field, word);
+        wordQuery.add(new BoostQuery(new TermQuery(term), EXACT_BOOST * fieldBoost), BooleanClause.Occur.SHOULD);
+        wordQuery.add(new BoostQuery(new PrefixQuery(term), PREFIX_BOOST * fieldBoost), BooleanClause.Occur.SHOULD);
+        if (word.length() >= FUZZY_MIN_LENGTH) {
+            int maxEdits = word.length() >= 2 * FUZZY_MIN_LENGTH ? 2 : 1;
+            wordQuery.add(new BoostQuery(new FuzzyQuery(term, maxEdits), fieldBoost), BooleanClause.Occur.SHOULD);
+        }
+    }
+
+    private List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        try (TokenStream stream = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                words.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+
+    private void write(long id, String name, String description) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+        if (name != null) {
+            document.add(new TextField(NAME, name, Field.Store.NO));
+        }
+        if (description != null) {
+            document.add(new TextField(DESCRIPTION, description, Field.Store.NO));
+        }
+        try {
+            writer.updateDocument(new Term(ID, String.valueOf(id)), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void delete(long id) {
+        try {
+            writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Make the last changes visible to the searches.
+     */
+    private void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Accessory matching a search.
+     * @param accessoryId the accessory ID
+     * @param score the relevance of the accessory, higher is better
+     */
+    public record Hit(long accessoryId, float score) {
+    }
+
+    /**
+     * Split the text in words, lower-cased and without accents.
+     */
+    private static final class FoldingAnalyzer extends Analyzer {
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            return new TokenStreamComponents(tokenizer, normalize(fieldName, tokenizer));
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.renault.garage.search;
+
+import com.renault.garage.dao.entity.OpeningTime;
+import com.renault.garage.dao.projection.GarageRow;
+import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Weekly availability of the garages, used to find the garages open at a given time without reading their opening hours.
+ * <p>
+ * The week is cut in 5-minute buckets. Each bucket holds the garages open during the whole bucket and the garages
+ * opening or closing inside it; only the latter are checked against their opening slots, at the minute. The bitmaps
+ * are indexed by garage ID. The index is built from the database once the application is ready, or by the first search
+ * if it comes earlier, and then follows the garage changes once they are committed. The changes applied while the
+ * garages are being read are applied again once the index is replaced, as the rows read may predate them.
+ * The changes are delivered after their commit by the committing threads, so two changes of a garage may arrive out of
+ * order: a change older than the last one applied to the garage is ignored.
+ * <p>
+ * A slot ending before or at its start time runs past midnight into the next day.
+ */
+@Component
+@Slf4j
+public class GarageAvailabilityIndex {
+
+    static final int BUCKET_MINUTES = 5;
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    static final int BUCKETS = MINUTES_PER_WEEK / BUCKET_MINUTES;
+
+    private final GarageRepository garageRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final BitSet[] openWholeBucket = newBuckets();
+    private final BitSet[] openPartOfBucket = newBuckets();
+    /** Opening intervals of each garage, as pairs of start (inclusive) and end (exclusive) minutes of the week. */
+    private final Map<Long, int[]> intervalsByGarage = new HashMap<>();
+    /** Version of the last change applied to each garage, deletions included. */
+    private final Map<Long, Long> versionByGarage = new HashMap<>();
+    /** Changes applied during a rebuild, to apply again once it is done; null out of a rebuild. */
+    private List<Runnable> changesDuringRebuild;
+    private volatile boolean built;
+
+    public GarageAvailabilityIndex(GarageRepository garageRepository) {
+        this.garageRepository = garageRepository;
+    }
+
+    /**
+     * Index the opening hours of all the garages of the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            recordChanges(new ArrayList<>());
+            List<GarageRow> garages;
+            try {
+                garages = garageRepository.findAllRows();
+            } catch (RuntimeException e) {
+                // the changes were applied to the current index, which stays as it is
+                recordChanges(null);
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    openWholeBucket[bucket].clear();
+                    openPartOfBucket[bucket].clear();
+                }
+                intervalsByGarage.clear();
+                versionByGarage.clear();
+                garages.forEach(garage -> {
+                    versionByGarage.put(garage.id(), garage.version());
+                    write(garage.id(), garage.openingHours().openingHours());
+                });
+                changesDuringRebuild.forEach(Runnable::run);
+                changesDuringRebuild = null;
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Garage availability index built with {} garages", garages.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void buildOnce() {
+        rebuildLock.lock();
+        try {
+            if (!built) {
+                rebuild();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void recordChanges(List<Runnable> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGarageChanged(GarageChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            remove(event.garageId(), event.version());
+        } else {
+            index(event.garageId(), event.version(), event.garage().openingHours());
+        }
+    }
+
+    /**
+     * Add the opening hours of a garage to the index, or replace them.
+     * @param garageId the garage ID
+     * @param version the version of the garage, the opening hours are ignored if a later version was already applied
+     * @param openingHours the opening slots of the garage by day, null or empty if it is never open
+     */
+    public void index(long garageId, long version, Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        lock.writeLock().lock();
+        try {
+            replace(garageId, version, openingHours);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(() -> replace(garageId, version, openingHours));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a garage from the index.
+     * @param garageId the garage ID
+     * @param version the version following the last one of the garage
+     */
+    public void remove(long garageId, long version) {
+        index(garageId, version, null);
+    }
+
+    private void replace(long garageId, long version, Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        Long applied = versionByGarage.get(garageId);
+        if (applied != null && applied >= version) {
+            return;
+        }
+        // the version of a deleted garage is kept, a late update must not bring it back
+        versionByGarage.put(garageId, version);
+        clear(garageId);
+        write(garageId, openingHours);
+    }
+
+    /**
+     * Find the garages open at a given time.
+     * @param at the day and time, in the time zone of the garages
+     * @return a bitmap of the open garages, whose set bits are the garage IDs; the caller may modify it
+     */
+    public BitSet openAt(LocalDateTime at) {
+        if (!built) {
+            buildOnce();
+        }
+        int minute = minuteOfWeek(at.getDayOfWeek(), at.toLocalTime());
+        int bucket = minute / BUCKET_MINUTES;
+        lock.readLock().lock();
+        try {
+            BitSet open = (BitSet) openWholeBucket[bucket].clone();
+            BitSet partial = openPartOfBucket[bucket];
+            for (int garageId = partial.nextSetBit(0); garageId >= 0; garageId = partial.nextSetBit(garageId + 1)) {
+                if (!open.get(garageId) && contains(intervalsByGarage.get((long) garageId), minute)) {
+                    open.set(garageId);
+                }
+            }
+            return open;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(long garageId, Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        int[] intervals = toIntervals(openingHours);
+        if (intervals.length == 0) {
+            return;
+        }
+        int bit = Math.toIntExact(garageId);
+        for (int i = 0; i < intervals.length; i += 2) {
+            int start = intervals[i];
+            int end = intervals[i + 1];
+            for (int bucket = start / BUCKET_MINUTES; bucket <= (end - 1) / BUCKET_MINUTES; bucket++) {
+                int bucketStart = bucket * BUCKET_MINUTES;
+                boolean whole = start <= bucketStart && end >= bucketStart + BUCKET_MINUTES;
+                (whole ? openWholeBucket : openPartOfBucket)[bucket].set(bit);
+            }
+        }
+        intervalsByGarage.put(garageId, intervals);
+    }
+
+    private void clear(long garageId) {
+        int[] intervals = intervalsByGarage.remove(garageId);
+        if (intervals == null) {
+            return;
+        }
+        int bit = Math.toIntExact(garageId);
+        for (int i = 0; i < intervals.length; i += 2) {
+            for (int bucket = intervals[i] / BUCKET_MINUTES; bucket <= (intervals[i + 1] - 1) / BUCKET_MINUTES; bucket++) {
+                openWholeBucket[bucket].clear(bit);
+                openPartOfBucket[bucket].clear(bit);
+            }
+        }
+    }
+
+    /**
+     * Convert opening slots to intervals of minutes of the week, splitting the slots running past the end of the week.
+     */
+    static int[] toIntervals(Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        if (openingHours == null) {
+            return new int[0];
+        }
+        List<int[]> intervals = new ArrayList<>();
+        openingHours.forEach((day, times) -> {
+            if (day == null || times == null) {
+                return;
+            }
+            for (OpeningTime time : times) {
+                if (time == null || time.getStartTime() == null || time.getEndTime() == null) {
+                    continue;
+                }
+                int start = minuteOfWeek(day, time.getStartTime());
+                int end = start - minuteOfDay(time.getStartTime()) + minuteOfDay(time.getEndTime());
+                if (end <= start) {
+                    end += MINUTES_PER_DAY;
+                }
+                if (end > MINUTES_PER_WEEK) {
+                    intervals.add(new int[]{start, MINUTES_PER_WEEK});
+                    intervals.add(new int[]{0, end - MINUTES_PER_WEEK});
+                } else {
+                    intervals.add(new int[]{start, end});
+                }
+            }
+        });
+        int[] flat = new int[intervals.size() * 2];
+        for (int i = 0; i < intervals.size(); i++) {
+            flat[2 * i] = intervals.get(i)[0];
+            flat[2 * i + 1] = intervals.get(i)[1];
+        }
+        return flat;
+    }
+
+    private static boolean contains(int[] intervals, int minute) {
+        if (intervals == null) {
+            return false;
+        }
+        for (int i = 0; i < intervals.length; i += 2) {
+            if (intervals[i] <= minute && minute < intervals[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int minuteOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + minuteOfDay(time);
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static BitSet[] newBuckets() {
+        BitSet[] buckets = new BitSet[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            buckets[bucket] = new BitSet();
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,97 @@
+package com.renault.garage.search;
+
+import com.renault.garage.dao.entity.Vehicle.FuelType;
+import com.renault.garage.dao.repository.GarageFuelTypeCountRepository;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import com.renault.garage.event.VehicleChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory copy of the vehicle counters of the garages, so the filters of the index searches do not read the
+ * counter tables on every request.
+ * <p>
+ * The garages having a vehicle of a fuel type are read from {@code garage_fuel_type_count} on the first search
+ * for that fuel type, then kept until a vehicle change moving a vehicle from or to that fuel type, or a garage deletion,
+ * commits. A load that runs while such a change commits is not kept, as it may have read the counters before the change.
+ * The changes only drop the garages of their fuel types rather than adjusting them: a load between the commit of a
+ * change and its event would already count it.
+ */
+@Component
+public class GarageCounterCache {
+
+    private final GarageFuelTypeCountRepository garageFuelTypeCountRepository;
+    /** Number of invalidations of each fuel type, by ordinal. */
+    private final AtomicLongArray generations = new AtomicLongArray(FuelType.values().length);
+    private final Map<FuelType, BitSet> garagesByFuelType = new ConcurrentHashMap<>();
+
+    public GarageCounterCache(GarageFuelTypeCountRepository garageFuelTypeCountRepository) {
+        this.garageFuelTypeCountRepository = garageFuelTypeCountRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVehicleChanged(VehicleChangedEvent event) {
+        if (event.previousFuelType() == event.fuelType()) {
+            // counted for the same fuel type in the same garages
+            return;
+        }
+        invalidate(event.previousFuelType());
+        invalidate(event.fuelType());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGarageChanged(GarageChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Drop the counters read so far.
+     */
+    public void invalidate() {
+        for (FuelType fuelType : FuelType.values()) {
+            invalidate(fuelType);
+        }
+    }
+
+    /**
+     * Drop the garages read for a fuel type.
+     * @param fuelType the fuel type, nothing is dropped if it is null
+     */
+    public void invalidate(FuelType fuelType) {
+        if (fuelType == null) {
+            return;
+        }
+        generations.incrementAndGet(fuelType.ordinal());
+        garagesByFuelType.remove(fuelType);
+    }
+
+    /**
+     * @param fuelType the fuel type
+     * @return a bitmap of the garages having at least one vehicle of the fuel type, whose set bits are the garage IDs;
+     * shared, it must not be modified
+     */
+    public BitSet garagesWithFuelType(FuelType fuelType) {
+        BitSet garages = garagesByFuelType.get(fuelType);
+        if (garages != null) {
+            return garages;
+        }
+        long loadedGeneration = generations.get(fuelType.ordinal());
+        BitSet loaded = new BitSet();
+        garageFuelTypeCountRepository.findGarageIdsByFuelType(fuelType, 1).forEach(id -> loaded.set(Math.toIntExact(id)));
+        garagesByFuelType.putIfAbsent(fuelType, loaded);
+        if (generations.get(fuelType.ordinal()) != loadedGeneration) {
+            // invalidated during the load: the next search reads the counters again
+            garagesByFuelType.remove(fuelType, loaded);
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,369 @@
+package com.renault.garage.search;
+
+import com.renault.garage.dao.projection.GarageRow;
+import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Location of the garages, used to find the garages nearest to a point without reading the garage table.
+ * <p>
+ * The garages are kept in a grid of cells of {@value #CELL_DEGREES} degree of latitude and longitude. A search reads
+ * the cells of the bounding box of a small circle around the point, and doubles the circle until it holds enough
+ * garages or reaches the search radius: the garages found in a circle are the nearest ones, since every garage of
+ * the circle is inside its bounding box. Each circle only reads the ring of cells its box adds to the previous one,
+ * the garages of the cells already read being kept whatever their distance within the search radius. Distances are great-circle distances on a spherical Earth.
+ * The index is built from the database once the application is ready, or by the first search if that comes first,
+ * and then follows the garage changes once they are committed; the changes committed while it is built are replayed
+ * on the garages read. As the changes are delivered after their commit by the committing threads, a change older
+ * than the last one applied to the garage is ignored. Garages without location are not indexed.
+ */
+@Component
+@Slf4j
+public class GarageLocationIndex {
+
+    static final double CELL_DEGREES = 0.1;
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final int LATITUDE_CELLS = (int) Math.round(180 / CELL_DEGREES);
+    private static final int LONGITUDE_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    /** Radius of the first circle searched, about two cells. */
+    private static final double INITIAL_SEARCH_KM = 2 * CELL_DEGREES * Math.PI * EARTH_RADIUS_KM / 180;
+
+    /**
+     * A garage found by a search.
+     * @param garageId the garage ID
+     * @param distanceKm the distance from the searched point in kilometers
+     */
+    public record Hit(long garageId, double distanceKm) {
+    }
+
+    private record Location(long garageId, double latitude, double longitude, int cell) {
+    }
+
+    private final GarageRepository garageRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, List<Location>> garagesByCell = new HashMap<>();
+    private final Map<Long, Location> locationByGarage = new HashMap<>();
+    /** Version of the last change applied to each garage, deletions included. */
+    private final Map<Long, Long> versionByGarage = new HashMap<>();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    /** Changes committed during a rebuild, to apply again on the garages read; null out of a rebuild. */
+    private List<Runnable> changesDuringRebuild;
+    private volatile boolean built;
+
+    public GarageLocationIndex(GarageRepository garageRepository) {
+        this.garageRepository = garageRepository;
+    }
+
+    /**
+     * Index the location of all the garages of the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            recordChanges(new ArrayList<>());
+            List<GarageRow> garages;
+            try {
+                garages = garageRepository.findAllRows();
+            } catch (RuntimeException e) {
+                // the changes were applied to the current index, which stays as it is
+                recordChanges(null);
+                throw e;
+            }
+            int located;
+            lock.writeLock().lock();
+            try {
+                garagesByCell.clear();
+                locationByGarage.clear();
+                versionByGarage.clear();
+                garages.forEach(garage -> {
+                    versionByGarage.put(garage.id(), garage.version());
+                    write(garage.id(), garage.latitude(), garage.longitude());
+                });
+                changesDuringRebuild.forEach(Runnable::run);
+                changesDuringRebuild = null;
+                built = true;
+                located = locationByGarage.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Garage location index built with {} located garages", located);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void buildOnce() {
+        rebuildLock.lock();
+        try {
+            if (!built) {
+                rebuild();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void recordChanges(List<Runnable> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGarageChanged(GarageChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            remove(event.garageId(), event.version());
+        } else {
+            index(event.garageId(), event.version(), event.garage().latitude(), event.garage().longitude());
+        }
+    }
+
+    /**
+     * Add the location of a garage to the index, or replace it.
+     * @param garageId the garage ID
+     * @param version the version of the garage, the location is ignored if a later version was already applied
+     * @param latitude the latitude in degrees, null if the garage is not located
+     * @param longitude the longitude in degrees, null if the garage is not located
+     */
+    public void index(long garageId, long version, Double latitude, Double longitude) {
+        lock.writeLock().lock();
+        try {
+            replace(garageId, version, latitude, longitude);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(() -> replace(garageId, version, latitude, longitude));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a garage from the index.
+     * @param garageId the garage ID
+     * @param version the version following the last one of the garage
+     */
+    public void remove(long garageId, long version) {
+        index(garageId, version, null, null);
+    }
+
+    private void replace(long garageId, long version, Double latitude, Double longitude) {
+        Long applied = versionByGarage.get(garageId);
+        if (applied != null && applied >= version) {
+            return;
+        }
+        // the version of a deleted garage is kept, a late update must not bring it back
+        versionByGarage.put(garageId, version);
+        clear(garageId);
+        write(garageId, latitude, longitude);
+    }
+
+    /**
+     * Find the garages nearest to a point.
+     * @param latitude the latitude of the point in degrees
+     * @param longitude the longitude of the point in degrees
+     * @param radiusKm the maximum distance of the garages in kilometers
+     * @param limit the maximum number of garages
+     * @param filter the garage IDs which may be returned
+     * @return the garages, nearest first
+     */
+    public List<Hit> nearest(double latitude, double longitude, double radiusKm, int limit, LongPredicate filter) {
+        if (limit <= 0 || radiusKm < 0) {
+            return List.of();
+        }
+        if (!built) {
+            buildOnce();
+        }
+        double searchKm = Math.min(INITIAL_SEARCH_KM, radiusKm);
+        lock.readLock().lock();
+        try {
+            Search search = new Search(latitude, longitude, radiusKm, limit, filter);
+            while (true) {
+                search.extendTo(searchKm);
+                if (search.holdsNearest(searchKm) || searchKm >= radiusKm) {
+                    List<Hit> hits = new ArrayList<>(search.nearest);
+                    hits.sort(Comparator.comparingDouble(Hit::distanceKm).thenComparingLong(Hit::garageId));
+                    return hits;
+                }
+                searchKm = Math.min(2 * searchKm, radiusKm);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A search reading the cells of growing circles around a point, each cell once.
+     */
+    private final class Search {
+
+        private final double latitude;
+        private final double longitude;
+        private final double radiusKm;
+        private final int limit;
+        private final LongPredicate filter;
+        /** The {@code limit} garages nearest to the point within the radius in the cells read, farthest at the head. */
+        private final PriorityQueue<Hit> nearest;
+        /** Box of the cells read, longitude cells counted from the antimeridian without wrapping; empty before the first circle. */
+        private int fromLatitudeCell;
+        private int toLatitudeCell = -1;
+        private int fromLongitudeCell;
+        private int toLongitudeCell = -1;
+
+        Search(double latitude, double longitude, double radiusKm, int limit, LongPredicate filter) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusKm = radiusKm;
+            this.limit = limit;
+            this.filter = filter;
+            this.nearest = new PriorityQueue<>(limit + 1,
+                    Comparator.comparingDouble(Hit::distanceKm).thenComparingLong(Hit::garageId).reversed());
+        }
+
+        /**
+         * Read the cells of the bounding box of a circle which were not read for the previous circles.
+         * @param distanceKm the radius of the circle, not smaller than the previous one
+         */
+        void extendTo(double distanceKm) {
+            double angle = distanceKm / EARTH_RADIUS_KM;
+            double minLatitude = latitude - Math.toDegrees(angle);
+            double maxLatitude = latitude + Math.toDegrees(angle);
+            int fromLatitude = latitudeCell(minLatitude);
+            int toLatitude = latitudeCell(maxLatitude);
+            int fromLongitude;
+            int toLongitude;
+            double sinAngle = Math.sin(angle);
+            double cosLatitude = Math.cos(Math.toRadians(latitude));
+            if (minLatitude <= -90 || maxLatitude >= 90 || angle >= Math.PI / 2 || sinAngle >= cosLatitude) {
+                // the circle contains a pole: all longitudes
+                fromLongitude = 0;
+                toLongitude = LONGITUDE_CELLS;
+            } else {
+                double deltaLongitude = Math.toDegrees(Math.asin(sinAngle / cosLatitude));
+                fromLongitude = (int) Math.floor((longitude - deltaLongitude + 180) / CELL_DEGREES);
+                toLongitude = (int) Math.floor((longitude + deltaLongitude + 180) / CELL_DEGREES);
+            }
+            if (toLongitude - fromLongitude >= LONGITUDE_CELLS) {
+                // all longitudes, starting at the cells already read so that they stay inside the box
+                fromLongitude = toLongitudeCell < fromLongitudeCell ? 0 : fromLongitudeCell;
+                toLongitude = fromLongitude + LONGITUDE_CELLS - 1;
+            }
+            if (toLatitudeCell < fromLatitudeCell) {
+                read(fromLatitude, toLatitude, fromLongitude, toLongitude);
+            } else {
+                read(fromLatitude, fromLatitudeCell - 1, fromLongitude, toLongitude);
+                read(toLatitudeCell + 1, toLatitude, fromLongitude, toLongitude);
+                read(fromLatitudeCell, toLatitudeCell, fromLongitude, fromLongitudeCell - 1);
+                read(fromLatitudeCell, toLatitudeCell, toLongitudeCell + 1, toLongitude);
+            }
+            fromLatitudeCell = fromLatitude;
+            toLatitudeCell = toLatitude;
+            fromLongitudeCell = fromLongitude;
+            toLongitudeCell = toLongitude;
+        }
+
+        /**
+         * @return true if the garages found are the nearest ones, all of them being within a circle whose cells were read
+         */
+        boolean holdsNearest(double distanceKm) {
+            return nearest.size() >= limit && nearest.peek().distanceKm() <= distanceKm;
+        }
+
+        private void read(int fromLatitude, int toLatitude, int fromLongitude, int toLongitude) {
+            for (int latitudeCell = fromLatitude; latitudeCell <= toLatitude; latitudeCell++) {
+                for (int longitudeCell = fromLongitude; longitudeCell <= toLongitude; longitudeCell++) {
+                    List<Location> garages = garagesByCell.get(cell(latitudeCell, Math.floorMod(longitudeCell, LONGITUDE_CELLS)));
+                    if (garages == null) {
+                        continue;
+                    }
+                    for (Location garage : garages) {
+                        if (!filter.test(garage.garageId())) {
+                            continue;
+                        }
+                        double distance = distanceKm(latitude, longitude, garage.latitude(), garage.longitude());
+                        if (distance <= radiusKm) {
+                            nearest.add(new Hit(garage.garageId(), distance));
+                            if (nearest.size() > limit) {
+                                nearest.poll();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void write(long garageId, Double latitude, Double longitude) {
+        if (!isValid(latitude, longitude)) {
+            return;
+        }
+        Location location = new Location(garageId, latitude, longitude, cell(latitudeCell(latitude), longitudeCell(longitude)));
+        garagesByCell.computeIfAbsent(location.cell(), cell -> new ArrayList<>(4)).add(location);
+        locationByGarage.put(garageId, location);
+    }
+
+    private void clear(long garageId) {
+        Location location = locationByGarage.remove(garageId);
+        if (location == null) {
+            return;
+        }
+        List<Location> garages = garagesByCell.get(location.cell());
+        garages.remove(location);
+        if (garages.isEmpty()) {
+            garagesByCell.remove(location.cell());
+        }
+    }
+
+    /**
+     * @return true if both coordinates are given and in range
+     */
+    public static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90
+                && longitude >= -180 && longitude <= 180;
+    }
+
+    /**
+     * Haversine distance between two points.
+     */
+    static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinHalfLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinHalfLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinHalfLatitude * sinHalfLatitude
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinHalfLongitude * sinHalfLongitude;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int latitudeCell(double latitude) {
+        return Math.clamp((int) Math.floor((latitude + 90) / CELL_DEGREES), 0, LATITUDE_CELLS - 1);
+    }
+
+    private static int longitudeCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), LONGITUDE_CELLS);
+    }
+
+    private static int cell(int latitudeCell, int longitudeCell) {
+        return latitudeCell * LONGITUDE_CELLS + longitudeCell;
+    }
+}
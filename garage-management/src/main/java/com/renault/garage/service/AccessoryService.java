@@ -2,36 +2,61 @@ package com.renault.garage.service;
 
 import com.renault.garage.dao.entity.Accessory;
 import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.projection.EntityVersion;
 import com.renault.garage.dao.repository.AccessoryRepository;
 import com.renault.garage.dao.repository.VehicleRepository;
 import com.renault.garage.dto.AccessoryDto;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateAccessoryDto;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.event.AccessoryChangedEvent;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.exception.StaleVersionException;
 import com.renault.garage.mapper.AccessoryMapper;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @Transactional(readOnly = true)
 public class AccessoryService {
 
+    private final ApplicationEventPublisher publisher;
     private final AccessoryRepository accessoryRepository;
     private final VehicleRepository vehicleRepository;
+    private final BatchLoader batchLoader;
     AccessoryMapper accessoryMapper = AccessoryMapper.INSTANCE;
 
-    public AccessoryService(AccessoryRepository accessoryRepository, VehicleRepository vehicleRepository) {
+    public AccessoryService(ApplicationEventPublisher publisher, AccessoryRepository accessoryRepository, VehicleRepository vehicleRepository,
+                            BatchLoader batchLoader) {
+        this.publisher = publisher;
         this.accessoryRepository = accessoryRepository;
         this.vehicleRepository = vehicleRepository;
+        this.batchLoader = batchLoader;
     }
 
     public AccessoryDto getAccessoryById(long id) {
-        return accessoryRepository.findById(id)
-                .map(accessoryMapper::entity2dto)
-                .orElse(null);
+        return accessoryRepository.findDtoById(id).orElse(null);
+    }
+
+    /**
+     * Read accessories by ids with chunked {@code IN} queries.
+     * @param ids the accessory IDs
+     * @return the accessories found in the order of the ids, and the ids matching no accessory
+     */
+    @Transactional(readOnly = true)
+    public BatchGetResultDto<AccessoryDto> getAccessoriesByIds(List<Long> ids) {
+        return batchLoader.load(ids, accessoryRepository::findDtosByIdIn, AccessoryDto::id, Function.identity());
     }
 
     @Transactional
@@ -40,6 +65,7 @@ public class AccessoryService {
             return false;
         }
         accessoryRepository.deleteById(id);
+        publisher.publishEvent(new AccessoryChangedEvent(ChangeType.DELETED, id, null));
         return true;
     }
 
@@ -57,21 +83,83 @@ public class AccessoryService {
         accessory.addVehicle(vehicle);
 
         Accessory newAccessory = accessoryRepository.save(accessory);
-        return accessoryMapper.entity2dto(newAccessory);
+        AccessoryDto created = accessoryMapper.entity2dto(newAccessory);
+        publisher.publishEvent(new AccessoryChangedEvent(ChangeType.CREATED, created.id(), created));
+        return created;
     }
 
     @Transactional
     public AccessoryDto updateAccessory(long id, CreateAccessoryDto accessoryDto) {
+        VersionedDto<AccessoryDto> updated = updateAccessory(id, accessoryDto, null);
+        return updated == null ? null : updated.body();
+    }
+
+    /**
+     * Update an accessory if it is still at the version the changes are based on. The changes are written before the
+     * commit, so that the new version is known and returned with the accessory.
+     * @param expectedVersion the expected version of the accessory, null to update whatever its version
+     * @return the updated accessory with its new version, null if it does not exist
+     * @throws StaleVersionException if the accessory is no longer at the expected version
+     */
+    @Transactional
+    public VersionedDto<AccessoryDto> updateAccessory(long id, CreateAccessoryDto accessoryDto, Long expectedVersion) {
         Optional<Accessory> opt = accessoryRepository.findById(id);
         if (opt.isEmpty()) return null;
         Accessory entity = opt.get();
+        if (expectedVersion != null && expectedVersion != entity.getVersion()) {
+            throw new StaleVersionException("Accessory", id, expectedVersion);
+        }
         accessoryMapper.updateEntityFromDto(accessoryDto, entity);
-        Accessory saved = accessoryRepository.save(entity);
-        return accessoryMapper.entity2dto(saved);
+        Accessory saved = accessoryRepository.saveAndFlush(entity);
+        AccessoryDto updated = accessoryMapper.entity2dto(saved);
+        publisher.publishEvent(new AccessoryChangedEvent(ChangeType.UPDATED, updated.id(), updated));
+        return VersionedDto.of(updated, saved.getVersion());
+    }
+
+    /**
+     * Compute a tag identifying the current state of the accessories of a vehicle: it changes whenever an accessory
+     * is linked, unlinked or updated.
+     * @param vehicleId the vehicle ID
+     * @return the hexadecimal tag, a digest of the ids and versions of the accessories, null if the vehicle does not exist
+     */
+    @Transactional(readOnly = true)
+    public String getListVersion(long vehicleId) {
+        if (!vehicleRepository.existsById(vehicleId)) {
+            return null;
+        }
+        return digestVersions(vehicleId);
+    }
+
+    /**
+     * Read the accessories of a vehicle with the tag of the list. All the queries read the same snapshot, so the tag
+     * is the one of the list returned even if an accessory is changed in between.
+     * @param vehicleId the vehicle ID
+     * @return the accessories and their tag, null if the vehicle does not exist
+     * @see #getListVersion(long)
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public VersionedDto<List<AccessoryDto>> getVersionedList(long vehicleId) {
+        if (!vehicleRepository.existsById(vehicleId)) {
+            return null;
+        }
+        return new VersionedDto<>(accessoryRepository.findByVehicleId(vehicleId), digestVersions(vehicleId));
+    }
+
+    private String digestVersions(long vehicleId) {
+        StringBuilder versions = new StringBuilder();
+        for (EntityVersion accessory : accessoryRepository.findVersionsByVehicleId(vehicleId)) {
+            versions.append(accessory.id()).append(':').append(accessory.version()).append(',');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(versions.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @Transactional(readOnly = true)
     public List<AccessoryDto> getAllByVehicleId(long vehicleId) {
-        return accessoryRepository.findByVehicleId(vehicleId).stream().map(accessoryMapper::entity2dto).collect(Collectors.toList());
+        return accessoryRepository.findByVehicleId(vehicleId);
     }
 }
@@ -0,0 +1,75 @@
+package com.renault.garage.service;
+
+import com.renault.garage.dto.BatchGetResultDto;
+import com.renault.garage.exception.InvalidBatchRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Read of entities by a list of ids: the ids are split into chunks of bounded size, each one resolved by a single
+ * {@code IN} query, so a request for thousands of ids neither costs one query per id nor builds an unbounded statement.
+ */
+@Component
+public class BatchLoader {
+
+    private final int maxIds;
+    private final int chunkSize;
+
+    public BatchLoader(@Value("${garage.batch-get.max-ids:1000}") int maxIds,
+                       @Value("${garage.batch-get.chunk-size:500}") int chunkSize) {
+        this.maxIds = maxIds;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Load entities by ids, chunk by chunk, and map them in the order of the request.
+     * @param ids the requested ids, duplicates are read once
+     * @param finder loads the entities of a chunk of ids, in any order, with the associations needed by the mapper
+     * @param idOf the id of an entity
+     * @param mapper maps an entity to its DTO, inside the caller's transaction: callers are {@code @Transactional(readOnly = true)}
+     *               so the mapper never depends on Open Session In View
+     * @return the DTOs found and the ids missing, both in the order of the request
+     * @throws InvalidBatchRequestException if an id is null or more than {@code maxIds} distinct ids are requested
+     */
+    public <E, D> BatchGetResultDto<D> load(List<Long> ids, Function<List<Long>, List<E>> finder,
+                                            Function<E, Long> idOf, Function<E, D> mapper) {
+        if (ids == null || ids.isEmpty()) {
+            return new BatchGetResultDto<>(List.of(), List.of());
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidBatchRequestException("Les identifiants demandés ne peuvent pas être null");
+        }
+        List<Long> distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+        if (distinctIds.size() > maxIds) {
+            throw new InvalidBatchRequestException("Au plus " + maxIds + " identifiants par requête, " + distinctIds.size() + " demandés");
+        }
+
+        Map<Long, E> entitiesById = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            for (E entity : finder.apply(chunk)) {
+                entitiesById.put(idOf.apply(entity), entity);
+            }
+        }
+
+        List<D> found = new ArrayList<>(entitiesById.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinctIds) {
+            E entity = entitiesById.get(id);
+            if (entity == null) {
+                missing.add(id);
+            } else {
+                found.add(mapper.apply(entity));
+            }
+        }
+        return new BatchGetResultDto<>(found, missing);
+    }
+}
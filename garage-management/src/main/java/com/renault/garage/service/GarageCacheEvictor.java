@@ -0,0 +1,50 @@
+package com.renault.garage.service;
+
+import com.renault.garage.dao.entity.Garage;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evict a garage from the second-level cache once its update or deletion has committed.
+ * Hibernate already keeps the regions consistent for changes made through the entities; evicting explicitly
+ * also covers the changes made by bulk queries, and keeps the next read from serving a state older than the commit.
+ */
+@Component
+public class GarageCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Counter evictions;
+
+    public GarageCacheEvictor(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.evictions = Counter.builder("garage.cache.evictions")
+                .description("Garages evicted from the second-level cache")
+                .tag("region", Garage.CACHE_REGION)
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGarageChanged(GarageChangedEvent event) {
+        if (event.type() != ChangeType.CREATED) {
+            evict(event.garageId());
+        }
+    }
+
+    /**
+     * Evict the garage, its opening hours being stored with it.
+     * @param garageId the garage ID
+     */
+    public void evict(Long garageId) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Garage.class, garageId);
+        evictions.increment();
+    }
+}
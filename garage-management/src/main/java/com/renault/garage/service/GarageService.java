@@ -1,30 +1,106 @@
 package com.renault.garage.service;
 
 import com.renault.garage.dao.entity.Garage;
-import com.renault.garage.dao.entity.OpeningSlot;
+import com.renault.garage.dao.entity.GarageFuelTypeCount;
+import com.renault.garage.dao.entity.GarageOccupancy;
+import com.renault.garage.dao.entity.OpeningTime;
 import com.renault.garage.dao.entity.Vehicle.FuelType;
+import com.renault.garage.dao.entity.WeeklySchedule;
+import com.renault.garage.dao.projection.GarageRow;
+import com.renault.garage.dao.projection.VehicleAccessoryRow;
+import com.renault.garage.dao.repository.GarageFuelTypeCountRepository;
+import com.renault.garage.dao.repository.GarageOccupancyRepository;
 import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.dao.repository.VehicleRepository;
+import com.renault.garage.dto.AccessoryDto;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateGarageDto;
 import com.renault.garage.dto.GarageDto;
+import com.renault.garage.dto.GarageScrollDto;
+import com.renault.garage.dto.GarageSummaryDto;
+import com.renault.garage.dto.NearbyGarageDto;
+import com.renault.garage.dto.ScrollCursor;
+import com.renault.garage.dto.VehicleSummaryDto;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import com.renault.garage.exception.InvalidLocationException;
+import com.renault.garage.exception.InvalidOpeningHoursException;
+import com.renault.garage.exception.StaleVersionException;
 import com.renault.garage.mapper.GarageMapper;
+import com.renault.garage.search.GarageAvailabilityIndex;
+import com.renault.garage.search.GarageCounterCache;
+import com.renault.garage.search.GarageLocationIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class GarageService {
 
+    /**
+     * Maximum number of garages read by {@link #scrollGarages}
+     */
+    static final int MAX_SCROLL_SIZE = 500;
+    /**
+     * Maximum number of garages of the location index checked for capacity by {@link #getNearbyGarages}
+     */
+    static final int MAX_NEARBY_CANDIDATES = 1000;
+
+    private final ApplicationEventPublisher publisher;
     private final GarageRepository garageRepository;
+    private final GarageOccupancyRepository garageOccupancyRepository;
+    private final GarageFuelTypeCountRepository garageFuelTypeCountRepository;
+    private final VehicleRepository vehicleRepository;
+    private final BatchLoader batchLoader;
+    private final GarageAvailabilityIndex garageAvailabilityIndex;
+    private final GarageLocationIndex garageLocationIndex;
+    private final GarageCounterCache garageCounterCache;
     GarageMapper garageMapper = GarageMapper.INSTANCE;
 
-    public GarageService(GarageRepository garageRepository) {
+    private int maxVehiclesPerGarage;
+
+    public GarageService(ApplicationEventPublisher publisher, GarageRepository garageRepository, GarageOccupancyRepository garageOccupancyRepository,
+                         GarageFuelTypeCountRepository garageFuelTypeCountRepository, VehicleRepository vehicleRepository,
+                         BatchLoader batchLoader, GarageAvailabilityIndex garageAvailabilityIndex, GarageLocationIndex garageLocationIndex,
+                         GarageCounterCache garageCounterCache) {
+        this.publisher = publisher;
         this.garageRepository = garageRepository;
+        this.garageOccupancyRepository = garageOccupancyRepository;
+        this.garageFuelTypeCountRepository = garageFuelTypeCountRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.batchLoader = batchLoader;
+        this.garageAvailabilityIndex = garageAvailabilityIndex;
+        this.garageLocationIndex = garageLocationIndex;
+        this.garageCounterCache = garageCounterCache;
+    }
+
+    @Autowired
+    public void setMaxVehiclesPerGarage(@Value("${garage.vehicle.max-per-garage:5}") int maxVehiclesPerGarage) {
+        this.maxVehiclesPerGarage = maxVehiclesPerGarage;
     }
 
     public GarageDto getGarageById(long id) {
@@ -33,47 +109,219 @@ public class GarageService {
                 .orElse(null);
     }
 
+    /**
+     * Read a garage with the version it was read at, both coming from the same row.
+     * @return the garage and its version, null if it does not exist
+     */
+    @Transactional(readOnly = true)
+    public VersionedDto<GarageDto> getVersionedGarage(long id) {
+        return garageRepository.findById(id)
+                .map(garage -> VersionedDto.of(garageMapper.entity2dto(garage), garage.getVersion()))
+                .orElse(null);
+    }
+
+    /**
+     * Read garages by ids with chunked {@code IN} queries, reading their opening hours in the same queries.
+     * @param ids the garage IDs
+     * @return the garages found in the order of the ids, and the ids matching no garage
+     */
+    @Transactional(readOnly = true)
+    public BatchGetResultDto<GarageDto> getGaragesByIds(List<Long> ids) {
+        return batchLoader.load(ids, garageRepository::findRowsByIdIn, GarageRow::id, garageMapper::row2dto);
+    }
+
+    /**
+     * @return the version of the garage, null if it does not exist
+     */
+    public Long getVersion(long id) {
+        return garageRepository.findVersionById(id).orElse(null);
+    }
+
+    /**
+     * Build the summary of a garage with two projection queries, whatever its number of vehicles and accessories:
+     * the garage with its opening hours, then its vehicles with their accessories. Both queries read the same snapshot,
+     * so a vehicle change committed between them cannot make the counts disagree with the garage.
+     * @return the summary, null if the garage does not exist
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public GarageSummaryDto getGarageSummary(long id) {
+        Optional<GarageRow> garageRow = garageRepository.findRowById(id);
+        if (garageRow.isEmpty()) {
+            return null;
+        }
+        GarageDto garage = garageMapper.row2dto(garageRow.get());
+
+        Map<Long, VehicleSummaryDto> vehicles = new LinkedHashMap<>();
+        Set<Long> accessoryIds = new HashSet<>();
+        double totalAccessoryValue = 0;
+        for (VehicleAccessoryRow row : vehicleRepository.findAccessoryRowsByGarageId(id)) {
+            VehicleSummaryDto vehicle = vehicles.computeIfAbsent(row.vehicleId(), vehicleId ->
+                    new VehicleSummaryDto(vehicleId, row.brand(), row.yearOfManufacture(), row.fuelType(), new ArrayList<>()));
+            if (row.accessoryId() != null) {
+                vehicle.accessories().add(new AccessoryDto(row.accessoryId(), row.accessoryName(), row.accessoryDescription(), row.accessoryPrice(), row.accessoryType()));
+                if (accessoryIds.add(row.accessoryId()) && row.accessoryPrice() != null) {
+                    totalAccessoryValue += row.accessoryPrice();
+                }
+            }
+        }
+
+        Map<FuelType, Long> countByFuelType = new EnumMap<>(FuelType.class);
+        for (FuelType fuelType : FuelType.values()) {
+            countByFuelType.put(fuelType, 0L);
+        }
+        vehicles.values().stream()
+                .filter(vehicle -> vehicle.fuelType() != null)
+                .forEach(vehicle -> countByFuelType.merge(vehicle.fuelType(), 1L, Long::sum));
+        int remainingCapacity = Math.max(0, maxVehiclesPerGarage - vehicles.size());
+        return new GarageSummaryDto(garage, List.copyOf(vehicles.values()), countByFuelType, remainingCapacity, totalAccessoryValue);
+    }
+
     @Transactional
     public boolean deleteGarage(long id) {
-        if (!garageRepository.existsById(id)) {
+        Optional<Garage> garage = garageRepository.findById(id);
+        if (garage.isEmpty()) {
             return false;
         }
-        garageRepository.deleteById(id);
+        garageOccupancyRepository.deleteById(id);
+        garageFuelTypeCountRepository.deleteByGarageId(id);
+        garageRepository.delete(garage.get());
+        publisher.publishEvent(new GarageChangedEvent(ChangeType.DELETED, id, garage.get().getVersion() + 1, null));
         return true;
     }
 
     @Transactional
     public GarageDto createGarage(CreateGarageDto dto) {
         if (dto == null) return null;
+        checkLocation(dto);
         Garage garageEntity = garageMapper.dto2entity(dto);
+        checkOpeningHours(garageEntity.getOpeningHours());
         Garage saved = garageRepository.save(garageEntity);
-        return garageMapper.entity2dto(saved);
+        garageOccupancyRepository.save(new GarageOccupancy(saved.getId(), 0));
+        garageFuelTypeCountRepository.saveAll(Arrays.stream(FuelType.values())
+                .map(fuelType -> new GarageFuelTypeCount(saved.getId(), fuelType, 0))
+                .toList());
+        GarageDto created = garageMapper.entity2dto(saved);
+        publisher.publishEvent(new GarageChangedEvent(ChangeType.CREATED, created.id(), saved.getVersion(), created));
+        return created;
     }
 
     @Transactional
     public GarageDto updateGarage(long id, CreateGarageDto dto) {
+        VersionedDto<GarageDto> updated = updateGarage(id, dto, null);
+        return updated == null ? null : updated.body();
+    }
+
+    /**
+     * Update a garage if it is still at the version the changes are based on.
+     * @param expectedVersion the expected version of the garage, null to update whatever its version
+     * @return the updated garage with its new version, null if it does not exist
+     * @throws StaleVersionException if the garage is no longer at the expected version
+     */
+    @Transactional
+    public VersionedDto<GarageDto> updateGarage(long id, CreateGarageDto dto, Long expectedVersion) {
         Optional<Garage> opt = garageRepository.findById(id);
         if (opt.isEmpty()) return null;
         Garage entity = opt.get();
+        if (expectedVersion != null && expectedVersion != entity.getVersion()) {
+            throw new StaleVersionException("Garage", id, expectedVersion);
+        }
+        checkLocation(dto);
         if (dto.name() != null) entity.setName(dto.name());
         if (dto.address() != null) entity.setAddress(dto.address());
         if (dto.telephone() != null) entity.setTelephone(dto.telephone());
         if (dto.email() != null) entity.setEmail(dto.email());
-        if (dto.openingHours() != null) {
-            List<OpeningSlot> newSlots = garageMapper.map(dto.openingHours());
-            if (entity.getOpeningSlots() == null) {
-                entity.setOpeningSlots(new ArrayList<>());
-            } else {
-                entity.getOpeningSlots().clear();
-            }
-            entity.getOpeningSlots().addAll(newSlots);
+        if (dto.openingHours() != null) entity.setOpeningHours(checkOpeningHours(garageMapper.map(dto.openingHours())));
+        if (dto.latitude() != null) {
+            entity.setLatitude(dto.latitude());
+            entity.setLongitude(dto.longitude());
+        }
+        return saveChanges(entity);
+    }
+
+    /**
+     * Change the opening hours of some days of a garage, leaving the other days as they are. Nothing is written,
+     * and the version of the garage is kept, when the new hours are the current ones.
+     * @param days the new slots of the changed days, an empty list for a day the garage is now closed
+     * @param expectedVersion the expected version of the garage, null to update whatever its version
+     * @return the garage with its version, null if it does not exist
+     * @throws StaleVersionException if the garage is no longer at the expected version
+     */
+    @Transactional
+    public VersionedDto<GarageDto> patchOpeningHours(long id, Map<DayOfWeek, List<OpeningTime>> days, Long expectedVersion) {
+        Optional<Garage> opt = garageRepository.findById(id);
+        if (opt.isEmpty()) return null;
+        Garage entity = opt.get();
+        if (expectedVersion != null && expectedVersion != entity.getVersion()) {
+            throw new StaleVersionException("Garage", id, expectedVersion);
+        }
+        WeeklySchedule current = entity.getOpeningHours();
+        WeeklySchedule patched = current.with(days);
+        if (patched.equals(current)) {
+            return VersionedDto.of(garageMapper.entity2dto(entity), entity.getVersion());
+        }
+        entity.setOpeningHours(checkOpeningHours(patched));
+        return saveChanges(entity);
+    }
+
+    /**
+     * Remove the location of a garage, which is then no longer found by {@link #getNearbyGarages}. Nothing is written
+     * when the garage has no location.
+     * @param expectedVersion the expected version of the garage, null to update whatever its version
+     * @return the garage with its version, null if it does not exist
+     * @throws StaleVersionException if the garage is no longer at the expected version
+     */
+    @Transactional
+    public VersionedDto<GarageDto> clearLocation(long id, Long expectedVersion) {
+        Optional<Garage> opt = garageRepository.findById(id);
+        if (opt.isEmpty()) return null;
+        Garage entity = opt.get();
+        if (expectedVersion != null && expectedVersion != entity.getVersion()) {
+            throw new StaleVersionException("Garage", id, expectedVersion);
+        }
+        if (entity.getLatitude() == null && entity.getLongitude() == null) {
+            return VersionedDto.of(garageMapper.entity2dto(entity), entity.getVersion());
+        }
+        entity.setLatitude(null);
+        entity.setLongitude(null);
+        return saveChanges(entity);
+    }
+
+    /**
+     * Write the changes of a garage now rather than at commit, so that its new version is known and returned
+     * with it: reading the version after the commit could read another one.
+     */
+    private VersionedDto<GarageDto> saveChanges(Garage entity) {
+        Garage saved = garageRepository.saveAndFlush(entity);
+        GarageDto updated = garageMapper.entity2dto(saved);
+        publisher.publishEvent(new GarageChangedEvent(ChangeType.UPDATED, updated.id(), saved.getVersion(), updated));
+        return VersionedDto.of(updated, saved.getVersion());
+    }
+
+    /**
+     * A location is given with both coordinates, in range, so that the location index can find the garage.
+     * @throws InvalidLocationException otherwise
+     */
+    private static void checkLocation(CreateGarageDto dto) {
+        if ((dto.latitude() != null || dto.longitude() != null) && !GarageLocationIndex.isValid(dto.latitude(), dto.longitude())) {
+            throw new InvalidLocationException(dto.latitude(), dto.longitude());
         }
-        Garage saved = garageRepository.save(entity);
-        return garageMapper.entity2dto(saved);
+    }
+
+    /**
+     * The opening hours fit in their column, so that a garage with too many slots is refused rather than failing
+     * once flushed.
+     * @return the opening hours
+     * @throws InvalidOpeningHoursException otherwise
+     */
+    private static WeeklySchedule checkOpeningHours(WeeklySchedule openingHours) {
+        if (openingHours.encoded().length() > WeeklySchedule.MAX_LENGTH) {
+            throw new InvalidOpeningHoursException(openingHours);
+        }
+        return openingHours;
     }
 
     public Page<GarageDto> getGarages(Pageable pageable) {
-        return garageRepository.findAll(pageable).map(garageMapper::entity2dto);
+        return loadPage(garageRepository.findPageOfIds(pageable));
     }
 
     public Page<GarageDto> getGaragesHavingVehiclesWithFuelType(String vehicleFuelType, Pageable pageable) {
@@ -81,6 +329,140 @@ public class GarageService {
         if (fuelType == null) {
             return Page.empty(pageable);
         }
-        return garageRepository.findDistinctByVehicles_FuelTypeIgnoreCase(fuelType, pageable).map(garageMapper::entity2dto);
+        return getGaragesHavingVehiclesWithFuelTypes(Set.of(fuelType), 1, true, pageable);
+    }
+
+    /**
+     * Read the garages following a cursor with keyset pagination, without offset nor count query.
+     * @param order the sort of the listing, replaced by the one of the cursor when there is one
+     * @param cursor the position of the client, null to start from the beginning
+     * @param fuelType the fuel type of at least one vehicle of the garages, null for any garage
+     * @param size the maximum number of garages, capped to {@link #MAX_SCROLL_SIZE}
+     * @param withTotal true to also count the garages of the listing, from a cached count
+     * @return the garages and the cursor of the next ones
+     */
+    public GarageScrollDto scrollGarages(Sort.Order order, ScrollCursor cursor, FuelType fuelType, int size, boolean withTotal) {
+        if (cursor != null) {
+            order = new Sort.Order(cursor.direction(), cursor.property());
+        }
+        int pageSize = Math.clamp(size, 1, MAX_SCROLL_SIZE);
+        List<GarageRow> rows = garageRepository.findRowsAfter(order, cursor != null ? cursor.value() : null,
+                cursor != null ? cursor.id() : null, fuelType, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            GarageRow last = rows.getLast();
+            nextCursor = new ScrollCursor(order.getProperty(), order.getDirection(), sortValue(last, order.getProperty()), last.id()).encode();
+        }
+        Long total = null;
+        if (withTotal) {
+            total = fuelType == null ? garageRepository.countCached() : garageRepository.countCachedByVehicleFuelType(fuelType);
+        }
+        return new GarageScrollDto(rows.stream().map(garageMapper::row2dto).toList(), nextCursor, total);
+    }
+
+    private static String sortValue(GarageRow row, String property) {
+        return switch (property) {
+            case "name" -> row.name();
+            case "address" -> row.address();
+            case "telephone" -> row.telephone();
+            case "email" -> row.email();
+            default -> null;
+        };
+    }
+
+    /**
+     * Find the garages having at least {@code minCount} vehicles of the given fuel types, with an index lookup on the
+     * per fuel type counters of the garages.
+     * @param fuelTypes the fuel types of the vehicles
+     * @param minCount the minimum number of vehicles of a fuel type, at least 1
+     * @param all true if the garage must have {@code minCount} vehicles of every fuel type, false of any of them
+     * @return a page of garages
+     */
+    public Page<GarageDto> getGaragesHavingVehiclesWithFuelTypes(Set<FuelType> fuelTypes, int minCount, boolean all, Pageable pageable) {
+        if (fuelTypes.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        long requiredTypes = all ? fuelTypes.size() : 1;
+        return loadPage(garageRepository.findPageOfIdsByVehicleFuelTypes(fuelTypes, Math.max(minCount, 1), requiredTypes, pageable));
+    }
+
+    /**
+     * Find the garages open at a given time from the availability index, without reading their opening hours.
+     * @param at the day and time, in the time zone of the garages
+     * @param fuelType the fuel type of at least one vehicle of the garages, null for any garage
+     * @param pageable the pagination information, the garages being sorted by ID
+     * @return a page of garages
+     */
+    public Page<GarageDto> getOpenGarages(LocalDateTime at, FuelType fuelType, Pageable pageable) {
+        BitSet open = garageAvailabilityIndex.openAt(at);
+        if (fuelType != null) {
+            open.and(garageCounterCache.garagesWithFuelType(fuelType));
+        }
+        List<Long> ids = open.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .mapToObj(Long::valueOf)
+                .toList();
+        return loadPage(new PageImpl<>(ids, pageable, open.cardinality()));
+    }
+
+    /**
+     * Find the garages nearest to a point with the location index, then read them in a single projection query.
+     * The fuel type is checked in memory ({@link GarageCounterCache}); the remaining capacity, which changes with every
+     * vehicle, is read for the garages found only, more garages being searched while too few of them have room.
+     * @param latitude the latitude of the point in degrees
+     * @param longitude the longitude of the point in degrees
+     * @param radiusKm the maximum distance of the garages in kilometers
+     * @param fuelType the fuel type of at least one vehicle of the garages, null for any garage
+     * @param minRemainingCapacity the minimum number of vehicles the garages can still take, null for any garage;
+     *                             only the {@value #MAX_NEARBY_CANDIDATES} nearest garages are checked
+     * @param limit the maximum number of garages
+     * @return the garages, nearest first
+     */
+    public List<NearbyGarageDto> getNearbyGarages(double latitude, double longitude, double radiusKm, FuelType fuelType,
+                                                  Integer minRemainingCapacity, int limit) {
+        BitSet withFuelType = fuelType == null ? null : garageCounterCache.garagesWithFuelType(fuelType);
+        LongPredicate filter = withFuelType == null ? id -> true : id -> withFuelType.get(Math.toIntExact(id));
+        List<GarageLocationIndex.Hit> hits;
+        int candidates = limit;
+        while (true) {
+            hits = garageLocationIndex.nearest(latitude, longitude, radiusKm, candidates, filter);
+            if (minRemainingCapacity == null || hits.isEmpty()) {
+                break;
+            }
+            boolean allFound = hits.size() < candidates || candidates >= MAX_NEARBY_CANDIDATES;
+            Set<Long> withRoom = new HashSet<>(garageOccupancyRepository.findGarageIdsByVehicleCountAtMost(
+                    hits.stream().map(GarageLocationIndex.Hit::garageId).toList(), maxVehiclesPerGarage - minRemainingCapacity));
+            hits = hits.stream().filter(hit -> withRoom.contains(hit.garageId())).limit(limit).toList();
+            if (hits.size() == limit || allFound) {
+                break;
+            }
+            candidates = Math.min(candidates * 4, MAX_NEARBY_CANDIDATES);
+        }
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, GarageDto> garagesById = garageRepository.findRowsByIdIn(hits.stream().map(GarageLocationIndex.Hit::garageId).toList())
+                .stream()
+                .collect(Collectors.toMap(GarageRow::id, garageMapper::row2dto));
+        // a garage deleted since the search is left out
+        return hits.stream()
+                .filter(hit -> garagesById.containsKey(hit.garageId()))
+                .map(hit -> new NearbyGarageDto(garagesById.get(hit.garageId()), hit.distanceKm()))
+                .toList();
+    }
+
+    /**
+     * Load the garages of a page of ids together with their opening hours in a single projection query,
+     * so the cost of a page does not depend on its size.
+     */
+    private Page<GarageDto> loadPage(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return ids.map(id -> null);
+        }
+        Map<Long, GarageDto> garagesById = garageRepository.findRowsByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(GarageRow::id, garageMapper::row2dto));
+        return ids.map(garagesById::get);
     }
 }
@@ -0,0 +1,77 @@
+package com.renault.garage.service;
+
+import com.renault.garage.exception.StaleVersionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retry policy of the updates made without an expected version: when a concurrent writer committed first,
+ * the update is replayed in a new transaction on the fresh state instead of failing.
+ * <p>
+ * Conditional updates ({@link StaleVersionException}) are never retried, the caller has to decide on the new state.
+ */
+@Component
+@Slf4j
+public class OptimisticLockRetry {
+
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Counter retries;
+
+    public OptimisticLockRetry(@Value("${garage.optimistic-lock.max-attempts:3}") int maxAttempts,
+                               @Value("${garage.optimistic-lock.backoff:20ms}") Duration backoff,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.retries = Counter.builder("garage.optimistic-lock.retries")
+                .description("Updates replayed after a concurrent modification")
+                .register(meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Run an update, replaying it while it fails on a concurrent modification, at most {@code maxAttempts} times.
+     * The update must open its own transaction: inside an existing one it is run only once.
+     * @param update the update, a call to a transactional service
+     * @return the result of the update
+     * @throws OptimisticLockingFailureException if the last attempt still failed
+     */
+    public <T> T execute(Supplier<T> update) {
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (!retryable || e instanceof StaleVersionException || attempt >= maxAttempts) {
+                    throw e;
+                }
+                retries.increment();
+                log.debug("Concurrent modification, update replayed (attempt {}/{}): {}", attempt + 1, maxAttempts, e.getMessage());
+                pause(attempt);
+            }
+        }
+    }
+
+    /**
+     * Wait a random time, growing with the attempt, so that the concurrent writers do not collide again.
+     */
+    private void pause(int attempt) {
+        long millis = ThreadLocalRandom.current().nextLong(backoff.toMillis() * attempt + 1);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to replay the update", e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.renault.garage.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renault.garage.consumer.OutboxSink;
+import com.renault.garage.dao.entity.OutboxEvent;
+import com.renault.garage.dao.repository.OutboxEventRepository;
+import com.renault.garage.dao.repository.OutboxPositionRepository;
+import com.renault.garage.dto.OutboxEventDto;
+import com.renault.garage.event.ChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transactional outbox: the {@link ChangeEvent}s are written to the outbox table by the transaction that made the change,
+ * then relayed in batches to the {@link OutboxSink}s by a polling relay. Each relayed event gets a position,
+ * so that downstream systems can read the changes incrementally and replay them. Positions are taken from the
+ * {@link com.renault.garage.dao.entity.OutboxPosition} row, so they keep increasing after the relayed events are deleted.
+ */
+@Service
+@Slf4j
+public class OutboxService {
+
+    static final int MAX_READ_SIZE = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxPositionRepository outboxPositionRepository;
+    private final List<OutboxSink> sinks;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+    private final ReentrantLock relayLock = new ReentrantLock();
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, OutboxPositionRepository outboxPositionRepository, List<OutboxSink> sinks, ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${garage.outbox.batch-size:500}") int batchSize,
+                         @Value("${garage.outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxPositionRepository = outboxPositionRepository;
+        this.sinks = sinks;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Write the event to the outbox, in the transaction that published it.
+     * @param event the change event
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangeEvent event) {
+        String payload;
+        try {
+            payload = event.payload() == null ? null : objectMapper.writeValueAsString(event.payload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event, e);
+        }
+        outboxEventRepository.save(new OutboxEvent(event.aggregateType(), event.aggregateId(), event.type().name(), payload, Instant.now()));
+    }
+
+    /**
+     * Relay the pending events to the sinks, batch by batch, each batch in its own transaction.
+     * A batch refused by a sink stays pending and is relayed again at the next poll.
+     * @return the number of events relayed
+     */
+    @Scheduled(fixedDelayString = "${garage.outbox.poll-interval:1s}")
+    public int relayPending() {
+        int total = 0;
+        // A lock rather than synchronized: a virtual thread waiting on the database inside a monitor pins its carrier
+        relayLock.lock();
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+                total += relayed == null ? 0 : relayed;
+            } while (relayed != null && relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed after {} event(s), retrying at the next poll", total, e);
+        } finally {
+            relayLock.unlock();
+        }
+        return total;
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> pending = outboxEventRepository.findPending(Limit.of(batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        if (outboxPositionRepository.advance(pending.size()) != 1) {
+            throw new IllegalStateException("Missing outbox position row");
+        }
+        long position = outboxPositionRepository.findLastPosition() - pending.size();
+        Instant now = Instant.now();
+        List<OutboxEventDto> events = new ArrayList<>(pending.size());
+        for (OutboxEvent event : pending) {
+            event.setPosition(++position);
+            event.setPublishedAt(now);
+            events.add(toDto(event));
+        }
+        outboxEventRepository.flush();
+        sinks.forEach(sink -> sink.publish(events));
+        return pending.size();
+    }
+
+    /**
+     * Read the relayed events after the given position.
+     * @param afterPosition the position of the last event already read (exclusive), 0 to start from the oldest one kept
+     * @param limit the maximum number of events, capped to {@link #MAX_READ_SIZE}
+     * @return the events, ordered by position
+     */
+    @Transactional(readOnly = true)
+    public List<OutboxEventDto> getRelayedAfter(long afterPosition, int limit) {
+        return outboxEventRepository.findRelayedAfter(afterPosition, Limit.of(Math.clamp(limit, 1, MAX_READ_SIZE)))
+                .stream().map(this::toDto).toList();
+    }
+
+    /**
+     * Delete the events relayed for longer than the retention period.
+     * @return the number of events deleted
+     */
+    @Scheduled(cron = "${garage.outbox.cleanup-cron:0 0 3 * * *}")
+    @Transactional
+    public int deleteExpired() {
+        return outboxEventRepository.deleteRelayedBefore(Instant.now().minus(retention));
+    }
+
+    private OutboxEventDto toDto(OutboxEvent event) {
+        return new OutboxEventDto(event.getPosition(), event.getAggregateType(), event.getAggregateId(), event.getType(),
+                event.getPayload(), event.getCreatedAt());
+    }
+}
@@ -0,0 +1,311 @@
+package com.renault.garage.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renault.garage.dao.entity.Garage;
+import com.renault.garage.dao.entity.GarageOccupancy;
+import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.repository.GarageFuelTypeCountRepository;
+import com.renault.garage.dao.repository.GarageOccupancyRepository;
+import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.dto.CreateVehicleDto;
+import com.renault.garage.dto.ImportVehicleDto;
+import com.renault.garage.dto.VehicleImportReportDto;
+import com.renault.garage.dto.VehicleImportRowDto;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.VehicleChangedEvent;
+import com.renault.garage.event.VehicleCreatedEvent;
+import com.renault.garage.mapper.VehicleMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk import of vehicles. The document is read as a stream and imported by chunks of {@value #CHUNK_SIZE} rows,
+ * each chunk in its own transaction: the capacity of a garage is reserved once per chunk
+ * and the vehicles are inserted with JDBC batching.
+ */
+@Service
+public class VehicleImportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    static final String CSV_COLUMNS = "garageId,brand,yearOfManufacture,fuelType";
+
+    private final ApplicationEventPublisher publisher;
+    private final GarageRepository garageRepository;
+    private final GarageOccupancyRepository garageOccupancyRepository;
+    private final GarageFuelTypeCountRepository garageFuelTypeCountRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final VehicleMapper vehicleMapper = VehicleMapper.INSTANCE;
+
+    private int maxVehiclesPerGarage;
+
+    public VehicleImportService(ApplicationEventPublisher publisher, GarageRepository garageRepository,
+                                GarageOccupancyRepository garageOccupancyRepository,
+                                GarageFuelTypeCountRepository garageFuelTypeCountRepository, EntityManager entityManager,
+                                PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.publisher = publisher;
+        this.garageRepository = garageRepository;
+        this.garageOccupancyRepository = garageOccupancyRepository;
+        this.garageFuelTypeCountRepository = garageFuelTypeCountRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+    }
+
+    @Autowired
+    public void setMaxVehiclesPerGarage(@Value("${garage.vehicle.max-per-garage:5}") int maxVehiclesPerGarage) {
+        this.maxVehiclesPerGarage = maxVehiclesPerGarage;
+    }
+
+    /**
+     * Import a JSON array of {@link ImportVehicleDto}.
+     * @param in the JSON document
+     * @return the import report
+     * @throws IllegalArgumentException if the document is not a JSON array
+     */
+    public VehicleImportReportDto importJson(InputStream in) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Le document doit être un tableau JSON de véhicules");
+            }
+            return importRows(new JsonRowReader(parser));
+        }
+    }
+
+    /**
+     * Import a CSV document with the columns {@value #CSV_COLUMNS}. The header line is optional.
+     * @param in the CSV document, encoded in UTF-8
+     * @return the import report
+     */
+    public VehicleImportReportDto importCsv(InputStream in) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return importRows(new CsvRowReader(reader));
+        }
+    }
+
+    private VehicleImportReportDto importRows(RowReader reader) {
+        List<VehicleImportRowDto> results = new ArrayList<>();
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        try {
+            ImportRow row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    results.addAll(importChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // The rest of the document cannot be read: the rows already read are still imported
+            chunk.add(new ImportRow(results.size() + chunk.size() + 1, null, "Document illisible à partir de cette ligne : " + e.getMessage()));
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk));
+        }
+        int imported = (int) results.stream().filter(r -> r.status() == VehicleImportRowDto.Status.IMPORTED).count();
+        return new VehicleImportReportDto(results.size(), imported, results.size() - imported, results);
+    }
+
+    private List<VehicleImportRowDto> importChunk(List<ImportRow> rows) {
+        VehicleImportRowDto[] results = new VehicleImportRowDto[rows.size()];
+        Map<Long, List<Integer>> rowsByGarage = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            String error = row.error() != null ? row.error() : validate(row.vehicle());
+            if (error != null) {
+                results[i] = VehicleImportRowDto.rejected(row.row(), error);
+            } else {
+                rowsByGarage.computeIfAbsent(row.vehicle().garageId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        if (rowsByGarage.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        List<Long> createdIds = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rowsByGarage.forEach((garageId, indexes) -> {
+                    int reserved = reserveGarageCapacity(garageId, indexes.size());
+                    Garage garage = reserved > 0 ? garageRepository.getReferenceById(garageId) : null;
+                    Map<Vehicle.FuelType, Integer> countByFuelType = new EnumMap<>(Vehicle.FuelType.class);
+                    for (int k = 0; k < indexes.size(); k++) {
+                        int i = indexes.get(k);
+                        int rowNumber = rows.get(i).row();
+                        if (reserved < 0) {
+                            results[i] = VehicleImportRowDto.rejected(rowNumber, "Garage introuvable id=" + garageId);
+                        } else if (k >= reserved) {
+                            results[i] = VehicleImportRowDto.rejected(rowNumber, "Capacité maximale de " + maxVehiclesPerGarage + " véhicules atteinte pour le garage id=" + garageId);
+                        } else {
+                            Vehicle vehicle = toEntity(rows.get(i).vehicle());
+                            vehicle.addGarage(garage);
+                            entityManager.persist(vehicle);
+                            if (vehicle.getFuelType() != null) {
+                                countByFuelType.merge(vehicle.getFuelType(), 1, Integer::sum);
+                            }
+                            publisher.publishEvent(new VehicleChangedEvent(ChangeType.CREATED, vehicle.getId(), null, vehicleMapper.entity2dto(vehicle)));
+                            createdIds.add(vehicle.getId());
+                            results[i] = VehicleImportRowDto.imported(rowNumber, vehicle.getId());
+                        }
+                    }
+                    countByFuelType.forEach((fuelType, count) -> garageFuelTypeCountRepository.add(garageId, fuelType, count));
+                });
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            createdIds.clear();
+            rowsByGarage.values().forEach(indexes -> indexes.forEach(i ->
+                    results[i] = VehicleImportRowDto.rejected(rows.get(i).row(), "Lot annulé : " + e.getMessage())));
+        }
+        createdIds.forEach(id -> publisher.publishEvent(new VehicleCreatedEvent(id)));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Reserve up to {@code requested} places in the garage with the occupancy counter, as many as it has left.
+     * @return the number of places reserved, -1 if the garage does not exist
+     */
+    private int reserveGarageCapacity(Long garageId, int requested) {
+        int count = requested;
+        while (count > 0 && garageOccupancyRepository.reserve(garageId, count, maxVehiclesPerGarage) == 0) {
+            Optional<GarageOccupancy> occupancy = garageOccupancyRepository.findById(garageId);
+            if (occupancy.isEmpty()) {
+                return -1;
+            }
+            count = Math.min(count - 1, maxVehiclesPerGarage - occupancy.get().getVehicleCount());
+        }
+        return Math.max(count, 0);
+    }
+
+    private static String validate(ImportVehicleDto vehicle) {
+        if (vehicle.garageId() == null) {
+            return "Identifiant du garage manquant";
+        }
+        if (vehicle.brand() == null || vehicle.brand().isBlank()) {
+            return "Marque manquante";
+        }
+        if (vehicle.yearOfManufacture() == null) {
+            return "Année de fabrication manquante";
+        }
+        if (Vehicle.FuelType.fromString(vehicle.fuelType()) == null) {
+            return "Carburant inconnu : " + vehicle.fuelType();
+        }
+        return null;
+    }
+
+    private Vehicle toEntity(ImportVehicleDto vehicle) {
+        return vehicleMapper.dto2entity(new CreateVehicleDto(vehicle.brand(), vehicle.yearOfManufacture(),
+                Vehicle.FuelType.fromString(vehicle.fuelType())));
+    }
+
+    /**
+     * Row read from the imported document: either a vehicle or the reason why it could not be read.
+     */
+    private record ImportRow(int row, ImportVehicleDto vehicle, String error) {
+    }
+
+    private interface RowReader {
+        /**
+         * @return the next row, null at the end of the document
+         */
+        ImportRow next() throws IOException;
+    }
+
+    private class JsonRowReader implements RowReader {
+
+        private final JsonParser parser;
+        private int row;
+
+        JsonRowReader(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            row++;
+            JsonNode node = parser.readValueAsTree();
+            try {
+                return new ImportRow(row, objectMapper.treeToValue(node, ImportVehicleDto.class), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(row, null, "Véhicule invalide : " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static class CsvRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private boolean firstLine = true;
+        private int row;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (firstLine) {
+                    firstLine = false;
+                    if (line.trim().toLowerCase().startsWith("garageid")) {
+                        continue;
+                    }
+                }
+                row++;
+                return parse(line);
+            }
+            return null;
+        }
+
+        private ImportRow parse(String line) {
+            String[] columns = line.split(",", -1);
+            if (columns.length != 4) {
+                return new ImportRow(row, null, "4 colonnes attendues : " + CSV_COLUMNS);
+            }
+            try {
+                Long garageId = columns[0].isBlank() ? null : Long.valueOf(columns[0].trim());
+                Integer year = columns[2].isBlank() ? null : Integer.valueOf(columns[2].trim());
+                return new ImportRow(row, new ImportVehicleDto(garageId, columns[1].trim(), year, columns[3].trim()), null);
+            } catch (NumberFormatException e) {
+                return new ImportRow(row, null, "Nombre invalide : " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,43 +1,76 @@
 package com.renault.garage.service;
 
-import com.renault.garage.dao.entity.Garage;
 import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.projection.AccessoryVehicle;
+import com.renault.garage.dao.repository.GarageFuelTypeCountRepository;
+import com.renault.garage.dao.repository.GarageOccupancyRepository;
 import com.renault.garage.dao.repository.GarageRepository;
 import com.renault.garage.dao.repository.VehicleRepository;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateVehicleDto;
 import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.dto.VehiclePageDto;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.VehicleChangedEvent;
 import com.renault.garage.event.VehicleCreatedEvent;
 import com.renault.garage.exception.GarageCapacityExceededException;
+import com.renault.garage.exception.StaleVersionException;
 import com.renault.garage.mapper.VehicleMapper;
+import com.renault.garage.search.AccessorySearchIndex;
 import jakarta.persistence.EntityNotFoundException;
-import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class VehicleService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Maximum number of accessories read from the search index: the vehicles beyond are not reachable by pagination.
+     */
+    static final int MAX_SEARCH_HITS = 1000;
+
     private final ApplicationEventPublisher publisher;
 
     private final VehicleRepository vehicleRepository;
     private final GarageRepository garageRepository;
+    private final GarageOccupancyRepository garageOccupancyRepository;
+    private final GarageFuelTypeCountRepository garageFuelTypeCountRepository;
+    private final AccessorySearchIndex accessorySearchIndex;
+    private final BatchLoader batchLoader;
 
     private final VehicleMapper vehicleMapper = VehicleMapper.INSTANCE;
 
     private int maxVehiclesPerGarage;
 
     public VehicleService(ApplicationEventPublisher publisher, VehicleRepository vehicleRepository,
-                          GarageRepository garageRepository) {
+                          GarageRepository garageRepository, GarageOccupancyRepository garageOccupancyRepository,
+                          GarageFuelTypeCountRepository garageFuelTypeCountRepository, AccessorySearchIndex accessorySearchIndex,
+                          BatchLoader batchLoader) {
         this.publisher = publisher;
         this.vehicleRepository = vehicleRepository;
         this.garageRepository = garageRepository;
+        this.garageOccupancyRepository = garageOccupancyRepository;
+        this.garageFuelTypeCountRepository = garageFuelTypeCountRepository;
+        this.accessorySearchIndex = accessorySearchIndex;
+        this.batchLoader = batchLoader;
     }
 
     @Autowired
@@ -49,83 +82,220 @@ public class VehicleService {
         if (dto == null) {
             return null;
         }
-        Garage garage = garageRepository.findById(garageId)
-                .orElseThrow(() -> new EntityNotFoundException("Garage not found with id=" + garageId));
-        assertGarageCapacityNotExceeded(garage);
+        reserveGarageCapacity(garageId);
 
         Vehicle vehicleEntity = vehicleMapper.dto2entity(dto);
-
-        garage.addVehicle(vehicleEntity);
-        vehicleEntity.addGarage(garage);
+        vehicleEntity.addGarage(garageRepository.getReferenceById(garageId));
 
         Vehicle newVehicle = vehicleRepository.save(vehicleEntity);
+        if (newVehicle.getFuelType() != null) {
+            garageFuelTypeCountRepository.add(garageId, newVehicle.getFuelType(), 1);
+        }
+        VehicleDto created = vehicleMapper.entity2dto(newVehicle);
+        publisher.publishEvent(new VehicleChangedEvent(ChangeType.CREATED, created.id(), null, created));
         publisher.publishEvent(new VehicleCreatedEvent(newVehicle.getId()));
-        return vehicleMapper.entity2dto(newVehicle);
+        return created;
     }
 
     public VehicleDto update(long vehicleId, CreateVehicleDto dto) {
+        VersionedDto<VehicleDto> updated = update(vehicleId, dto, null);
+        return updated == null ? null : updated.body();
+    }
+
+    /**
+     * Update a vehicle if it is still at the version the changes are based on. The changes are written before the
+     * commit, so that the new version is known and returned with the vehicle.
+     * @param expectedVersion the expected version of the vehicle, null to update whatever its version
+     * @return the updated vehicle with its new version, null if it does not exist
+     * @throws StaleVersionException if the vehicle is no longer at the expected version
+     */
+    public VersionedDto<VehicleDto> update(long vehicleId, CreateVehicleDto dto, Long expectedVersion) {
         if (dto == null) return null;
         Optional<Vehicle> opt = vehicleRepository.findById(vehicleId);
         if (opt.isEmpty()) return null;
         Vehicle vehicleEntity = opt.get();
+        if (expectedVersion != null && expectedVersion != vehicleEntity.getVersion()) {
+            throw new StaleVersionException("Vehicle", vehicleId, expectedVersion);
+        }
+        Vehicle.FuelType previousFuelType = vehicleEntity.getFuelType();
         vehicleMapper.updateEntityFromDto(dto, vehicleEntity);
-        return vehicleMapper.entity2dto(vehicleRepository.save(vehicleEntity));
+        if (previousFuelType != vehicleEntity.getFuelType()) {
+            moveFuelTypeCount(vehicleId, previousFuelType, vehicleEntity.getFuelType());
+        }
+        Vehicle saved = vehicleRepository.saveAndFlush(vehicleEntity);
+        VehicleDto updated = vehicleMapper.entity2dto(saved);
+        publisher.publishEvent(new VehicleChangedEvent(ChangeType.UPDATED, updated.id(), previousFuelType, updated));
+        return VersionedDto.of(updated, saved.getVersion());
     }
 
     public boolean delete(Long vehicleId) {
-        if (vehicleId == null || !vehicleRepository.existsById(vehicleId)) return false;
-        vehicleRepository.deleteById(vehicleId);
+        if (vehicleId == null) return false;
+        Optional<Vehicle> vehicle = vehicleRepository.findById(vehicleId);
+        if (vehicle.isEmpty()) return false;
+        garageOccupancyRepository.releaseVehicle(vehicleId);
+        moveFuelTypeCount(vehicleId, vehicle.get().getFuelType(), null);
+        vehicleRepository.delete(vehicle.get());
+        publisher.publishEvent(new VehicleChangedEvent(ChangeType.DELETED, vehicleId, vehicle.get().getFuelType(), null));
         return true;
     }
 
     @Transactional(readOnly = true)
     public VehicleDto get(Long vehicleId) {
-        return vehicleRepository.findById(vehicleId).map(vehicleMapper::entity2dto).orElse(null);
+        return vehicleRepository.findDtoById(vehicleId).orElse(null);
     }
 
+    /**
+     * Read a vehicle with its version. Both queries read the same snapshot, so the version is the one of the vehicle
+     * returned even if a change is committed between them.
+     * @return the vehicle and its version, null if it does not exist
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public VersionedDto<VehicleDto> getVersioned(long vehicleId) {
+        Optional<Long> version = vehicleRepository.findVersionById(vehicleId);
+        if (version.isEmpty()) {
+            return null;
+        }
+        return vehicleRepository.findDtoById(vehicleId)
+                .map(vehicle -> VersionedDto.of(vehicle, version.get()))
+                .orElse(null);
+    }
+
+    /**
+     * Read vehicles by ids with chunked {@code IN} queries.
+     * @param ids the vehicle IDs
+     * @return the vehicles found in the order of the ids, and the ids matching no vehicle
+     */
+    @Transactional(readOnly = true)
+    public BatchGetResultDto<VehicleDto> getByIds(List<Long> ids) {
+        return batchLoader.load(ids, vehicleRepository::findDtosByIdIn, VehicleDto::id, Function.identity());
+    }
+
+    /**
+     * @return the version of the vehicle, null if it does not exist
+     */
     @Transactional(readOnly = true)
-    public List<VehicleDto> getAll() {
-        return vehicleRepository.findAll().stream().map(vehicleMapper::entity2dto).toList();
+    public Long getVersion(long vehicleId) {
+        return vehicleRepository.findVersionById(vehicleId).orElse(null);
+    }
+
+    /**
+     * Read a page of vehicles using keyset pagination on the vehicle id.
+     * @param afterId the id of the last vehicle already read (exclusive), null to start from the beginning
+     * @param size the page size, capped to {@link #MAX_PAGE_SIZE}
+     * @return the page and the cursor of the next one
+     */
+    @Transactional(readOnly = true)
+    public VehiclePageDto getPage(Long afterId, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        List<VehicleDto> vehicles = vehicleRepository.findNextPage(afterId == null ? 0L : afterId, Limit.of(pageSize + 1));
+        if (vehicles.size() <= pageSize) {
+            return new VehiclePageDto(vehicles, null);
+        }
+        List<VehicleDto> content = vehicles.subList(0, pageSize);
+        return new VehiclePageDto(content, content.getLast().id());
+    }
+
+    /**
+     * Push every vehicle to the given consumer, ordered by id, without materializing the whole table:
+     * the rows are read from a cursor directly into DTOs, no entity is kept in the persistence context.
+     * @param consumer the consumer receiving the vehicles one by one
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<VehicleDto> consumer) {
+        try (Stream<VehicleDto> vehicles = vehicleRepository.streamAll()) {
+            vehicles.forEach(consumer);
+        }
     }
 
     @Transactional(readOnly = true)
     public List<VehicleDto> getByGarage(Long garageId) {
-        return vehicleRepository.findByGarageId(garageId).stream().map(vehicleMapper::entity2dto).toList();
+        return vehicleRepository.findByGarageId(garageId);
     }
 
     @Transactional(readOnly = true)
     public List<VehicleDto> getByBrand(String brand) {
-        return vehicleRepository.findByBrandIs(brand).stream().map(vehicleMapper::entity2dto).toList();
+        return vehicleRepository.findByBrandIs(brand);
     }
 
+    /**
+     * Find the vehicles having an accessory whose name or description matches a text, with the accessory search index.
+     * @param accessoryName the searched text
+     * @param page the page index
+     * @param size the page size, capped to {@link #MAX_PAGE_SIZE}
+     * @return the page of vehicles, ranked by their most relevant accessory
+     */
     @Transactional(readOnly = true)
-    public List<VehicleDto> getByAccessory(String accessoryName) {
-        return vehicleRepository.findByAccessoryName(accessoryName).stream().map(vehicleMapper::entity2dto).toList();
+    public List<VehicleDto> getByAccessory(String accessoryName, int page, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        List<AccessorySearchIndex.Hit> hits = accessorySearchIndex.search(accessoryName, MAX_SEARCH_HITS);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<Long>> vehicleIdsByAccessory = vehicleRepository
+                .findByAccessoryIdIn(hits.stream().map(AccessorySearchIndex.Hit::accessoryId).toList()).stream()
+                .collect(Collectors.groupingBy(AccessoryVehicle::accessoryId,
+                        Collectors.mapping(AccessoryVehicle::vehicleId, Collectors.toList())));
+        LinkedHashSet<Long> rankedVehicleIds = new LinkedHashSet<>();
+        hits.forEach(hit -> rankedVehicleIds.addAll(vehicleIdsByAccessory.getOrDefault(hit.accessoryId(), List.of())));
+
+        List<Long> pageIds = rankedVehicleIds.stream().skip((long) Math.max(page, 0) * pageSize).limit(pageSize).toList();
+        if (pageIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, VehicleDto> vehicles = vehicleRepository.findDtosByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(VehicleDto::id, Function.identity()));
+        return pageIds.stream().map(vehicles::get).toList();
     }
 
     public List<VehicleDto> linkVehicleToGarage(Long garageId, Long vehicleId) throws GarageCapacityExceededException {
-        Garage garage = garageRepository.findById(garageId)
-                .orElseThrow(() -> new EntityNotFoundException("Garage not found with id=" + garageId));
+        if (!garageRepository.existsById(garageId)) {
+            throw new EntityNotFoundException("Garage not found with id=" + garageId);
+        }
         Vehicle vehicle = vehicleRepository.findById(vehicleId)
                 .orElseThrow(() -> new EntityNotFoundException("Vehicle not found with id=" + vehicleId));
 
-        if (garage.getVehicles() != null && garage.getVehicles().stream().anyMatch(v -> v.getId().equals(vehicleId))) {
+        if (vehicleRepository.isLinkedToGarage(vehicleId, garageId)) {
             return getByGarage(garageId);
         }
 
-        assertGarageCapacityNotExceeded(garage);
+        reserveGarageCapacity(garageId);
 
-        garage.addVehicle(vehicle);
-        vehicle.addGarage(garage);
+        vehicle.addGarage(garageRepository.getReferenceById(garageId));
+        if (vehicle.getFuelType() != null) {
+            garageFuelTypeCountRepository.add(garageId, vehicle.getFuelType(), 1);
+        }
 
-        vehicleRepository.save(vehicle);
+        Vehicle linked = vehicleRepository.save(vehicle);
+        publisher.publishEvent(new VehicleChangedEvent(ChangeType.UPDATED, vehicleId, null, vehicleMapper.entity2dto(linked)));
         return getByGarage(garageId);
     }
 
-    private void assertGarageCapacityNotExceeded(Garage garage) throws GarageCapacityExceededException {
-        int currentSize = CollectionUtils.size(garage.getVehicles());
-        if (currentSize >= maxVehiclesPerGarage) {
-            throw new GarageCapacityExceededException("Capacité maximale de " + maxVehiclesPerGarage + " véhicules atteinte pour le garage id=" + garage.getId());
+    /**
+     * Move a vehicle from one fuel type to another in the counters of the garages it is linked to.
+     * Must be called while the vehicle is still linked to its garages.
+     * @param from the fuel type the vehicle was counted for, null if it was not counted
+     * @param to the fuel type to count the vehicle for, null to stop counting it
+     */
+    private void moveFuelTypeCount(long vehicleId, Vehicle.FuelType from, Vehicle.FuelType to) {
+        if (from != null) {
+            garageFuelTypeCountRepository.addVehicle(vehicleId, from, -1);
+        }
+        if (to != null) {
+            garageFuelTypeCountRepository.addVehicle(vehicleId, to, 1);
+        }
+    }
+
+    /**
+     * Take a place in the garage through a single conditional update of its occupancy counter,
+     * so the check is O(1) and stays correct when several vehicles are added to the garage in parallel.
+     */
+    private void reserveGarageCapacity(Long garageId) throws GarageCapacityExceededException {
+        if (garageOccupancyRepository.reserve(garageId, 1, maxVehiclesPerGarage) == 1) {
+            return;
+        }
+        if (!garageRepository.existsById(garageId)) {
+            throw new EntityNotFoundException("Garage not found with id=" + garageId);
         }
+        throw new GarageCapacityExceededException("Capacité maximale de " + maxVehiclesPerGarage + " véhicules atteinte pour le garage id=" + garageId);
     }
 }
@@ -1,47 +1,48 @@
--- Initialisation des données : 10 accessories, 7 vehicles, 5 garages
--- Attention : les noms de tables et colonnes supposent la stratégie de nommage Spring (snake_case)
--- Si les tables diffèrent, vérifier dans la console H2 et adapter.
+-- Initialisation des données : 10 accessories, 13 vehicles, 5 garages
+-- Versions à 0, celle qu'a une entité juste créée par l'application.
+-- Données de démonstration, appliquées par Flyway juste après le schéma initial (V1) ;
+-- les environnements dont spring.flyway.locations n'inclut pas db/demo démarrent sans données.
 
 SET REFERENTIAL_INTEGRITY FALSE;
 
 -- GARAGES
-INSERT INTO garage (id, name, address, telephone, email) VALUES (1,'Garage Centre Ville','12 Rue Centrale','0102030405','contact1@garage.local');
-INSERT INTO garage (id, name, address, telephone, email) VALUES (2,'Garage Nord','5 Avenue du Nord','0102030406','contact2@garage.local');
-INSERT INTO garage (id, name, address, telephone, email) VALUES (3,'Garage Sud','48 Route du Sud','0102030407','contact3@garage.local');
-INSERT INTO garage (id, name, address, telephone, email) VALUES (4,'Garage Ouest','7 Boulevard Ouest','0102030408','contact4@garage.local');
-INSERT INTO garage (id, name, address, telephone, email) VALUES (5,'Garage Est','99 Chemin de l''Est','0102030409','contact5@garage.local');
+INSERT INTO garage (id, version, name, address, telephone, email) VALUES (1,0,'Garage Centre Ville','12 Rue Centrale','0102030405','contact1@garage.local');
+INSERT INTO garage (id, version, name, address, telephone, email) VALUES (2,0,'Garage Nord','5 Avenue du Nord','0102030406','contact2@garage.local');
+INSERT INTO garage (id, version, name, address, telephone, email) VALUES (3,0,'Garage Sud','48 Route du Sud','0102030407','contact3@garage.local');
+INSERT INTO garage (id, version, name, address, telephone, email) VALUES (4,0,'Garage Ouest','7 Boulevard Ouest','0102030408','contact4@garage.local');
+INSERT INTO garage (id, version, name, address, telephone, email) VALUES (5,0,'Garage Est','99 Chemin de l''Est','0102030409','contact5@garage.local');
 
 -- VEHICLES
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (1,'Renault Clio',2022,'GASOLINE');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (2,'Renault Megane',2023,'DIESEL');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (3,'Renault Zoe',2024,'ELECTRIC');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (4,'Renault Austral',2023,'HYBRID');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (5,'Renault Kangoo',2021,'DIESEL');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (6,'Renault Scenic',2020,'GASOLINE');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (7,'Renault Master',2022,'DIESEL');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (8,'Renault Twingo',2024,'ELECTRIC');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (9,'Renault Captur',2023,'HYBRID');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (10,'Renault Arkana',2022,'GASOLINE');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (11,'Renault Espace',2021,'DIESEL');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (12,'Renault Koleos',2023,'HYBRID');
-INSERT INTO vehicle (id, brand, year_of_manufacture, fuel_type) VALUES (13,'Renault Koleos',2024,'DIESEL');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (1,0,'Renault Clio',2022,'GASOLINE');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (2,0,'Renault Megane',2023,'DIESEL');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (3,0,'Renault Zoe',2024,'ELECTRIC');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (4,0,'Renault Austral',2023,'HYBRID');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (5,0,'Renault Kangoo',2021,'DIESEL');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (6,0,'Renault Scenic',2020,'GASOLINE');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (7,0,'Renault Master',2022,'DIESEL');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (8,0,'Renault Twingo',2024,'ELECTRIC');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (9,0,'Renault Captur',2023,'HYBRID');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (10,0,'Renault Arkana',2022,'GASOLINE');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (11,0,'Renault Espace',2021,'DIESEL');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (12,0,'Renault Koleos',2023,'HYBRID');
+INSERT INTO vehicle (id, version, brand, year_of_manufacture, fuel_type) VALUES (13,0,'Renault Koleos',2024,'DIESEL');
 
 -- ACCESSORIES
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 1,'GPS','Système navigation intégré',299.90,'ELECTRONIC');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 2,'Caméra recul','Caméra haute définition',180.00,'ELECTRONIC');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 3,'Attelage','Attelage remorque renforcé',420.00,'MECHANIC');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 4,'Tapis caoutchouc','Tapis résistants',59.99,'CONFORT');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 5,'Chargeur rapide','Chargeur véhicule électrique',650.00,'ELECTRIC');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 6,'Barres de toit','Aluminium universel',210.00,'EXTERIOR');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 7,'Pack LED','Éclairage intérieur LED',130.00,'ELECTRIC');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 8,'Filet coffre','Organisation espace arrière',45.00,'CONFORT');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 9,'Alarm Plus','Système alarme avancé',360.00,'SECURITY');
-INSERT INTO accessory (id, name, description, price, type) VALUES ( 10,'Siège enfant','Homologué ISOFIX',250.00,'SAFETY');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 1,0,'GPS','Système navigation intégré',299.90,'ELECTRONIC');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 2,0,'Caméra recul','Caméra haute définition',180.00,'ELECTRONIC');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 3,0,'Attelage','Attelage remorque renforcé',420.00,'MECHANIC');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 4,0,'Tapis caoutchouc','Tapis résistants',59.99,'CONFORT');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 5,0,'Chargeur rapide','Chargeur véhicule électrique',650.00,'ELECTRIC');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 6,0,'Barres de toit','Aluminium universel',210.00,'EXTERIOR');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 7,0,'Pack LED','Éclairage intérieur LED',130.00,'ELECTRIC');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 8,0,'Filet coffre','Organisation espace arrière',45.00,'CONFORT');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 9,0,'Alarm Plus','Système alarme avancé',360.00,'SECURITY');
+INSERT INTO accessory (id, version, name, description, price, type) VALUES ( 10,0,'Siège enfant','Homologué ISOFIX',250.00,'SAFETY');
 
 
 
 -- TABLES DE JOINTURE
--- Hypothèse 1 : ManyToMany Garage <-> Vehicle => table garage_vehicle (garage_id, vehicles_id)
+-- Hypothèse 1 : ManyToMany Garage <-> Vehicle => table vehicle_garages (vehicle_id, garage_id)
 INSERT INTO vehicle_garages (garage_id, vehicle_id) VALUES (1,1);
 INSERT INTO vehicle_garages (garage_id, vehicle_id) VALUES (1,2);
 INSERT INTO vehicle_garages (garage_id, vehicle_id) VALUES (1,3);
@@ -55,7 +56,11 @@ INSERT INTO vehicle_garages (garage_id, vehicle_id) VALUES (5,10);
 INSERT INTO vehicle_garages (garage_id, vehicle_id) VALUES (5,11);
 INSERT INTO vehicle_garages (garage_id, vehicle_id) VALUES (5,12);
 
--- Hypothèse 2 : Unidirectional OneToMany Vehicle -> accessories => table vehicle_accessories (vehicle_id, accessories_id)
+-- Occupation des garages : compteur de véhicules maintenu par VehicleService
+INSERT INTO garage_occupancy (garage_id, vehicle_count)
+SELECT g.id, (SELECT COUNT(*) FROM vehicle_garages vg WHERE vg.garage_id = g.id) FROM garage g;
+
+-- Hypothèse 2 : ManyToMany Accessory <-> Vehicle => table accessory_vehicles (accessory_id, vehicle_id)
 INSERT INTO accessory_vehicles (vehicle_id, accessory_id) VALUES (1,1);
 INSERT INTO accessory_vehicles (vehicle_id, accessory_id) VALUES (2,2);
 INSERT INTO accessory_vehicles (vehicle_id, accessory_id) VALUES (2,3);
@@ -105,9 +110,10 @@ SET REFERENTIAL_INTEGRITY TRUE;
 
 -- IMPORTANT : Réaligner les compteurs IDENTITY pour éviter que Hibernate réessaie d'insérer des IDs déjà utilisés
 ALTER TABLE accessory      ALTER COLUMN id RESTART WITH 11; -- prochain = 11 (nous avons 1..10)
-ALTER TABLE vehicle        ALTER COLUMN id RESTART WITH 14;  -- prochain = 14 (nous avons 1..7)
 ALTER TABLE garage         ALTER COLUMN id RESTART WITH 6;  -- prochain = 6 (nous avons 1..5)
 ALTER TABLE opening_slot   ALTER COLUMN id RESTART WITH 11; -- prochain = 11 (nous avons 1..10)
+-- Vehicle utilise une séquence allouée par blocs de 50 : Hibernate réserve les ids (valeur - 49)..valeur
+ALTER SEQUENCE vehicle_seq RESTART WITH 100; -- prochains = 51..100 (nous avons 1..13)
 
 -- Vérification rapide (optionnel en console H2):
 -- SELECT * FROM garage;
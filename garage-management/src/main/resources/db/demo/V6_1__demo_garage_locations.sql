@@ -0,0 +1,7 @@
+-- Positions des garages de démonstration, en Île-de-France
+
+UPDATE garage SET latitude = 48.8566, longitude = 2.3522 WHERE id = 1;
+UPDATE garage SET latitude = 48.9362, longitude = 2.3574 WHERE id = 2;
+UPDATE garage SET latitude = 48.7904, longitude = 2.3634 WHERE id = 3;
+UPDATE garage SET latitude = 48.8924, longitude = 2.2069 WHERE id = 4;
+UPDATE garage SET latitude = 48.8638, longitude = 2.4485 WHERE id = 5;
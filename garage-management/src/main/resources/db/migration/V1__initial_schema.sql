@@ -0,0 +1,85 @@
+-- Schéma initial : les tables, séquences et clés étrangères que générait Hibernate (ddl-auto) avant l'introduction des
+-- migrations, avec pour seuls index les clés primaires, la position unique et la date de publication de l'outbox.
+-- Les index des requêtes (tables de jointure, filtres, tris) sont créés par les migrations suivantes (V2, V3, V5).
+
+CREATE SEQUENCE vehicle_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE outbox_event_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE garage (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    version     BIGINT DEFAULT 0 NOT NULL,
+    address     VARCHAR(255),
+    email       VARCHAR(255),
+    name        VARCHAR(255),
+    telephone   VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE opening_slot (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    day_of_week ENUM ('FRIDAY','MONDAY','SATURDAY','SUNDAY','THURSDAY','TUESDAY','WEDNESDAY'),
+    start_time  TIME(6),
+    end_time    TIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE garage_opening_slots (
+    garage_id        BIGINT NOT NULL,
+    opening_slots_id BIGINT NOT NULL,
+    CONSTRAINT fk_garage_opening_slots_garage FOREIGN KEY (garage_id) REFERENCES garage,
+    CONSTRAINT fk_garage_opening_slots_slot FOREIGN KEY (opening_slots_id) REFERENCES opening_slot
+);
+
+CREATE TABLE garage_occupancy (
+    garage_id     BIGINT NOT NULL,
+    vehicle_count INTEGER NOT NULL,
+    PRIMARY KEY (garage_id)
+);
+
+CREATE TABLE vehicle (
+    id                  BIGINT NOT NULL,
+    version             BIGINT DEFAULT 0 NOT NULL,
+    brand               VARCHAR(255),
+    year_of_manufacture INTEGER NOT NULL,
+    fuel_type           ENUM ('DIESEL','ELECTRIC','GASOLINE','HYBRID'),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE vehicle_garages (
+    vehicle_id BIGINT NOT NULL,
+    garage_id  BIGINT NOT NULL,
+    CONSTRAINT fk_vehicle_garages_vehicle FOREIGN KEY (vehicle_id) REFERENCES vehicle,
+    CONSTRAINT fk_vehicle_garages_garage FOREIGN KEY (garage_id) REFERENCES garage
+);
+
+CREATE TABLE accessory (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    version     BIGINT DEFAULT 0 NOT NULL,
+    name        VARCHAR(255),
+    description VARCHAR(255),
+    price       FLOAT(53),
+    type        VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE accessory_vehicles (
+    accessory_id BIGINT NOT NULL,
+    vehicle_id   BIGINT NOT NULL,
+    CONSTRAINT fk_accessory_vehicles_accessory FOREIGN KEY (accessory_id) REFERENCES accessory,
+    CONSTRAINT fk_accessory_vehicles_vehicle FOREIGN KEY (vehicle_id) REFERENCES vehicle
+);
+
+CREATE TABLE outbox_event (
+    id             BIGINT NOT NULL,
+    aggregate_type VARCHAR(255),
+    aggregate_id   BIGINT,
+    type           VARCHAR(255),
+    payload        CLOB,
+    created_at     TIMESTAMP(6) WITH TIME ZONE,
+    position       BIGINT,
+    published_at   TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (id),
+    CONSTRAINT idx_outbox_event_position UNIQUE (position)
+);
+
+CREATE INDEX idx_outbox_event_published_at ON outbox_event (published_at);
@@ -0,0 +1,20 @@
+-- Index des tables de jointure dans les deux sens, et des colonnes filtrées par les recherches de véhicules.
+-- Ils sont contrôlés au démarrage par SchemaIndexVerifier : le mettre à jour en cas de modification.
+
+-- findByGarageId, capacité des garages, garages par carburant
+CREATE INDEX idx_vehicle_garages_garage_vehicle ON vehicle_garages (garage_id, vehicle_id);
+-- isLinkedToGarage, libération de la place à la suppression d'un véhicule
+CREATE INDEX idx_vehicle_garages_vehicle_garage ON vehicle_garages (vehicle_id, garage_id);
+
+-- Accessoires d'un véhicule (liste et ETag)
+CREATE INDEX idx_accessory_vehicles_vehicle_accessory ON accessory_vehicles (vehicle_id, accessory_id);
+-- Véhicules d'un accessoire (recherche par accessoire)
+CREATE INDEX idx_accessory_vehicles_accessory_vehicle ON accessory_vehicles (accessory_id, vehicle_id);
+
+-- Horaires d'un garage
+CREATE INDEX idx_garage_opening_slots_garage_slot ON garage_opening_slots (garage_id, opening_slots_id);
+
+-- findByBrandIs
+CREATE INDEX idx_vehicle_brand ON vehicle (brand);
+-- Garages ayant des véhicules d'un carburant donné
+CREATE INDEX idx_vehicle_fuel_type ON vehicle (fuel_type);
@@ -0,0 +1,21 @@
+-- Nombre de véhicules par garage et par carburant, maintenu par les services à chaque création, liaison, mise à jour
+-- ou suppression de véhicule : la recherche des garages par carburant devient une lecture d'index, sans jointure
+-- sur la table des véhicules. Une ligne par garage et par carburant, créée avec le garage.
+
+CREATE TABLE garage_fuel_type_count (
+    garage_id     BIGINT NOT NULL,
+    fuel_type     ENUM ('DIESEL','ELECTRIC','GASOLINE','HYBRID') NOT NULL,
+    vehicle_count INTEGER NOT NULL,
+    PRIMARY KEY (garage_id, fuel_type)
+);
+
+-- Garages ayant au moins N véhicules d'un carburant donné
+CREATE INDEX idx_garage_fuel_type_count_fuel_count_garage ON garage_fuel_type_count (fuel_type, vehicle_count, garage_id);
+
+-- Initialisation à partir des véhicules déjà liés aux garages
+INSERT INTO garage_fuel_type_count (garage_id, fuel_type, vehicle_count)
+SELECT g.id, f.fuel_type,
+       (SELECT COUNT(*) FROM vehicle_garages vg JOIN vehicle v ON v.id = vg.vehicle_id
+        WHERE vg.garage_id = g.id AND v.fuel_type = f.fuel_type)
+FROM garage g
+CROSS JOIN (VALUES ('DIESEL'), ('ELECTRIC'), ('GASOLINE'), ('HYBRID')) AS f (fuel_type);
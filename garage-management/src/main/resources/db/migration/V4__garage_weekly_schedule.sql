@@ -0,0 +1,22 @@
+-- Horaires d'ouverture stockés dans une colonne du garage (WeeklySchedule) au lieu de créneaux partagés par une table
+-- de jointure : la lecture d'un garage ne fait plus de jointure ni de regroupement des créneaux par jour.
+-- Format : jours par numéro ISO, créneaux triés par heure de début, ex. 1=08:00-12:00,13:30-18:00;6=09:00-13:00
+
+ALTER TABLE garage ADD COLUMN opening_hours VARCHAR(1024);
+
+-- Heures au format de LocalTime.toString() : secondes seulement si non nulles
+UPDATE garage g SET opening_hours = (
+    SELECT LISTAGG(d.day_number || '=' || d.slots, ';') WITHIN GROUP (ORDER BY d.day_number)
+    FROM (SELECT gos.garage_id,
+                 CASE s.day_of_week WHEN 'MONDAY' THEN 1 WHEN 'TUESDAY' THEN 2 WHEN 'WEDNESDAY' THEN 3 WHEN 'THURSDAY' THEN 4
+                                    WHEN 'FRIDAY' THEN 5 WHEN 'SATURDAY' THEN 6 ELSE 7 END AS day_number,
+                 LISTAGG(LEFT(CAST(s.start_time AS VARCHAR), CASE WHEN SECOND(s.start_time) = 0 THEN 5 ELSE 8 END)
+                         || '-' || LEFT(CAST(s.end_time AS VARCHAR), CASE WHEN SECOND(s.end_time) = 0 THEN 5 ELSE 8 END), ',')
+                         WITHIN GROUP (ORDER BY s.start_time, s.end_time) AS slots
+          FROM garage_opening_slots gos JOIN opening_slot s ON s.id = gos.opening_slots_id
+          WHERE s.day_of_week IS NOT NULL AND s.start_time IS NOT NULL AND s.end_time IS NOT NULL
+          GROUP BY gos.garage_id, s.day_of_week) d
+    WHERE d.garage_id = g.id);
+
+DROP TABLE garage_opening_slots;
+DROP TABLE opening_slot;
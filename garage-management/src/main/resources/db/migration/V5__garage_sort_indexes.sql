@@ -0,0 +1,8 @@
+-- Index des propriétés de tri des garages, complétées par l'id : la pagination par curseur (/garages/scroll)
+-- reprend la lecture à la position du client au lieu de parcourir les pages précédentes.
+-- Ils sont contrôlés au démarrage par SchemaIndexVerifier : le mettre à jour en cas de modification.
+
+CREATE INDEX idx_garage_name_id ON garage (name, id);
+CREATE INDEX idx_garage_address_id ON garage (address, id);
+CREATE INDEX idx_garage_telephone_id ON garage (telephone, id);
+CREATE INDEX idx_garage_email_id ON garage (email, id);
@@ -0,0 +1,6 @@
+-- Position des garages (degrés WGS 84), nulle tant que le garage n'est pas localisé.
+-- La recherche des garages proches (/garages/nearby) ne lit pas ces colonnes mais l'index en mémoire
+-- GarageLocationIndex, construit au démarrage : pas d'index SQL.
+
+ALTER TABLE garage ADD COLUMN latitude FLOAT(53);
+ALTER TABLE garage ADD COLUMN longitude FLOAT(53);
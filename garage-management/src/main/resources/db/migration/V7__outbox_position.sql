@@ -0,0 +1,11 @@
+-- Dernière position attribuée par le relais de l'outbox, conservée dans une ligne dédiée : calculée par MAX() sur les
+-- événements restants, elle repartait à 1 après la purge des événements relayés, et les consommateurs qui relisent
+-- /outbox?after= sautaient ou rejouaient des événements.
+
+CREATE TABLE outbox_position (
+    id            BIGINT NOT NULL,
+    last_position BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO outbox_position (id, last_position) SELECT 1, COALESCE(MAX(position), 0) FROM outbox_event;
@@ -0,0 +1,41 @@
+package com.renault.garage.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SchemaIndexVerifierTest {
+
+    private static DataSource migratedDataSource(String target) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:verifier-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").target(target).load().migrate();
+        return dataSource;
+    }
+
+    @Test
+    @DisplayName("Toutes les migrations appliquées -> démarrage autorisé")
+    void allIndexesPresent() {
+        SchemaIndexVerifier verifier = new SchemaIndexVerifier(migratedDataSource("latest"));
+        assertThatCode(verifier::verify).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Index manquants -> échec explicite listant les index absents")
+    void missingIndexesFail() {
+        SchemaIndexVerifier verifier = new SchemaIndexVerifier(migratedDataSource("1"));
+        assertThatThrownBy(verifier::verify)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("vehicle_garages[garage_id, vehicle_id]")
+                .hasMessageContaining("vehicle[brand]")
+                .hasMessageContaining("vehicle[fuel_type]")
+                .hasMessageContaining("garage_fuel_type_count[fuel_type, vehicle_count]")
+                .hasMessageContaining("garage[name, id]");
+    }
+}
@@ -2,12 +2,17 @@ package com.renault.garage.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.renault.garage.dto.AccessoryDto;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateAccessoryDto;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.exception.StaleVersionException;
 import com.renault.garage.service.AccessoryService;
+import com.renault.garage.service.OptimisticLockRetry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,11 +22,13 @@ import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = AccessoryController.class)
+@Import({JsonResponseCache.class, OptimisticLockRetry.class})
 class AccessoryControllerTest {
 
     @Autowired
@@ -51,14 +58,36 @@ class AccessoryControllerTest {
     @Test
     @DisplayName("GET accessories by vehicle -> 200 list")
     void getAccessoriesByVehicle() throws Exception {
-        given(accessoryService.getAllByVehicleId(1L))
-                .willReturn(List.of(new AccessoryDto(1L, "A1", null, null, null)));
+        given(accessoryService.getListVersion(1L)).willReturn("a1");
+        given(accessoryService.getVersionedList(1L))
+                .willReturn(new VersionedDto<>(List.of(new AccessoryDto(1L, "A1", null, null, null)), "a1"));
 
         mockMvc.perform(get("/api/v1/vehicles/1/accessories"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"a1\""))
                 .andExpect(jsonPath("$[0].name").value("A1"));
     }
 
+    @Test
+    @DisplayName("GET accessories by vehicle with the current ETag -> 304")
+    void getAccessoriesByVehicle_notModified() throws Exception {
+        given(accessoryService.getListVersion(1L)).willReturn("b2");
+
+        mockMvc.perform(get("/api/v1/vehicles/1/accessories").header("If-None-Match", "\"b2\""))
+                .andExpect(status().isNotModified());
+        verify(accessoryService, never()).getVersionedList(1L);
+    }
+
+    @Test
+    @DisplayName("GET accessories of an unknown vehicle -> 404")
+    void getAccessoriesByVehicle_unknownVehicle() throws Exception {
+        given(accessoryService.getListVersion(1L)).willReturn(null);
+
+        mockMvc.perform(get("/api/v1/vehicles/1/accessories"))
+                .andExpect(status().isNotFound());
+        verify(accessoryService, never()).getVersionedList(1L);
+    }
+
     @Test
     @DisplayName("GET accessory by id -> 200")
     void getAccessory_ok() throws Exception {
@@ -80,19 +109,20 @@ class AccessoryControllerTest {
     @Test
     @DisplayName("PUT update accessory -> 200")
     void updateAccessory_ok() throws Exception {
-        given(accessoryService.updateAccessory(eq(9L), any(CreateAccessoryDto.class)))
-                .willReturn(new AccessoryDto(9L, "U", "d", 1.0, "T"));
+        given(accessoryService.updateAccessory(eq(9L), any(CreateAccessoryDto.class), eq(null)))
+                .willReturn(VersionedDto.of(new AccessoryDto(9L, "U", "d", 1.0, "T"), 5L));
         mockMvc.perform(put("/api/v1/accessories/9")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(new CreateAccessoryDto("U", "d", 1.0, "T"))))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""))
                 .andExpect(jsonPath("$.id").value(9));
     }
 
     @Test
     @DisplayName("PUT update accessory -> 404")
     void updateAccessory_notFound() throws Exception {
-        given(accessoryService.updateAccessory(eq(9L), any(CreateAccessoryDto.class)))
+        given(accessoryService.updateAccessory(eq(9L), any(CreateAccessoryDto.class), eq(null)))
                 .willReturn(null);
         mockMvc.perform(put("/api/v1/accessories/9")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -100,6 +130,18 @@ class AccessoryControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("PUT update accessory avec un If-Match périmé -> 412")
+    void updateAccessory_staleVersion() throws Exception {
+        given(accessoryService.updateAccessory(eq(9L), any(CreateAccessoryDto.class), eq(4L)))
+                .willThrow(new StaleVersionException("Accessory", 9L, 4L));
+        mockMvc.perform(put("/api/v1/accessories/9")
+                        .header("If-Match", "W/\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateAccessoryDto("U", "d", 1.0, "T"))))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("DELETE accessory -> 204")
     void deleteAccessory_ok() throws Exception {
@@ -116,5 +158,18 @@ class AccessoryControllerTest {
         mockMvc.perform(delete("/api/v1/accessories/3"))
                 .andExpect(status().isNotFound());
     }
-}
 
+    @Test
+    @DisplayName("POST batch-get accessories -> 200 found in order + missing")
+    void batchGet_ok() throws Exception {
+        given(accessoryService.getAccessoriesByIds(List.of(2L, 7L))).willReturn(new BatchGetResultDto<>(
+                List.of(new AccessoryDto(2L, "A2", null, null, null)), List.of(7L)));
+
+        mockMvc.perform(post("/api/v1/accessories/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[2,7]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].name").value("A2"))
+                .andExpect(jsonPath("$.missing[0]").value(7));
+    }
+}
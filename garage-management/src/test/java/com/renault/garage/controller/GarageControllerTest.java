@@ -1,30 +1,48 @@
 package com.renault.garage.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateGarageDto;
 import com.renault.garage.dto.GarageDto;
+import com.renault.garage.dto.GarageScrollDto;
+import com.renault.garage.dto.GarageSummaryDto;
+import com.renault.garage.dto.NearbyGarageDto;
+import com.renault.garage.dto.ScrollCursor;
+import com.renault.garage.dto.VehicleSummaryDto;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.exception.InvalidLocationException;
+import com.renault.garage.exception.StaleVersionException;
 import com.renault.garage.service.GarageService;
+import com.renault.garage.service.OptimisticLockRetry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = GarageController.class)
+@Import({JsonResponseCache.class, OptimisticLockRetry.class})
 class GarageControllerTest {
 
     @Autowired
@@ -43,21 +61,72 @@ class GarageControllerTest {
     @Test
     @DisplayName("GET /garages/{id} -> 200")
     void findById_ok() throws Exception {
-        given(garageService.getGarageById(1L)).willReturn(garageDto(1L, "G1"));
+        given(garageService.getVersion(1L)).willReturn(3L);
+        given(garageService.getVersionedGarage(1L)).willReturn(VersionedDto.of(garageDto(1L, "G1"), 3L));
         mockMvc.perform(get("/api/v1/garages/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.name").value("G1"));
     }
 
+    @Test
+    @DisplayName("GET /garages/{id} modifié entre la lecture de la version et celle du garage -> ETag du garage renvoyé")
+    void findById_changedWhileLoading() throws Exception {
+        given(garageService.getVersion(2L)).willReturn(3L);
+        given(garageService.getVersionedGarage(2L)).willReturn(VersionedDto.of(garageDto(2L, "G2 bis"), 4L));
+        mockMvc.perform(get("/api/v1/garages/2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.name").value("G2 bis"));
+
+        // the body is cached under its own version, a client holding it gets a 304
+        given(garageService.getVersion(2L)).willReturn(4L);
+        mockMvc.perform(get("/api/v1/garages/2").header("If-None-Match", "\"4\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("GET /garages/{id} with the current ETag -> 304 without loading the garage")
+    void findById_notModified() throws Exception {
+        given(garageService.getVersion(1L)).willReturn(4L);
+        mockMvc.perform(get("/api/v1/garages/1").header("If-None-Match", "\"4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(garageService, never()).getVersionedGarage(1L);
+    }
+
     @Test
     @DisplayName("GET /garages/{id} -> 404")
     void findById_notFound() throws Exception {
-        given(garageService.getGarageById(1L)).willReturn(null);
+        given(garageService.getVersion(1L)).willReturn(null);
         mockMvc.perform(get("/api/v1/garages/1"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("GET /garages/{id}/summary -> 200")
+    void summary_ok() throws Exception {
+        GarageSummaryDto summary = new GarageSummaryDto(new GarageDto(1L, "G1", "A", "T", "E", Map.of()),
+                List.of(new VehicleSummaryDto(3L, "Clio", 2020, Vehicle.FuelType.DIESEL, List.of())),
+                Map.of(Vehicle.FuelType.DIESEL, 1L), 4, 0.0);
+        given(garageService.getGarageSummary(1L)).willReturn(summary);
+        mockMvc.perform(get("/api/v1/garages/1/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.garage.name").value("G1"))
+                .andExpect(jsonPath("$.vehicles[0].brand").value("Clio"))
+                .andExpect(jsonPath("$.vehicleCountByFuelType.DIESEL").value(1))
+                .andExpect(jsonPath("$.remainingCapacity").value(4));
+    }
+
+    @Test
+    @DisplayName("GET /garages/{id}/summary -> 404")
+    void summary_notFound() throws Exception {
+        given(garageService.getGarageSummary(1L)).willReturn(null);
+        mockMvc.perform(get("/api/v1/garages/1/summary"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("DELETE /garages/{id} -> 204")
     void delete_ok() throws Exception {
@@ -96,22 +165,34 @@ class GarageControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @DisplayName("POST /garages - position invalide -> 400")
+    void create_invalidLocation() throws Exception {
+        given(garageService.createGarage(any())).willThrow(new InvalidLocationException(48.85, null));
+        mockMvc.perform(post("/api/v1/garages")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"G1\",\"latitude\":48.85}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("PUT /garages/{id} -> 200")
     void update_ok() throws Exception {
-        given(garageService.updateGarage(eq(5L), any(CreateGarageDto.class)))
-                .willReturn(garageDto(5L, "G5"));
+        given(garageService.updateGarage(eq(5L), any(CreateGarageDto.class), eq(null)))
+                .willReturn(VersionedDto.of(garageDto(5L, "G5"), 1L));
         mockMvc.perform(put("/api/v1/garages/5")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(new CreateGarageDto("G5", null, null, null, null))))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
                 .andExpect(jsonPath("$.id").value(5));
+        verify(garageService, never()).getVersion(5L);
     }
 
     @Test
     @DisplayName("PUT /garages/{id} -> 404")
     void update_notFound() throws Exception {
-        given(garageService.updateGarage(eq(5L), any(CreateGarageDto.class)))
+        given(garageService.updateGarage(eq(5L), any(CreateGarageDto.class), eq(null)))
                 .willReturn(null);
         mockMvc.perform(put("/api/v1/garages/5")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -119,6 +200,95 @@ class GarageControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("PUT /garages/{id} avec If-Match -> mise à jour conditionnelle et nouvel ETag")
+    void update_ifMatch() throws Exception {
+        given(garageService.updateGarage(eq(5L), any(CreateGarageDto.class), eq(2L)))
+                .willReturn(VersionedDto.of(garageDto(5L, "G5"), 3L));
+        mockMvc.perform(put("/api/v1/garages/5")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateGarageDto("G5", null, null, null, null))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    @DisplayName("PUT /garages/{id} avec un If-Match périmé -> 412")
+    void update_staleVersion() throws Exception {
+        given(garageService.updateGarage(eq(5L), any(CreateGarageDto.class), eq(1L)))
+                .willThrow(new StaleVersionException("Garage", 5L, 1L));
+        mockMvc.perform(put("/api/v1/garages/5")
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateGarageDto("G5", null, null, null, null))))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PATCH /garages/{id}/opening-hours -> 200 et ETag, garage inconnu -> 404, If-Match périmé -> 412")
+    void patchOpeningHours() throws Exception {
+        given(garageService.patchOpeningHours(eq(5L), any(), eq(null))).willReturn(VersionedDto.of(garageDto(5L, "G5"), 4L));
+        mockMvc.perform(patch("/api/v1/garages/5/opening-hours")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"MONDAY\":[{\"startTime\":\"08:00\",\"endTime\":\"12:00\"}],\"SUNDAY\":[]}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        mockMvc.perform(patch("/api/v1/garages/9/opening-hours")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isNotFound());
+
+        given(garageService.patchOpeningHours(eq(5L), any(), eq(1L))).willThrow(new StaleVersionException("Garage", 5L, 1L));
+        mockMvc.perform(patch("/api/v1/garages/5/opening-hours")
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("DELETE /garages/{id}/location -> 200 et ETag, garage inconnu -> 404, If-Match périmé -> 412")
+    void clearLocation() throws Exception {
+        given(garageService.clearLocation(5L, null)).willReturn(VersionedDto.of(garageDto(5L, "G5"), 4L));
+        mockMvc.perform(delete("/api/v1/garages/5/location"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.id").value(5));
+
+        mockMvc.perform(delete("/api/v1/garages/9/location"))
+                .andExpect(status().isNotFound());
+
+        given(garageService.clearLocation(5L, 1L)).willThrow(new StaleVersionException("Garage", 5L, 1L));
+        mockMvc.perform(delete("/api/v1/garages/5/location").header("If-Match", "\"1\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("GET /garages/scroll -> tri du paramètre ou du curseur, tri ou curseur invalide -> 400")
+    void scroll() throws Exception {
+        given(garageService.scrollGarages(eq(Sort.Order.desc("name")), eq(null), eq(null), eq(2), eq(false)))
+                .willReturn(new GarageScrollDto(List.of(garageDto(3L, "G3")), "next", null));
+        mockMvc.perform(get("/api/v1/garages/scroll?sort=name;desc&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(3))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        ScrollCursor cursor = new ScrollCursor("email", Sort.Direction.ASC, "a@b", 7L);
+        given(garageService.scrollGarages(any(), eq(cursor), eq(Vehicle.FuelType.DIESEL), eq(10), eq(true)))
+                .willReturn(new GarageScrollDto(List.of(), null, 0L));
+        mockMvc.perform(get("/api/v1/garages/byVehicleFuelType/diesel/scroll?withTotal=true&cursor=" + cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+
+        mockMvc.perform(get("/api/v1/garages/scroll?sort=version;asc")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/scroll?cursor=%%%")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/scroll?cursor=" + new ScrollCursor("version", Sort.Direction.ASC, "1", 1L).encode()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/byVehicleFuelType/STEAM/scroll")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("GET /garages -> page 200")
     void listGarages() throws Exception {
@@ -148,5 +318,68 @@ class GarageControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content.length()").value(0));
     }
-}
 
+    @Test
+    @DisplayName("GET /garages/byVehicleFuelTypes -> page 200, ALL by default, unknown fuel -> 400")
+    void listByFuelTypes() throws Exception {
+        Page<GarageDto> page = new PageImpl<>(List.of(garageDto(4L, "G4")));
+        given(garageService.getGaragesHavingVehiclesWithFuelTypes(eq(Set.of(Vehicle.FuelType.DIESEL, Vehicle.FuelType.HYBRID)), eq(2), eq(true), any()))
+                .willReturn(page);
+        mockMvc.perform(get("/api/v1/garages/byVehicleFuelTypes?fuelType=diesel&fuelType=HYBRID&minCount=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(4));
+        mockMvc.perform(get("/api/v1/garages/byVehicleFuelTypes?fuelType=STEAM"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /garages/open -> page 200 à la date demandée, carburant inconnu -> 400")
+    void listOpen() throws Exception {
+        given(garageService.getOpenGarages(eq(LocalDateTime.of(2024, 1, 1, 9, 30)), eq(Vehicle.FuelType.DIESEL), any()))
+                .willReturn(new PageImpl<>(List.of(garageDto(1L, "G1"))));
+        mockMvc.perform(get("/api/v1/garages/open?at=2024-01-01T09:30&fuelType=diesel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1));
+        mockMvc.perform(get("/api/v1/garages/open?fuelType=STEAM"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/open?at=lundi"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /garages/nearby -> garages et distances, coordonnées, rayon, nombre ou carburant invalides -> 400")
+    void listNearby() throws Exception {
+        given(garageService.getNearbyGarages(48.85, 2.35, 5.0, Vehicle.FuelType.ELECTRIC, 1, 3))
+                .willReturn(List.of(new NearbyGarageDto(garageDto(1L, "G1"), 0.42)));
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85&lon=2.35&radius=5&fuelType=electric&minCapacity=1&limit=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].garage.id").value(1))
+                .andExpect(jsonPath("$[0].distanceKm").value(0.42));
+
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=91&lon=2.35")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85&lon=-181")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85&lon=2.35&radius=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85&lon=2.35&radius=5000")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85&lon=2.35&limit=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85&lon=2.35&limit=101")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85&lon=2.35&minCapacity=-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/garages/nearby?lat=48.85&lon=2.35&fuelType=STEAM")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST batch-get garages -> 200 found in order + missing")
+    void batchGet_ok() throws Exception {
+        given(garageService.getGaragesByIds(List.of(2L, 1L, 5L))).willReturn(new BatchGetResultDto<>(
+                List.of(new GarageDto(2L, "G2", "A", "T", "E", Map.of()), new GarageDto(1L, "G1", "A", "T", "E", Map.of())),
+                List.of(5L)));
+
+        mockMvc.perform(post("/api/v1/garages/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[2,1,5]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].id").value(2))
+                .andExpect(jsonPath("$.found[1].id").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(5));
+    }
+}
@@ -2,28 +2,42 @@ package com.renault.garage.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateVehicleDto;
 import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.dto.VehiclePageDto;
+import com.renault.garage.dto.VersionedDto;
 import com.renault.garage.exception.GarageCapacityExceededException;
+import com.renault.garage.exception.InvalidBatchRequestException;
+import com.renault.garage.exception.StaleVersionException;
+import com.renault.garage.service.OptimisticLockRetry;
 import com.renault.garage.service.VehicleService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = VehicleController.class)
+@Import({JsonResponseCache.class, OptimisticLockRetry.class})
 class VehicleControllerTest {
 
     @Autowired
@@ -95,45 +109,98 @@ class VehicleControllerTest {
     @Test
     @DisplayName("GET vehicle -> 200")
     void getVehicle_ok() throws Exception {
-        given(vehicleService.get(5L)).willReturn(new VehicleDto(5L,"B",2020, Vehicle.FuelType.DIESEL));
+        given(vehicleService.getVersion(5L)).willReturn(0L);
+        given(vehicleService.getVersioned(5L)).willReturn(VersionedDto.of(new VehicleDto(5L,"B",2020, Vehicle.FuelType.DIESEL), 0L));
         mockMvc.perform(get("/api/v1/vehicles/5"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
                 .andExpect(jsonPath("$.id").value(5));
     }
 
+    @Test
+    @DisplayName("GET vehicle with the current ETag -> 304")
+    void getVehicle_notModified() throws Exception {
+        given(vehicleService.getVersion(5L)).willReturn(1L);
+        mockMvc.perform(get("/api/v1/vehicles/5").header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified());
+        verify(vehicleService, never()).getVersioned(5L);
+    }
+
     @Test
     @DisplayName("GET vehicle -> 404")
     void getVehicle_notFound() throws Exception {
-        given(vehicleService.get(5L)).willReturn(null);
+        given(vehicleService.getVersion(5L)).willReturn(null);
         mockMvc.perform(get("/api/v1/vehicles/5"))
                 .andExpect(status().isNotFound());
     }
 
+    private void givenStreamedVehicles(VehicleDto... vehicles) {
+        willAnswer(invocation -> {
+            Consumer<VehicleDto> consumer = invocation.getArgument(0);
+            for (VehicleDto vehicle : vehicles) {
+                consumer.accept(vehicle);
+            }
+            return null;
+        }).given(vehicleService).streamAll(any());
+    }
+
     @Test
     @DisplayName("GET vehicles -> list 200")
     void listVehicles() throws Exception {
-        given(vehicleService.getAll()).willReturn(List.of(new VehicleDto(1L,"B",2020, Vehicle.FuelType.DIESEL)));
-        mockMvc.perform(get("/api/v1/vehicles"))
+        givenStreamedVehicles(new VehicleDto(1L,"B",2020, Vehicle.FuelType.DIESEL), new VehicleDto(2L,"C",2021, Vehicle.FuelType.HYBRID));
+        MvcResult result = mockMvc.perform(get("/api/v1/vehicles"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1));
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+    }
+
+    @Test
+    @DisplayName("GET vehicles (NDJSON) -> une ligne par véhicule")
+    void streamVehicles_ndjson() throws Exception {
+        givenStreamedVehicles(new VehicleDto(1L,"B",2020, Vehicle.FuelType.DIESEL), new VehicleDto(2L,"C",2021, Vehicle.FuelType.HYBRID));
+        MvcResult result = mockMvc.perform(get("/api/v1/vehicles").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"brand\":\"B\",\"yearOfManufacture\":2020,\"fuelType\":\"DIESEL\"}\n"
+                                + "{\"id\":2,\"brand\":\"C\",\"yearOfManufacture\":2021,\"fuelType\":\"HYBRID\"}\n"));
+    }
+
+    @Test
+    @DisplayName("GET vehicles/page -> page + curseur")
+    void listVehiclesPage() throws Exception {
+        given(vehicleService.getPage(5L, 2)).willReturn(new VehiclePageDto(
+                List.of(new VehicleDto(6L,"B",2020, Vehicle.FuelType.DIESEL), new VehicleDto(7L,"C",2021, Vehicle.FuelType.HYBRID)), 7L));
+        mockMvc.perform(get("/api/v1/vehicles/page?after=5&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value(7));
     }
 
     @Test
     @DisplayName("PUT update vehicle -> 200")
     void updateVehicle_ok() throws Exception {
-        given(vehicleService.update(eq(7L), any(CreateVehicleDto.class)))
-                .willReturn(new VehicleDto(7L,"U",2022, Vehicle.FuelType.GASOLINE));
+        given(vehicleService.update(eq(7L), any(CreateVehicleDto.class), eq(null)))
+                .willReturn(VersionedDto.of(new VehicleDto(7L,"U",2022, Vehicle.FuelType.GASOLINE), 2L));
         mockMvc.perform(put("/api/v1/vehicles/7")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(payload())))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
                 .andExpect(jsonPath("$.id").value(7));
+        verify(vehicleService, never()).getVersion(7L);
     }
 
     @Test
     @DisplayName("PUT update vehicle -> 404")
     void updateVehicle_notFound() throws Exception {
-        given(vehicleService.update(eq(7L), any(CreateVehicleDto.class)))
+        given(vehicleService.update(eq(7L), any(CreateVehicleDto.class), eq(null)))
                 .willReturn(null);
         mockMvc.perform(put("/api/v1/vehicles/7")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -141,6 +208,32 @@ class VehicleControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("PUT update vehicle sans If-Match -> rejouée après une modification concurrente")
+    void updateVehicle_retriedOnConcurrentModification() throws Exception {
+        given(vehicleService.update(eq(7L), any(CreateVehicleDto.class), eq(null)))
+                .willThrow(new OptimisticLockingFailureException("concurrent"))
+                .willReturn(VersionedDto.of(new VehicleDto(7L,"U",2022, Vehicle.FuelType.GASOLINE), 2L));
+        mockMvc.perform(put("/api/v1/vehicles/7")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(payload())))
+                .andExpect(status().isOk());
+        verify(vehicleService, times(2)).update(eq(7L), any(CreateVehicleDto.class), eq(null));
+    }
+
+    @Test
+    @DisplayName("PUT update vehicle avec un If-Match périmé -> 412, sans nouvel essai")
+    void updateVehicle_staleVersion() throws Exception {
+        given(vehicleService.update(eq(7L), any(CreateVehicleDto.class), eq(0L)))
+                .willThrow(new StaleVersionException("Vehicle", 7L, 0L));
+        mockMvc.perform(put("/api/v1/vehicles/7")
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(payload())))
+                .andExpect(status().isPreconditionFailed());
+        verify(vehicleService, times(1)).update(eq(7L), any(CreateVehicleDto.class), eq(0L));
+    }
+
     @Test
     @DisplayName("DELETE vehicle -> 204")
     void deleteVehicle_ok() throws Exception {
@@ -179,7 +272,7 @@ class VehicleControllerTest {
     @Test
     @DisplayName("GET vehicles by accessory -> 200")
     void listByAccessory_ok() throws Exception {
-        given(vehicleService.getByAccessory("GPS")).willReturn(List.of(new VehicleDto(1L,"Renault",2020, Vehicle.FuelType.DIESEL)));
+        given(vehicleService.getByAccessory("GPS", 0, 20)).willReturn(List.of(new VehicleDto(1L,"Renault",2020, Vehicle.FuelType.DIESEL)));
         mockMvc.perform(get("/api/v1/vehicles/byAccessory/GPS"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(1));
@@ -188,9 +281,33 @@ class VehicleControllerTest {
     @Test
     @DisplayName("GET vehicles by accessory -> 404 (empty)")
     void listByAccessory_notFound() throws Exception {
-        given(vehicleService.getByAccessory("GPS")).willReturn(List.of());
+        given(vehicleService.getByAccessory("GPS", 0, 20)).willReturn(List.of());
         mockMvc.perform(get("/api/v1/vehicles/byAccessory/GPS"))
                 .andExpect(status().isNotFound());
     }
-}
 
+    @Test
+    @DisplayName("POST batch-get vehicles -> 200 found in order + missing")
+    void batchGet_ok() throws Exception {
+        given(vehicleService.getByIds(List.of(3L, 1L, 99L))).willReturn(new BatchGetResultDto<>(
+                List.of(new VehicleDto(3L, "Zoe", 2024, Vehicle.FuelType.ELECTRIC), new VehicleDto(1L, "Clio", 2022, Vehicle.FuelType.GASOLINE)),
+                List.of(99L)));
+        mockMvc.perform(post("/api/v1/vehicles/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[3,1,99]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].id").value(3))
+                .andExpect(jsonPath("$.found[1].id").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(99));
+    }
+
+    @Test
+    @DisplayName("POST batch-get vehicles -> 400 (too many ids)")
+    void batchGet_tooManyIds() throws Exception {
+        given(vehicleService.getByIds(any())).willThrow(new InvalidBatchRequestException("Au plus 1000 identifiants"));
+        mockMvc.perform(post("/api/v1/vehicles/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2]}"))
+                .andExpect(status().isBadRequest());
+    }
+}
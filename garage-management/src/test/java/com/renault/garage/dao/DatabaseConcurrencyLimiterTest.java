@@ -0,0 +1,123 @@
+package com.renault.garage.dao;
+
+import com.renault.garage.exception.DatabaseBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DatabaseConcurrencyLimiterTest {
+
+    private static DatabaseConcurrencyLimiter limiter(int maxConcurrency, Duration acquireTimeout) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", new SimpleMeterRegistry());
+        ObjectProvider<MeterRegistry> meterRegistry = beanFactory.getBeanProvider(MeterRegistry.class);
+        return new DatabaseConcurrencyLimiter(maxConcurrency, acquireTimeout, false, meterRegistry);
+    }
+
+    private static ProceedingJoinPoint call(ThrowingSupplier body) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenAnswer(invocation -> body.get());
+        return joinPoint;
+    }
+
+    @Test
+    @DisplayName("500 appels concurrents -> jamais plus d'accès simultanés que de permis")
+    void boundsConcurrency() throws Throwable {
+        DatabaseConcurrencyLimiter limiter = limiter(3, Duration.ofSeconds(10));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ProceedingJoinPoint joinPoint = call(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(2);
+            running.decrementAndGet();
+            return null;
+        });
+
+        List<Future<Object>> calls = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 500; i++) {
+                calls.add(executor.submit(() -> {
+                    try {
+                        return limiter.limit(joinPoint);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+        }
+        for (Future<Object> future : calls) {
+            future.get();
+        }
+        assertThat(maxRunning.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Appel imbriqué du même thread -> pas de second permis")
+    void nestedCallsReuseThePermit() throws Throwable {
+        DatabaseConcurrencyLimiter limiter = limiter(1, Duration.ofMillis(50));
+        ProceedingJoinPoint repository = call(() -> "ok");
+        ProceedingJoinPoint service = call(() -> limiter.limit(repository));
+
+        assertThat(limiter.limit(service)).isEqualTo("ok");
+        assertThat(limiter.limit(service)).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("Aucun permis libéré à temps -> DatabaseBusyException")
+    void timesOut() throws Throwable {
+        DatabaseConcurrencyLimiter limiter = limiter(1, Duration.ofMillis(50));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint slow = call(() -> {
+            holding.countDown();
+            release.await();
+            return null;
+        });
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.limit(slow);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        holding.await();
+
+        assertThatThrownBy(() -> limiter.limit(call(() -> "ok"))).isInstanceOf(DatabaseBusyException.class);
+
+        release.countDown();
+        holder.join();
+        assertThat(limiter.limit(call(() -> "ok"))).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("Open Session In View actif -> refus de démarrer")
+    void refusesOpenInView() {
+        ObjectProvider<MeterRegistry> meterRegistry = new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class);
+        assertThatThrownBy(() -> new DatabaseConcurrencyLimiter(2, Duration.ofSeconds(1), true, meterRegistry))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("spring.jpa.open-in-view=false");
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier {
+        Object get() throws Throwable;
+    }
+}
@@ -0,0 +1,164 @@
+package com.renault.garage.event;
+
+import com.renault.garage.consumer.BatchingDomainEventConsumer;
+import com.renault.garage.consumer.DomainEventConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DomainEventPipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DomainEventPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        pipeline.stop();
+    }
+
+    private DomainEventPipeline start(DomainEventPipelineProperties.Backpressure backpressure, int queueCapacity, int maxBatchSize,
+                                      Duration batchWindow, DomainEventConsumer<?>... consumers) {
+        pipeline = new DomainEventPipeline(List.of(consumers),
+                new DomainEventPipelineProperties(queueCapacity, maxBatchSize, batchWindow, 1, backpressure, Duration.ofMillis(10)),
+                meterRegistry);
+        pipeline.start();
+        return pipeline;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Les événements sont regroupés en lots pour un consommateur par lots")
+    void batchingConsumerReceivesMicroBatches() throws InterruptedException {
+        Queue<List<VehicleCreatedEvent>> batches = new ConcurrentLinkedQueue<>();
+        start(DomainEventPipelineProperties.Backpressure.BLOCK, 100, 10, Duration.ofMillis(200), new BatchingDomainEventConsumer<VehicleCreatedEvent>() {
+            @Override
+            public Class<VehicleCreatedEvent> eventType() {
+                return VehicleCreatedEvent.class;
+            }
+
+            @Override
+            public void consumeBatch(List<VehicleCreatedEvent> events) {
+                batches.add(events);
+            }
+        });
+
+        for (long id = 1; id <= 25; id++) {
+            pipeline.submit(new VehicleCreatedEvent(id));
+        }
+        pipeline.stop();
+
+        assertThat(batches).hasSizeLessThan(25).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(10));
+        assertThat(batches.stream().flatMap(List::stream).map(VehicleCreatedEvent::vehicleId)).containsExactlyInAnyOrder(
+                1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L, 21L, 22L, 23L, 24L, 25L);
+        assertThat(meterRegistry.get("garage.events.published").counter().count()).isEqualTo(25);
+        assertThat(meterRegistry.get("garage.events.lag").timer().count()).isEqualTo(25);
+    }
+
+    @Test
+    @DisplayName("Un consommateur simple reçoit les événements un par un, uniquement ceux de son type")
+    void simpleConsumerReceivesEventsOfItsType() throws InterruptedException {
+        Queue<VehicleCreatedEvent> received = new ConcurrentLinkedQueue<>();
+        start(DomainEventPipelineProperties.Backpressure.BLOCK, 100, 10, Duration.ZERO, new DomainEventConsumer<VehicleCreatedEvent>() {
+            @Override
+            public Class<VehicleCreatedEvent> eventType() {
+                return VehicleCreatedEvent.class;
+            }
+
+            @Override
+            public void consume(VehicleCreatedEvent event) {
+                received.add(event);
+            }
+        });
+
+        pipeline.submit(new VehicleCreatedEvent(1L));
+        pipeline.submit(new DomainEvent() {
+        });
+        pipeline.submit(new VehicleCreatedEvent(2L));
+        pipeline.stop();
+
+        assertThat(received).extracting(VehicleCreatedEvent::vehicleId).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("DROP : les événements sont perdus et comptés quand la file est pleine")
+    void dropWhenQueueIsFull() throws InterruptedException {
+        Queue<Long> received = new ConcurrentLinkedQueue<>();
+        start(DomainEventPipelineProperties.Backpressure.DROP, 1, 1, Duration.ZERO, blockingConsumer(received));
+
+        for (long id = 1; id <= 10; id++) {
+            pipeline.submit(new VehicleCreatedEvent(id));
+        }
+        double dropped = meterRegistry.get("garage.events.dropped").counter().count();
+        release.countDown();
+        pipeline.stop();
+
+        assertThat(dropped).isGreaterThanOrEqualTo(7);
+        assertThat(received).hasSize(10 - (int) dropped);
+    }
+
+    @Test
+    @DisplayName("CALLER_RUNS : le thread appelant consomme lui-même quand la file est pleine")
+    void callerRunsWhenQueueIsFull() throws InterruptedException {
+        Queue<Long> received = new ConcurrentLinkedQueue<>();
+        Queue<Thread> threads = new ConcurrentLinkedQueue<>();
+        start(DomainEventPipelineProperties.Backpressure.CALLER_RUNS, 1, 1, Duration.ZERO, new DomainEventConsumer<VehicleCreatedEvent>() {
+            @Override
+            public Class<VehicleCreatedEvent> eventType() {
+                return VehicleCreatedEvent.class;
+            }
+
+            @Override
+            public void consume(VehicleCreatedEvent event) {
+                if (event.vehicleId() == 1L) {
+                    await(release);
+                }
+                threads.add(Thread.currentThread());
+                received.add(event.vehicleId());
+            }
+        });
+
+        for (long id = 1; id <= 10; id++) {
+            pipeline.submit(new VehicleCreatedEvent(id));
+        }
+        assertThat(threads).contains(Thread.currentThread());
+        release.countDown();
+        pipeline.stop();
+
+        assertThat(received).hasSize(10);
+        assertThat(meterRegistry.get("garage.events.dropped").counter().count()).isZero();
+    }
+
+    private DomainEventConsumer<VehicleCreatedEvent> blockingConsumer(Queue<Long> received) {
+        return new DomainEventConsumer<>() {
+            @Override
+            public Class<VehicleCreatedEvent> eventType() {
+                return VehicleCreatedEvent.class;
+            }
+
+            @Override
+            public void consume(VehicleCreatedEvent event) {
+                await(release);
+                received.add(event.vehicleId());
+            }
+        };
+    }
+}
@@ -80,5 +80,27 @@ class AccessoryIntegrationTest {
         List<Map<String,Object>> list = mapper.readValue(listResp.getBody(), new TypeReference<>(){});
         assertThat(list).anySatisfy(m -> assertThat(m.get("name")).isEqualTo("GPS Test"));
     }
-}
 
+    @Test
+    @DisplayName("Recherche de véhicules par accessoire : sans accents, par préfixe, suivie des modifications")
+    void searchVehiclesByAccessory() {
+        ResponseEntity<VehicleDto[]> seeded = rest.getForEntity("/api/v1/vehicles/byAccessory/siege", VehicleDto[].class);
+        assertThat(seeded.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(seeded.getBody()).extracting(VehicleDto::id).contains(5L);
+
+        Long vehicleId = createVehicle(createGarage());
+        Map<String,Object> accPayload = Map.of("name","Rétroviseur chauffant", "description","Dégivrage rapide", "price",89.0, "type","EXTERIOR");
+        AccessoryDto accessory = rest.postForEntity("/api/v1/vehicles/"+vehicleId+"/accessories", accPayload, AccessoryDto.class).getBody();
+        Assertions.assertNotNull(accessory);
+
+        ResponseEntity<VehicleDto[]> found = rest.getForEntity("/api/v1/vehicles/byAccessory/retrov", VehicleDto[].class);
+        assertThat(found.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(found.getBody()).extracting(VehicleDto::id).containsExactly(vehicleId);
+
+        rest.put("/api/v1/accessories/"+accessory.id(), Map.of("name","Antenne"));
+        assertThat(rest.getForEntity("/api/v1/vehicles/byAccessory/retroviseur", String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        rest.delete("/api/v1/accessories/"+accessory.id());
+        assertThat(rest.getForEntity("/api/v1/vehicles/byAccessory/antenne", String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
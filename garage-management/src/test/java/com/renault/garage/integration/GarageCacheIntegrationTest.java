@@ -0,0 +1,91 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.dao.entity.OpeningTime;
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.service.GarageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class GarageCacheIntegrationTest {
+
+    @Autowired
+    GarageService garageService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private GarageDto createGarage(String name) {
+        return garageService.createGarage(new CreateGarageDto(name, "Addr", "0102", "mail@x",
+                Map.of(DayOfWeek.MONDAY, List.of(new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0))))));
+    }
+
+    @Test
+    @DisplayName("Lecture répétée d'un garage -> servie par le cache, sans requête")
+    void repeatedReadHitsCache() {
+        GarageDto garage = createGarage("Cache");
+        garageService.getGarageById(garage.id());
+
+        statistics.clear();
+        GarageDto cached = garageService.getGarageById(garage.id());
+
+        assertThat(cached).usingRecursiveComparison().isEqualTo(garage);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+        assertThat(meterRegistry.find("hibernate.second.level.cache.requests").tag("result", "hit").functionCounter()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Mise à jour d'un garage -> entrée évincée, la lecture suivante voit les nouveaux horaires")
+    void updateEvictsGarage() {
+        GarageDto garage = createGarage("Avant");
+        garageService.getGarageById(garage.id());
+        double evictions = meterRegistry.get("garage.cache.evictions").counter().count();
+
+        garageService.updateGarage(garage.id(), new CreateGarageDto("Après", null, null, null,
+                Map.of(DayOfWeek.SATURDAY, List.of(new OpeningTime(LocalTime.of(9, 0), LocalTime.of(13, 0))))));
+        GarageDto updated = garageService.getGarageById(garage.id());
+
+        assertThat(updated.name()).isEqualTo("Après");
+        assertThat(updated.openingHours()).containsOnlyKeys(DayOfWeek.SATURDAY);
+        assertThat(meterRegistry.get("garage.cache.evictions").counter().count()).isEqualTo(evictions + 1);
+    }
+
+    @Test
+    @DisplayName("Suppression d'un garage -> plus servi par le cache")
+    void deleteEvictsGarage() {
+        GarageDto garage = createGarage("Supprimé");
+        garageService.getGarageById(garage.id());
+
+        garageService.deleteGarage(garage.id());
+
+        assertThat(garageService.getGarageById(garage.id())).isNull();
+    }
+}
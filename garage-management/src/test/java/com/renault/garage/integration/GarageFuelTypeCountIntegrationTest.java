@@ -0,0 +1,104 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.dao.entity.GarageFuelTypeCount;
+import com.renault.garage.dao.entity.Vehicle.FuelType;
+import com.renault.garage.dao.repository.GarageFuelTypeCountRepository;
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.CreateVehicleDto;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.service.GarageService;
+import com.renault.garage.service.VehicleService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class GarageFuelTypeCountIntegrationTest {
+
+    @Autowired
+    GarageService garageService;
+
+    @Autowired
+    VehicleService vehicleService;
+
+    @Autowired
+    GarageFuelTypeCountRepository garageFuelTypeCountRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @Test
+    @DisplayName("Compteurs par carburant initialisés par la migration à partir des véhicules existants")
+    void migrationBackfillsCounters() {
+        List<Map<String, Object>> mismatches = jdbcTemplate.queryForList("""
+                SELECT c.garage_id, c.fuel_type FROM garage_fuel_type_count c
+                WHERE c.vehicle_count <> (SELECT COUNT(*) FROM vehicle_garages vg JOIN vehicle v ON v.id = vg.vehicle_id
+                                          WHERE vg.garage_id = c.garage_id AND v.fuel_type = c.fuel_type)""");
+        assertThat(mismatches).isEmpty();
+        assertThat(garageFuelTypeCountRepository.findByGarageId(1L)).hasSize(FuelType.values().length);
+    }
+
+    @Test
+    @DisplayName("Création, liaison, changement de carburant et suppression de véhicules -> compteurs et recherche à jour")
+    void countersFollowVehicles() throws Exception {
+        Long dieselOnly = createGarage("Diesel only");
+        Long mixed = createGarage("Mixed");
+        Long diesel = vehicleService.create(dieselOnly, new CreateVehicleDto("Master", 2022, FuelType.DIESEL)).id();
+        Long electric = vehicleService.create(mixed, new CreateVehicleDto("Zoe", 2024, FuelType.ELECTRIC)).id();
+        vehicleService.linkVehicleToGarage(mixed, diesel);
+
+        assertThat(counts(dieselOnly)).containsEntry(FuelType.DIESEL, 1).containsEntry(FuelType.ELECTRIC, 0);
+        assertThat(counts(mixed)).containsEntry(FuelType.DIESEL, 1).containsEntry(FuelType.ELECTRIC, 1);
+        assertThat(search(Set.of(FuelType.DIESEL, FuelType.ELECTRIC), 1, true)).contains(mixed).doesNotContain(dieselOnly);
+        assertThat(search(Set.of(FuelType.DIESEL, FuelType.ELECTRIC), 1, false)).contains(mixed, dieselOnly);
+
+        vehicleService.update(electric, new CreateVehicleDto("Zoe", 2024, FuelType.DIESEL));
+        assertThat(counts(mixed)).containsEntry(FuelType.DIESEL, 2).containsEntry(FuelType.ELECTRIC, 0);
+        assertThat(search(Set.of(FuelType.DIESEL), 2, true)).contains(mixed).doesNotContain(dieselOnly);
+
+        vehicleService.delete(diesel);
+        assertThat(counts(dieselOnly)).containsEntry(FuelType.DIESEL, 0);
+        assertThat(counts(mixed)).containsEntry(FuelType.DIESEL, 1);
+        assertThat(search(Set.of(FuelType.DIESEL), 1, true)).contains(mixed).doesNotContain(dieselOnly);
+    }
+
+    @Test
+    @DisplayName("GET byVehicleFuelTypes : carburant inconnu -> 400")
+    void unknownFuelType() {
+        assertThat(rest.getForEntity("/api/v1/garages/byVehicleFuelTypes?fuelType=DIESEL&fuelType=STEAM", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rest.getForEntity("/api/v1/garages/byVehicleFuelTypes?fuelType=DIESEL&minCount=1&match=ANY", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    private Long createGarage(String name) {
+        return garageService.createGarage(new CreateGarageDto(name, "Addr", "0102", "mail@test", Map.of())).id();
+    }
+
+    private Map<FuelType, Integer> counts(Long garageId) {
+        return garageFuelTypeCountRepository.findByGarageId(garageId).stream()
+                .collect(Collectors.toMap(GarageFuelTypeCount::getFuelType, GarageFuelTypeCount::getVehicleCount));
+    }
+
+    private List<Long> search(Set<FuelType> fuelTypes, int minCount, boolean all) {
+        return garageService.getGaragesHavingVehiclesWithFuelTypes(fuelTypes, minCount, all, PageRequest.of(0, 1000))
+                .map(GarageDto::id).getContent();
+    }
+}
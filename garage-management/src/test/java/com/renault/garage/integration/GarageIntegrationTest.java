@@ -11,14 +11,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -52,6 +57,17 @@ class GarageIntegrationTest {
         assertThat(getResp.getBody().openingHours()).containsKey(DayOfWeek.MONDAY);
     }
 
+    @Test
+    @DisplayName("Horaires de démo repris par la migration dans la colonne du garage, triés par jour et heure")
+    void migratedOpeningHours() {
+        GarageDto garage = rest.getForObject("/api/v1/garages/1", GarageDto.class);
+        assertThat(garage.openingHours()).containsOnlyKeys(DayOfWeek.MONDAY, DayOfWeek.SATURDAY);
+        assertThat(garage.openingHours().get(DayOfWeek.MONDAY)).extracting(OpeningTime::getStartTime)
+                .containsExactly(LocalTime.of(8, 0), LocalTime.of(13, 30));
+        assertThat(garage.openingHours().get(DayOfWeek.SATURDAY)).extracting(OpeningTime::getEndTime)
+                .containsExactly(LocalTime.of(13, 0), LocalTime.of(16, 0));
+    }
+
     @Test
     @DisplayName("Pagination garages par défaut")
     void listGaragesPaged() throws Exception {
@@ -60,5 +76,148 @@ class GarageIntegrationTest {
         JsonNode tree = mapper.readTree(resp.getBody());
         assertThat(tree.get("size").asInt()).isEqualTo(3);
     }
-}
 
+    @Test
+    @DisplayName("Mise à jour conditionnelle : If-Match courant -> 200, If-Match périmé -> 412 sans écraser")
+    void conditionalUpdate() {
+        CreateGarageDto payload = new CreateGarageDto("IfMatch", "Addr", "0102", "mail@test", Map.of());
+        Long id = rest.postForEntity("/api/v1/garages", payload, GarageDto.class).getBody().id();
+        String url = "/api/v1/garages/" + id;
+        String etag = rest.getForEntity(url, GarageDto.class).getHeaders().getETag();
+
+        ResponseEntity<GarageDto> first = putIfMatch(url, etag, new CreateGarageDto("Premier", null, null, null, null));
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).isNotNull().isNotEqualTo(etag);
+
+        ResponseEntity<GarageDto> second = putIfMatch(url, etag, new CreateGarageDto("Second", null, null, null, null));
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(rest.getForObject(url, GarageDto.class).name()).isEqualTo("Premier");
+    }
+
+    private ResponseEntity<GarageDto> putIfMatch(String url, String etag, CreateGarageDto body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(etag);
+        return rest.exchange(url, HttpMethod.PUT, new HttpEntity<>(body, headers), GarageDto.class);
+    }
+
+    @Test
+    @DisplayName("Synthèse d'un garage : véhicules, accessoires et agrégats ; garage inconnu -> 404")
+    void garageSummary() throws Exception {
+        ResponseEntity<String> resp = rest.getForEntity("/api/v1/garages/1/summary", String.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode body = mapper.readTree(resp.getBody());
+        assertThat(body.path("garage").path("id").asLong()).isEqualTo(1L);
+        assertThat(body.path("vehicles").isArray()).isTrue();
+        assertThat(body.path("vehicleCountByFuelType").size()).isEqualTo(4);
+        assertThat(body.path("remainingCapacity").asInt()).isGreaterThanOrEqualTo(0);
+
+        assertThat(rest.getForEntity("/api/v1/garages/999999/summary", String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("Garages ouverts : horaires de démo, puis horaires modifiés visibles dans l'index")
+    void openGarages() throws Exception {
+        assertThat(openGarageIds("2024-01-01T07:45")).contains(3L).doesNotContain(1L, 2L, 5L);
+        assertThat(openGarageIds("2024-01-01T07:45&fuelType=GASOLINE")).contains(3L);
+        assertThat(openGarageIds("2024-01-01T07:45&fuelType=ELECTRIC")).doesNotContain(3L);
+
+        CreateGarageDto payload = new CreateGarageDto("Nuit", "Addr", "0102", "mail@test",
+                Map.of(DayOfWeek.WEDNESDAY, List.of(new OpeningTime(LocalTime.of(3, 0), LocalTime.of(3, 7)))));
+        Long id = rest.postForEntity("/api/v1/garages", payload, GarageDto.class).getBody().id();
+        assertThat(openGarageIds("2024-01-03T03:06")).contains(id);
+        assertThat(openGarageIds("2024-01-03T03:07")).doesNotContain(id);
+
+        rest.put("/api/v1/garages/" + id, new CreateGarageDto(null, null, null, null,
+                Map.of(DayOfWeek.THURSDAY, List.of(new OpeningTime(LocalTime.of(3, 0), LocalTime.of(3, 7))))));
+        assertThat(openGarageIds("2024-01-03T03:06")).doesNotContain(id);
+        assertThat(openGarageIds("2024-01-04T03:06")).contains(id);
+    }
+
+    @Test
+    @DisplayName("Garages proches : positions de démo, puis garage créé, déplacé et supprimé suivi par l'index")
+    void nearbyGarages() throws Exception {
+        // Paris centre : garage 1 sur place, puis Est, Sud, Nord et Ouest
+        assertThat(nearbyGarageIds("lat=48.8566&lon=2.3522&radius=20")).containsExactly(1L, 5L, 3L, 2L, 4L);
+        assertThat(nearbyGarageIds("lat=48.8566&lon=2.3522&radius=20&limit=2")).containsExactly(1L, 5L);
+        assertThat(nearbyGarageIds("lat=48.8566&lon=2.3522&radius=7.2")).containsExactly(1L, 5L);
+
+        CreateGarageDto payload = new CreateGarageDto("Lyon", "Addr", "0102", "mail@test", Map.of(), 45.7640, 4.8357);
+        Long id = rest.postForEntity("/api/v1/garages", payload, GarageDto.class).getBody().id();
+        assertThat(nearbyGarageIds("lat=45.76&lon=4.83&radius=5&minCapacity=1")).containsExactly(id);
+        assertThat(nearbyGarageIds("lat=45.76&lon=4.83&radius=5&fuelType=DIESEL")).isEmpty();
+
+        rest.put("/api/v1/garages/" + id, new CreateGarageDto(null, null, null, null, null, 43.2965, 5.3698));
+        assertThat(nearbyGarageIds("lat=45.76&lon=4.83&radius=5")).isEmpty();
+        assertThat(nearbyGarageIds("lat=43.30&lon=5.37&radius=5")).containsExactly(id);
+
+        rest.delete("/api/v1/garages/" + id + "/location");
+        assertThat(nearbyGarageIds("lat=43.30&lon=5.37&radius=5")).isEmpty();
+        assertThat(rest.getForObject("/api/v1/garages/" + id, GarageDto.class).latitude()).isNull();
+
+        rest.delete("/api/v1/garages/" + id);
+    }
+
+    @Test
+    @DisplayName("Position invalide à la création ou à la modification -> 400, garage inchangé")
+    void invalidLocation() {
+        CreateGarageDto outOfRange = new CreateGarageDto("Loin", "Addr", "0102", "mail@test", Map.of(), 500.0, 2.35);
+        assertThat(rest.postForEntity("/api/v1/garages", outOfRange, String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        CreateGarageDto latitudeOnly = new CreateGarageDto("Demi", "Addr", "0102", "mail@test", Map.of(), 48.85, null);
+        assertThat(rest.postForEntity("/api/v1/garages", latitudeOnly, String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        ResponseEntity<String> put = rest.exchange("/api/v1/garages/1", HttpMethod.PUT,
+                new HttpEntity<>(new CreateGarageDto(null, null, null, null, null, null, 2.35)), String.class);
+        assertThat(put.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rest.getForObject("/api/v1/garages/1", GarageDto.class).latitude()).isEqualTo(48.8566);
+    }
+
+    private List<Long> nearbyGarageIds(String query) throws Exception {
+        ResponseEntity<String> resp = rest.getForEntity("/api/v1/garages/nearby?" + query, String.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<Long> ids = new ArrayList<>();
+        mapper.readTree(resp.getBody()).forEach(nearby -> ids.add(nearby.path("garage").path("id").asLong()));
+        return ids;
+    }
+
+    private List<Long> openGarageIds(String at) throws Exception {
+        ResponseEntity<String> resp = rest.getForEntity("/api/v1/garages/open?size=100&at=" + at, String.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<Long> ids = new ArrayList<>();
+        mapper.readTree(resp.getBody()).path("content").forEach(garage -> ids.add(garage.path("id").asLong()));
+        return ids;
+    }
+
+    @Test
+    @DisplayName("PATCH des horaires : seul le jour modifié change, un PATCH identique garde la version")
+    void patchOpeningHours() {
+        CreateGarageDto payload = new CreateGarageDto("Patch", "Addr", "0102", "mail@test", Map.of(
+                DayOfWeek.MONDAY, List.of(new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0))),
+                DayOfWeek.FRIDAY, List.of(new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0)))));
+        Long id = rest.postForEntity("/api/v1/garages", payload, GarageDto.class).getBody().id();
+        String url = "/api/v1/garages/" + id + "/opening-hours";
+        Map<DayOfWeek, List<OpeningTime>> friday = Map.of(DayOfWeek.FRIDAY, List.of(new OpeningTime(LocalTime.of(14, 0), LocalTime.of(19, 0))));
+
+        ResponseEntity<GarageDto> first = rest.exchange(url, HttpMethod.PATCH, new HttpEntity<>(friday), GarageDto.class);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody().openingHours().get(DayOfWeek.MONDAY)).extracting(OpeningTime::getStartTime).containsExactly(LocalTime.of(8, 0));
+        assertThat(first.getBody().openingHours().get(DayOfWeek.FRIDAY)).extracting(OpeningTime::getStartTime).containsExactly(LocalTime.of(14, 0));
+
+        ResponseEntity<GarageDto> second = rest.exchange(url, HttpMethod.PATCH, new HttpEntity<>(friday), GarageDto.class);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("Horaires trop longs pour leur colonne -> 400 et non une erreur à l'écriture")
+    void openingHoursTooLong() {
+        List<OpeningTime> slots = IntStream.range(0, 100)
+                .mapToObj(i -> new OpeningTime(LocalTime.of(8, 0).plusMinutes(2L * i), LocalTime.of(8, 1).plusMinutes(2L * i)))
+                .toList();
+        CreateGarageDto payload = new CreateGarageDto("Long", "Addr", "0102", "mail@test", Map.of(DayOfWeek.MONDAY, slots));
+        assertThat(rest.postForEntity("/api/v1/garages", payload, String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        ResponseEntity<String> patch = rest.exchange("/api/v1/garages/1/opening-hours", HttpMethod.PATCH,
+                new HttpEntity<>(Map.of(DayOfWeek.MONDAY, slots)), String.class);
+        assertThat(patch.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
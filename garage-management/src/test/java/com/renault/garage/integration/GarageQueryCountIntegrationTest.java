@@ -0,0 +1,114 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.dao.entity.OpeningTime;
+import com.renault.garage.dto.BatchGetResultDto;
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.dto.GarageScrollDto;
+import com.renault.garage.dto.GarageSummaryDto;
+import com.renault.garage.dto.ScrollCursor;
+import com.renault.garage.service.GarageService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class GarageQueryCountIntegrationTest {
+
+    @Autowired
+    GarageService garageService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        Map<DayOfWeek, List<OpeningTime>> opening = Map.of(
+                DayOfWeek.MONDAY, List.of(new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0)), new OpeningTime(LocalTime.of(14, 0), LocalTime.of(18, 0))),
+                DayOfWeek.SATURDAY, List.of(new OpeningTime(LocalTime.of(9, 0), LocalTime.of(12, 0)))
+        );
+        for (int i = 0; i < 100; i++) {
+            garageService.createGarage(new CreateGarageDto("Stat " + i, "Addr", "0102", "mail@x", opening));
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Page de 100 garages -> nombre de requêtes constant")
+    void garagePageCostsConstantStatements() {
+        Page<GarageDto> page = garageService.getGarages(PageRequest.of(0, 100, Sort.by("name")));
+
+        assertThat(page.getContent()).hasSize(100).allSatisfy(garage -> assertThat(garage).isNotNull());
+        // page of ids + count + garages with their slots
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Garages par carburant -> nombre de requêtes constant")
+    void fuelTypePageCostsConstantStatements() {
+        Page<GarageDto> page = garageService.getGaragesHavingVehiclesWithFuelType("DIESEL", PageRequest.of(0, 100, Sort.by("id")));
+
+        assertThat(page.getContent()).isNotEmpty().allSatisfy(garage -> assertThat(garage.openingHours()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Synthèse d'un garage -> deux requêtes, quel que soit le nombre de véhicules")
+    void garageSummaryCostsTwoStatements() {
+        GarageSummaryDto summary = garageService.getGarageSummary(1L);
+
+        assertThat(summary.vehicles()).isNotEmpty();
+        assertThat(summary.garage().openingHours()).isNotNull();
+        // garage with its slots + vehicles with their accessories
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Lecture par liste d'ids -> une requête par lot, créneaux compris, ordre demandé conservé")
+    void batchGetCostsOneStatementPerChunk() {
+        List<Long> ids = garageService.getGarages(PageRequest.of(0, 100, Sort.by("id"))).map(GarageDto::id).getContent().reversed();
+        statistics.clear();
+
+        BatchGetResultDto<GarageDto> result = garageService.getGaragesByIds(ids);
+
+        assertThat(result.found()).extracting(GarageDto::id).containsExactlyElementsOf(ids);
+        assertThat(result.found()).allSatisfy(garage -> assertThat(garage.openingHours()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Parcours par curseur -> une requête par page, même loin dans la liste, sans comptage")
+    void scrollCostsOneStatementPerPage() {
+        GarageScrollDto page = garageService.scrollGarages(Sort.Order.asc("name"), null, null, 10, false);
+        for (int i = 0; i < 8; i++) {
+            page = garageService.scrollGarages(Sort.Order.asc("name"), ScrollCursor.decode(page.nextCursor()), null, 10, false);
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(9);
+
+        statistics.clear();
+        GarageScrollDto deep = garageService.scrollGarages(null, ScrollCursor.decode(page.nextCursor()), null, 10, false);
+        assertThat(deep.content()).hasSize(10);
+        assertThat(deep.totalElements()).isNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.renault.garage.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.GarageDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class GarageScrollIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Parcours complet par curseur, tri croissant et décroissant avec des noms absents ou égaux -> chaque garage une fois, dans l'ordre")
+    void scrollVisitsEveryGarageOnce() throws Exception {
+        for (String name : new String[]{null, "Dupont", "Dupont", null, "Albert", "Zola"}) {
+            rest.postForEntity("/api/v1/garages", new CreateGarageDto(name, "Addr", "0102", "mail@test", Map.of()), GarageDto.class);
+        }
+
+        assertThat(scrollAll("/api/v1/garages/scroll?size=3&sort=name;asc"))
+                .containsExactlyElementsOf(jdbcTemplate.queryForList("SELECT id FROM garage ORDER BY name ASC NULLS FIRST, id ASC", Long.class));
+        assertThat(scrollAll("/api/v1/garages/scroll?size=2&sort=name;desc"))
+                .containsExactlyElementsOf(jdbcTemplate.queryForList("SELECT id FROM garage ORDER BY name DESC NULLS LAST, id DESC", Long.class));
+        assertThat(scrollAll("/api/v1/garages/scroll?size=4"))
+                .containsExactlyElementsOf(jdbcTemplate.queryForList("SELECT id FROM garage ORDER BY id", Long.class));
+    }
+
+    @Test
+    @DisplayName("Parcours par carburant avec total en cache, curseur invalide -> 400")
+    void scrollByFuelTypeWithTotal() throws Exception {
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT garage_id FROM garage_fuel_type_count WHERE fuel_type = 'DIESEL' AND vehicle_count >= 1 ORDER BY garage_id", Long.class);
+
+        JsonNode first = mapper.readTree(rest.getForObject("/api/v1/garages/byVehicleFuelType/DIESEL/scroll?size=1&withTotal=true", String.class));
+        assertThat(first.path("totalElements").asLong()).isEqualTo(expected.size());
+        assertThat(scrollAll("/api/v1/garages/byVehicleFuelType/DIESEL/scroll?size=1")).containsExactlyElementsOf(expected);
+
+        assertThat(rest.getForEntity("/api/v1/garages/scroll?cursor=abc", String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rest.getForEntity("/api/v1/garages/scroll?sort=version;asc", String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private List<Long> scrollAll(String url) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            ResponseEntity<String> resp = rest.getForEntity(cursor == null ? url : url + "&cursor=" + cursor, String.class);
+            assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+            JsonNode body = mapper.readTree(resp.getBody());
+            body.path("content").forEach(garage -> ids.add(garage.path("id").asLong()));
+            cursor = body.path("nextCursor").isNull() ? null : body.path("nextCursor").asText();
+        } while (cursor != null);
+        return ids;
+    }
+}
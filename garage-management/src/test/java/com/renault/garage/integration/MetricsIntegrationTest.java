@@ -0,0 +1,45 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.GarageDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class MetricsIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @Test
+    @DisplayName("Métriques Prometheus : requêtes SQL, temps par endpoint, contrôleur et service, tranche de garage")
+    void prometheusExposesEndpointMetrics() {
+        Long id = rest.postForEntity("/api/v1/garages", new CreateGarageDto("Metrics", "Addr", "0102", "mail@test", Map.of()), GarageDto.class)
+                .getBody().id();
+        assertThat(rest.getForEntity("/api/v1/garages/" + id, String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rest.getForEntity("/api/v1/garages/byVehicleFuelType/DIESEL", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<String> scrape = rest.getForEntity("/actuator/prometheus", String.class);
+        assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(scrape.getBody())
+                .containsPattern("garage_http_sql_statements_count\\{garage_bucket=\"0-999\",method=\"GET\",uri=\"/api/v1/garages/\\{id}\"} 1")
+                .containsPattern("garage_http_sql_statements_sum\\{garage_bucket=\"none\",method=\"GET\",uri=\"/api/v1/garages/byVehicleFuelType/\\{vehicleFuelType}\"} [1-9]")
+                .containsPattern("garage_http_sql_time_seconds_bucket\\{garage_bucket=\"none\",method=\"POST\",uri=\"/api/v1/garages\",le=")
+                .containsPattern("http_server_requests_seconds_bucket\\{error=\"none\",exception=\"none\",garage_bucket=\"0-999\",method=\"GET\"")
+                .containsPattern("garage_controller_seconds_bucket\\{class=\"GarageController\",method=\"listGaragesByVehicleFuelType\",le=")
+                .containsPattern("garage_service_seconds_count\\{class=\"GarageService\",method=\"getGaragesHavingVehiclesWithFuelType\"} 1");
+    }
+}
@@ -0,0 +1,134 @@
+package com.renault.garage.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renault.garage.consumer.LocalBrokerOutboxSink;
+import com.renault.garage.dao.repository.OutboxEventRepository;
+import com.renault.garage.dto.AccessoryDto;
+import com.renault.garage.dto.CreateAccessoryDto;
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.dto.OutboxEventDto;
+import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.service.OutboxService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "garage.outbox.batch-size=3",
+        "garage.outbox.sinks.file.enabled=true",
+        "garage.outbox.sinks.file.path=target/outbox-test/outbox.ndjson",
+        "garage.outbox.sinks.broker.enabled=true"
+})
+@ActiveProfiles("test")
+class OutboxIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Autowired
+    OutboxService outboxService;
+
+    @Autowired
+    LocalBrokerOutboxSink broker;
+
+    @Autowired
+    OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private List<JsonNode> readOutbox(long after) throws IOException {
+        List<JsonNode> events = new ArrayList<>();
+        JsonNode page;
+        do {
+            page = mapper.readTree(rest.getForObject("/api/v1/outbox?limit=2&after=" + after, String.class));
+            page.forEach(events::add);
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).get("position").asLong();
+            }
+        } while (!page.isEmpty());
+        return events;
+    }
+
+    @Test
+    @DisplayName("Les changements sont écrits dans l'outbox puis relayés dans l'ordre aux sinks")
+    void changesAreRelayedInOrder() throws IOException {
+        outboxService.relayPending();
+        List<JsonNode> before = readOutbox(0);
+        long start = before.isEmpty() ? 0 : before.getLast().get("position").asLong();
+
+        GarageDto garage = rest.postForEntity("/api/v1/garages",
+                new CreateGarageDto("OutboxGarage", "Addr", "0123", "mail@x", Collections.emptyMap()), GarageDto.class).getBody();
+        Assertions.assertNotNull(garage);
+        VehicleDto vehicle = rest.postForEntity("/api/v1/garages/" + garage.id() + "/vehicles",
+                Map.of("brand", "Outbox", "yearOfManufacture", 2024, "fuelType", "DIESEL"), VehicleDto.class).getBody();
+        Assertions.assertNotNull(vehicle);
+        rest.exchange("/api/v1/vehicles/" + vehicle.id(), HttpMethod.PUT,
+                new HttpEntity<>(Map.of("brand", "Outbox 2", "yearOfManufacture", 2024, "fuelType", "DIESEL")), VehicleDto.class);
+        AccessoryDto accessory = rest.postForEntity("/api/v1/vehicles/" + vehicle.id() + "/accessories",
+                new CreateAccessoryDto("GPS", "Navigation", 100.0, "ELECTRONIC"), AccessoryDto.class).getBody();
+        Assertions.assertNotNull(accessory);
+        rest.delete("/api/v1/accessories/" + accessory.id());
+        ResponseEntity<Void> deleted = rest.exchange("/api/v1/vehicles/" + vehicle.id(), HttpMethod.DELETE, null, Void.class);
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        assertThat(readOutbox(start)).isEmpty();
+        assertThat(outboxService.relayPending()).isGreaterThanOrEqualTo(6);
+
+        List<JsonNode> events = readOutbox(start);
+        assertThat(events).extracting(e -> e.get("aggregateType").asText() + ":" + e.get("type").asText()).containsExactly(
+                "GARAGE:CREATED", "VEHICLE:CREATED", "VEHICLE:UPDATED", "ACCESSORY:CREATED", "ACCESSORY:DELETED", "VEHICLE:DELETED");
+        assertThat(events.get(2).get("payload").get("brand").asText()).isEqualTo("Outbox 2");
+        assertThat(events.get(5).get("payload").isNull()).isTrue();
+        assertThat(events).extracting(e -> e.get("position").asLong()).isSorted().doesNotHaveDuplicates();
+
+        assertThat(broker.poll("VEHICLE", start, 10)).extracting(OutboxEventDto::aggregateId).containsOnly(vehicle.id());
+        assertThat(Files.readAllLines(Path.of("target/outbox-test/outbox.ndjson")))
+                .anySatisfy(line -> assertThat(line).contains("\"aggregateType\":\"GARAGE\"").contains("\"aggregateId\":" + garage.id()));
+    }
+
+    @Test
+    @DisplayName("Purge de tous les événements relayés -> les positions suivantes continuent après la dernière")
+    void positionsKeepIncreasingAfterPurge() throws IOException {
+        rest.postForEntity("/api/v1/garages", new CreateGarageDto("Purge 1", "Addr", "0123", "mail@x", Collections.emptyMap()), GarageDto.class);
+        outboxService.relayPending();
+        List<JsonNode> relayed = readOutbox(0);
+        assertThat(relayed).isNotEmpty();
+        long last = relayed.getLast().get("position").asLong();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                outboxEventRepository.deleteRelayedBefore(Instant.now().plusSeconds(60)));
+        assertThat(readOutbox(0)).isEmpty();
+
+        rest.postForEntity("/api/v1/garages", new CreateGarageDto("Purge 2", "Addr", "0123", "mail@x", Collections.emptyMap()), GarageDto.class);
+        outboxService.relayPending();
+        assertThat(readOutbox(last)).isNotEmpty()
+                .allSatisfy(e -> assertThat(e.get("position").asLong()).isGreaterThan(last));
+    }
+}
@@ -0,0 +1,83 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.GarageDto;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Both pools point to the same in-memory database, as a replica kept in sync would: the pool used by a transaction
+ * is read from the Hikari active connections while it runs.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:read-replica-test;DB_CLOSE_DELAY=-1",
+        "garage.datasource.replica.url=jdbc:h2:mem:read-replica-test;DB_CLOSE_DELAY=-1",
+        "garage.datasource.replica.username=sa",
+        "garage.datasource.replica.hikari.pool-name=garage-replica",
+        "garage.datasource.replica.hikari.read-only=true",
+        "spring.jpa.open-in-view=false"
+})
+@ActiveProfiles("test")
+class ReadReplicaIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @Autowired
+    GarageRepository garageRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replicaDataSource;
+
+    @Test
+    @DisplayName("Transaction en lecture seule -> pool replica, transaction d'écriture -> pool primaire")
+    void readOnlyTransactionsUseTheReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            garageRepository.count();
+            assertThat(replicaDataSource.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+        });
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            garageRepository.count();
+            assertThat(primaryDataSource.getHikariPoolMXBean().getActiveConnections()).isGreaterThanOrEqualTo(1);
+            assertThat(replicaDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+        });
+    }
+
+    @Test
+    @DisplayName("Créer un garage sur le primaire puis le relire via le replica")
+    void writeThenRead() {
+        CreateGarageDto payload = new CreateGarageDto("Replica", "Addr", "0102", "mail@test", Map.of());
+        ResponseEntity<GarageDto> created = rest.postForEntity("/api/v1/garages", payload, GarageDto.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<GarageDto> read = rest.getForEntity("/api/v1/garages/" + created.getBody().id(), GarageDto.class);
+        assertThat(read.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(read.getBody().name()).isEqualTo("Replica");
+    }
+}
@@ -0,0 +1,105 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.dto.AccessoryDto;
+import com.renault.garage.dto.CreateAccessoryDto;
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.dto.VehicleDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ResponseCacheIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    private GarageDto createGarage(String name) {
+        CreateGarageDto dto = new CreateGarageDto(name, "Addr", "0123", "mail@x", Collections.emptyMap());
+        return rest.postForEntity("/api/v1/garages", dto, GarageDto.class).getBody();
+    }
+
+    private <T> ResponseEntity<T> getIfNoneMatch(String url, String etag, Class<T> type) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type);
+    }
+
+    @Test
+    @DisplayName("GET garage avec l'ETag courant -> 304, puis 200 avec un nouvel ETag après modification")
+    void garageEtagFollowsVersion() {
+        GarageDto garage = createGarage("Etag");
+        String url = "/api/v1/garages/" + garage.id();
+
+        ResponseEntity<GarageDto> first = rest.getForEntity(url, GarageDto.class);
+        String etag = first.getHeaders().getETag();
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(etag).isNotNull();
+
+        ResponseEntity<GarageDto> notModified = getIfNoneMatch(url, etag, GarageDto.class);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+
+        rest.put(url, new CreateGarageDto("Etag renommé", null, null, null, null));
+
+        ResponseEntity<GarageDto> modified = getIfNoneMatch(url, etag, GarageDto.class);
+        assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modified.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(modified.getBody().name()).isEqualTo("Etag renommé");
+    }
+
+    @Test
+    @DisplayName("GET véhicule et accessoires -> ETag modifié par la mise à jour et l'ajout d'un accessoire")
+    void vehicleAndAccessoriesEtags() {
+        GarageDto garage = createGarage("EtagVehicle");
+        VehicleDto vehicle = rest.postForEntity("/api/v1/garages/" + garage.id() + "/vehicles",
+                Map.of("brand", "Clio", "yearOfManufacture", 2022, "fuelType", "GASOLINE"), VehicleDto.class).getBody();
+        String vehicleUrl = "/api/v1/vehicles/" + vehicle.id();
+        String accessoriesUrl = vehicleUrl + "/accessories";
+
+        String vehicleEtag = rest.getForEntity(vehicleUrl, VehicleDto.class).getHeaders().getETag();
+        assertThat(getIfNoneMatch(vehicleUrl, vehicleEtag, VehicleDto.class).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        rest.put(vehicleUrl, Map.of("brand", "Clio V"));
+        ResponseEntity<VehicleDto> updated = getIfNoneMatch(vehicleUrl, vehicleEtag, VehicleDto.class);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(updated.getBody().brand()).isEqualTo("Clio V");
+
+        ResponseEntity<AccessoryDto[]> empty = rest.getForEntity(accessoriesUrl, AccessoryDto[].class);
+        String listEtag = empty.getHeaders().getETag();
+        assertThat(empty.getBody()).isEmpty();
+        assertThat(getIfNoneMatch(accessoriesUrl, listEtag, AccessoryDto[].class).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        rest.postForEntity(accessoriesUrl, new CreateAccessoryDto("GPS", "Navigation", 150.0, "NAV"), AccessoryDto.class);
+
+        ResponseEntity<AccessoryDto[]> withAccessory = getIfNoneMatch(accessoriesUrl, listEtag, AccessoryDto[].class);
+        assertThat(withAccessory.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(withAccessory.getBody()).extracting(AccessoryDto::name).containsExactly("GPS");
+    }
+
+    @Test
+    @DisplayName("GET garage inconnu -> 404")
+    void unknownGarage() {
+        assertThat(rest.getForEntity("/api/v1/garages/999999", GarageDto.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("GET accessoires d'un véhicule inconnu -> 404, pas une liste vide")
+    void unknownVehicleAccessories() {
+        assertThat(rest.getForEntity("/api/v1/vehicles/999999/accessories", String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
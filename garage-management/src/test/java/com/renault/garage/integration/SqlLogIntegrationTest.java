@@ -0,0 +1,78 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.metrics.SqlLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "garage.sql.slow-threshold=1m")
+@ExtendWith(OutputCaptureExtension.class)
+@ActiveProfiles("test")
+class SqlLogIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @AfterEach
+    void restoreSettings() {
+        SqlLog.configure(new SqlLog.Settings(Duration.ofMinutes(1), 1.0, false));
+    }
+
+    @Test
+    @DisplayName("En-tête X-Sql-Trace honoré seulement une fois activé via /actuator/sqllog")
+    void traceRequestWithHeader(CapturedOutput output) {
+        ResponseEntity<String> ignored = getTraced("/api/v1/garages/byVehicleFuelType/GASOLINE");
+        assertThat(ignored.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(rest.postForEntity("/actuator/sqllog", Map.of("traceHeaderEnabled", true), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+        assertThat(getTraced("/api/v1/garages?page=0&size=2").getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(output.getOut()).contains("request=\"GET /api/v1/garages\"").contains("statement=\"select"));
+        assertThat(output.getOut()).doesNotContain("GASOLINE").doesNotContain("slow_sql");
+    }
+
+    @Test
+    @DisplayName("Seuil de lenteur abaissé à chaud -> requêtes SQL journalisées comme lentes")
+    void slowQueriesAboveThreshold(CapturedOutput output) {
+        rest.postForEntity("/actuator/sqllog", Map.of("slowThresholdMs", 0), String.class);
+        rest.getForEntity("/api/v1/garages/byVehicleFuelType/DIESEL", String.class);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(output.getOut()).contains("slow_sql").contains("request=\"GET /api/v1/garages/byVehicleFuelType/DIESEL\""));
+    }
+
+    @Test
+    @DisplayName("Taux d'échantillonnage hors de [0, 1] -> 400")
+    void invalidSampleRate() {
+        ResponseEntity<String> response = rest.postForEntity("/actuator/sqllog", Map.of("slowSampleRate", 2.0), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Map<?, ?> settings = rest.getForObject("/actuator/sqllog", Map.class);
+        assertThat(settings.get("slowSampleRate")).isEqualTo(1.0);
+    }
+
+    private ResponseEntity<String> getTraced(String url) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(SqlLog.TRACE_HEADER, "true");
+        return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -0,0 +1,131 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.dto.CreateGarageDto;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.dto.VehicleImportReportDto;
+import com.renault.garage.dto.VehicleImportRowDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class VehicleImportIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    private Long createEmptyGarage() {
+        CreateGarageDto dto = new CreateGarageDto("ImportGarage", "Addr", "0123", "mail@x", Collections.emptyMap());
+        ResponseEntity<GarageDto> resp = rest.postForEntity("/api/v1/garages", dto, GarageDto.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        Assertions.assertNotNull(resp.getBody());
+        return resp.getBody().id();
+    }
+
+    private ResponseEntity<VehicleImportReportDto> importDocument(String body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        return rest.postForEntity("/api/v1/vehicles/import", new HttpEntity<>(body, headers), VehicleImportReportDto.class);
+    }
+
+    @Test
+    @DisplayName("Import CSV : capacité respectée par garage et rapport ligne par ligne")
+    void importCsvReportsEachRow() {
+        Long garageId = createEmptyGarage();
+        String csv = """
+                garageId,brand,yearOfManufacture,fuelType
+                %1$d,Renault Clio,2022,GASOLINE
+                %1$d,Renault Zoe,2024,electric
+                %1$d,Renault Megane,2023,DIESEL
+                999999,Renault Twingo,2024,ELECTRIC
+                %1$d,Renault Kangoo,2021,STEAM
+                %1$d,Renault Master,deux mille
+                """.formatted(garageId);
+
+        ResponseEntity<VehicleImportReportDto> resp = importDocument(csv, MediaType.parseMediaType("text/csv"));
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        VehicleImportReportDto report = resp.getBody();
+        Assertions.assertNotNull(report);
+        assertThat(report.total()).isEqualTo(6);
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.rejected()).isEqualTo(4);
+        assertThat(report.rows()).extracting(VehicleImportRowDto::row).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(report.rows()).extracting(VehicleImportRowDto::status).containsExactly(
+                VehicleImportRowDto.Status.IMPORTED, VehicleImportRowDto.Status.IMPORTED, VehicleImportRowDto.Status.REJECTED,
+                VehicleImportRowDto.Status.REJECTED, VehicleImportRowDto.Status.REJECTED, VehicleImportRowDto.Status.REJECTED);
+        assertThat(report.rows().get(2).message()).contains("Capacité maximale");
+        assertThat(report.rows().get(3).message()).contains("Garage introuvable");
+
+        VehicleDto[] vehicles = rest.getForObject("/api/v1/garage/" + garageId + "/vehicles", VehicleDto[].class);
+        assertThat(vehicles).extracting(VehicleDto::id)
+                .containsExactlyInAnyOrder(report.rows().get(0).vehicleId(), report.rows().get(1).vehicleId());
+    }
+
+    @Test
+    @DisplayName("Import JSON : une ligne invalide ne bloque pas les autres")
+    void importJsonRejectsInvalidRowsOnly() {
+        Long garageId = createEmptyGarage();
+        String json = """
+                [
+                  {"garageId": %1$d, "brand": "Renault Captur", "yearOfManufacture": 2023, "fuelType": "HYBRID"},
+                  {"garageId": %1$d, "brand": "Renault Arkana", "yearOfManufacture": "récente", "fuelType": "GASOLINE"},
+                  {"garageId": %1$d, "brand": "", "yearOfManufacture": 2022, "fuelType": "GASOLINE"},
+                  {"garageId": %1$d, "brand": "Renault Espace", "yearOfManufacture": 2021, "fuelType": "DIESEL"}
+                ]
+                """.formatted(garageId);
+
+        ResponseEntity<VehicleImportReportDto> resp = importDocument(json, MediaType.APPLICATION_JSON);
+
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        VehicleImportReportDto report = resp.getBody();
+        Assertions.assertNotNull(report);
+        assertThat(report.rows()).extracting(VehicleImportRowDto::status).containsExactly(
+                VehicleImportRowDto.Status.IMPORTED, VehicleImportRowDto.Status.REJECTED,
+                VehicleImportRowDto.Status.REJECTED, VehicleImportRowDto.Status.IMPORTED);
+        assertThat(rest.getForObject("/api/v1/garage/" + garageId + "/vehicles", VehicleDto[].class)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Import JSON : document qui n'est pas un tableau -> 400")
+    void importJsonRejectsNonArray() {
+        ResponseEntity<VehicleImportReportDto> resp = importDocument("{\"garageId\": 1}", MediaType.APPLICATION_JSON);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @DisplayName("Import d'un gros volume : plusieurs lots, identifiants uniques")
+    void importSeveralChunks() {
+        int garages = 600;
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < garages; i++) {
+            Long garageId = createEmptyGarage();
+            csv.append(garageId).append(",Lot ").append(i).append(",2024,DIESEL\n");
+            csv.append(garageId).append(",Lot ").append(i).append(" bis,2024,ELECTRIC\n");
+        }
+
+        VehicleImportReportDto report = importDocument(csv.toString(), MediaType.parseMediaType("text/csv")).getBody();
+
+        Assertions.assertNotNull(report);
+        assertThat(report.imported()).isEqualTo(2 * garages);
+        assertThat(report.rows()).extracting(VehicleImportRowDto::vehicleId).doesNotHaveDuplicates().doesNotContainNull();
+        List<Long> ids = report.rows().stream().map(VehicleImportRowDto::vehicleId).toList();
+        assertThat(rest.getForObject("/api/v1/vehicles/" + ids.getLast(), VehicleDto.class).brand()).isEqualTo("Lot 599 bis");
+    }
+}
@@ -2,23 +2,37 @@ package com.renault.garage.integration;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.renault.garage.dto.BatchGetRequestDto;
+import com.renault.garage.dto.BatchGetResultDto;
 import com.renault.garage.dto.CreateGarageDto;
 import com.renault.garage.dto.GarageDto;
 import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.dto.VehiclePageDto;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -48,6 +62,20 @@ class VehicleIntegrationTest {
         return rest.postForEntity("/api/v1/garages/"+garageId+"/vehicles", payload, VehicleDto.class);
     }
 
+    @Test
+    @DisplayName("Lecture par liste d'ids : ordre demandé, ids manquants ; plus de 1000 ids -> 400")
+    void batchGet() throws Exception {
+        ResponseEntity<String> resp = rest.postForEntity("/api/v1/vehicles/batch-get", new BatchGetRequestDto(List.of(3L, 1L, 999_999L, 3L)), String.class);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        BatchGetResultDto<VehicleDto> result = mapper.readValue(resp.getBody(), new TypeReference<>() {});
+        assertThat(result.found()).extracting(VehicleDto::id).containsExactly(3L, 1L);
+        assertThat(result.missing()).containsExactly(999_999L);
+
+        List<Long> tooMany = IntStream.rangeClosed(1, 1001).mapToObj(Long::valueOf).toList();
+        assertThat(rest.postForEntity("/api/v1/vehicles/batch-get", new BatchGetRequestDto(tooMany), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     @DisplayName("Créer 2 véhicules puis échec à la 3e (capacité=2)")
     void capacityExceededOnThirdVehicle() {
@@ -65,6 +93,62 @@ class VehicleIntegrationTest {
         assertThat(v3.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
     }
 
+    @Test
+    @DisplayName("Créations concurrentes -> jamais plus que la capacité (2)")
+    void concurrentCreationsNeverExceedCapacity() throws Exception {
+        Long garageId = createEmptyGarage();
+
+        List<Callable<HttpStatusCode>> calls = IntStream.range(0, 8)
+                .<Callable<HttpStatusCode>>mapToObj(i -> () -> rest.postForEntity("/api/v1/garages/" + garageId + "/vehicles",
+                        Map.of("brand", "Concurrent " + i, "yearOfManufacture", 2024, "fuelType", "DIESEL"), String.class).getStatusCode())
+                .toList();
+        List<HttpStatusCode> statuses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<HttpStatusCode> future : executor.invokeAll(calls)) {
+                statuses.add(future.get());
+            }
+        }
+
+        assertThat(statuses).filteredOn(HttpStatus.CREATED::equals).hasSize(2);
+        assertThat(statuses).filteredOn(HttpStatus.UNPROCESSABLE_ENTITY::equals).hasSize(6);
+    }
+
+    @Test
+    @DisplayName("Mises à jour concurrentes sans If-Match -> toutes appliquées, aucune perdue")
+    void concurrentUpdatesAreAllApplied() throws Exception {
+        Long garageId = createEmptyGarage();
+        ResponseEntity<VehicleDto> created = createVehicle(garageId, "Concurrent", 2024, "DIESEL");
+        Assertions.assertNotNull(created.getBody());
+        String url = "/api/v1/vehicles/" + created.getBody().id();
+
+        List<Callable<HttpStatusCode>> calls = IntStream.range(0, 8)
+                .<Callable<HttpStatusCode>>mapToObj(i -> () -> rest.exchange(url, HttpMethod.PUT,
+                        new HttpEntity<>(Map.of("brand", "Update " + i)), VehicleDto.class).getStatusCode())
+                .toList();
+        List<HttpStatusCode> statuses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<HttpStatusCode> future : executor.invokeAll(calls)) {
+                statuses.add(future.get());
+            }
+        }
+
+        assertThat(statuses).containsOnly(HttpStatus.OK);
+        assertThat(rest.getForEntity(url, VehicleDto.class).getHeaders().getETag()).isEqualTo("\"8\"");
+    }
+
+    @Test
+    @DisplayName("Supprimer un véhicule libère une place dans le garage")
+    void deleteReleasesCapacity() {
+        Long garageId = createEmptyGarage();
+        createVehicle(garageId, "Renault 1", 2024, "GASOLINE");
+        ResponseEntity<VehicleDto> v2 = createVehicle(garageId, "Renault 2", 2024, "DIESEL");
+        Assertions.assertNotNull(v2.getBody());
+
+        rest.delete("/api/v1/vehicles/" + v2.getBody().id());
+
+        assertThat(createVehicle(garageId, "Renault 3", 2024, "ELECTRIC").getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
     @Test
     @DisplayName("Lister les véhicules d'un garage après création")
     void listVehiclesInGarage() throws Exception {
@@ -87,4 +171,34 @@ class VehicleIntegrationTest {
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(resp.getBody()).contains("ModelX");
     }
+
+    @Test
+    @DisplayName("Parcours complet par curseur = flux NDJSON")
+    void keysetPagesMatchNdjsonStream() throws Exception {
+        Long garageId = createEmptyGarage();
+        createVehicle(garageId, "Keyset", 2024, "ELECTRIC");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        ResponseEntity<String> stream = rest.exchange("/api/v1/vehicles", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(stream.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertNotNull(stream.getBody());
+        List<Long> streamedIds = stream.getBody().lines().map(line -> {
+            try {
+                return mapper.readValue(line, VehicleDto.class).id();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+
+        List<Long> pagedIds = new ArrayList<>();
+        Long cursor = null;
+        do {
+            VehiclePageDto page = rest.getForObject("/api/v1/vehicles/page?size=4" + (cursor == null ? "" : "&after=" + cursor), VehiclePageDto.class);
+            page.content().forEach(v -> pagedIds.add(v.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(streamedIds).isNotEmpty().isSorted().containsExactlyElementsOf(pagedIds);
+    }
 }
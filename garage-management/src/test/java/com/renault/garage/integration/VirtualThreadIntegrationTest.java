@@ -0,0 +1,58 @@
+package com.renault.garage.integration;
+
+import com.renault.garage.dao.DatabaseConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.jpa.open-in-view=false",
+        "garage.db-limiter.max-concurrency=2",
+        "garage.db-limiter.acquire-timeout=1m",
+        "server.tomcat.threads.max=4"
+})
+@ActiveProfiles("test")
+class VirtualThreadIntegrationTest {
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Mode threads virtuels : 200 requêtes concurrentes servies avec 2 accès base")
+    void concurrentRequestsQueueOnTheLimiter() throws Exception {
+        assertThat(context.getBeansOfType(DatabaseConcurrencyLimiter.class)).hasSize(1);
+
+        List<Future<HttpStatusCode>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                responses.add(executor.submit(() -> rest.getForEntity("/api/v1/garages/byVehicleFuelType/DIESEL", String.class).getStatusCode()));
+            }
+        }
+        for (Future<HttpStatusCode> response : responses) {
+            assertThat(response.get().is2xxSuccessful()).isTrue();
+        }
+        assertThat(meterRegistry.get("garage.db.limiter.wait").timer().count()).isGreaterThanOrEqualTo(200);
+        assertThat(meterRegistry.get("garage.db.limiter.in-use").gauge().value()).isZero();
+    }
+}
@@ -1,8 +1,9 @@
 package com.renault.garage.mapper;
 
 import com.renault.garage.dao.entity.Garage;
-import com.renault.garage.dao.entity.OpeningSlot;
 import com.renault.garage.dao.entity.OpeningTime;
+import com.renault.garage.dao.entity.WeeklySchedule;
+import com.renault.garage.dto.CreateGarageDto;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -12,38 +13,49 @@ import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class GarageMapperTest {
 
     GarageMapper mapper = GarageMapper.INSTANCE;
 
     @Test
-    @DisplayName("entity2dto - regroupe les OpeningSlot par DayOfWeek")
+    @DisplayName("entity2dto - horaires par DayOfWeek, lus sans copie depuis le WeeklySchedule")
     void entity2dto_grouping() {
         Garage g = new Garage();
         g.setId(1L);
         g.setName("G1");
-        OpeningSlot s1 = new OpeningSlot(null, DayOfWeek.MONDAY, new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0)));
-        OpeningSlot s2 = new OpeningSlot(null, DayOfWeek.MONDAY, new OpeningTime(LocalTime.of(14, 0), LocalTime.of(18, 0)));
-        OpeningSlot s3 = new OpeningSlot(null, DayOfWeek.TUESDAY, new OpeningTime(LocalTime.of(9, 0), LocalTime.of(17, 0)));
-        g.setOpeningSlots(List.of(s1, s2, s3));
+        g.setOpeningHours(WeeklySchedule.parse("1=08:00-12:00,14:00-18:00;2=09:00-17:00"));
 
         var dto = mapper.entity2dto(g);
         assertThat(dto.openingHours()).hasSize(2);
         assertThat(dto.openingHours().get(DayOfWeek.MONDAY)).hasSize(2);
         assertThat(dto.openingHours().get(DayOfWeek.TUESDAY)).hasSize(1);
+        assertThat(dto.openingHours()).isSameAs(g.getOpeningHours().openingHours());
     }
 
     @Test
-    @DisplayName("dto2entity - crée OpeningSlot pour chaque entrée du map")
+    @DisplayName("dto2entity - WeeklySchedule avec les créneaux triés par heure de début")
     void dto2entity_mapping() {
         Map<DayOfWeek, List<OpeningTime>> map = Map.of(
-                DayOfWeek.WEDNESDAY, List.of(new OpeningTime(LocalTime.of(7, 0), LocalTime.of(11, 0)), new OpeningTime(LocalTime.of(13, 0), LocalTime.of(16, 0)))
+                DayOfWeek.WEDNESDAY, List.of(new OpeningTime(LocalTime.of(13, 0), LocalTime.of(16, 0)), new OpeningTime(LocalTime.of(7, 0), LocalTime.of(11, 0)))
         );
-        var createDto = new com.renault.garage.dto.CreateGarageDto("G2", "a", "t", "m", map);
-        Garage entity = mapper.dto2entity(createDto);
-        assertThat(entity.getOpeningSlots()).hasSize(2);
-        assertThat(entity.getOpeningSlots().stream().allMatch(s -> s.getDayOfWeek() == DayOfWeek.WEDNESDAY)).isTrue();
+        Garage entity = mapper.dto2entity(new CreateGarageDto("G2", "a", "t", "m", map));
+        assertThat(entity.getOpeningHours().openingHours()).containsOnlyKeys(DayOfWeek.WEDNESDAY);
+        assertThat(entity.getOpeningHours().openingHours().get(DayOfWeek.WEDNESDAY)).extracting(OpeningTime::getStartTime)
+                .containsExactly(LocalTime.of(7, 0), LocalTime.of(13, 0));
+        assertThat(entity.getOpeningHours().encoded()).isEqualTo("3=07:00-11:00,13:00-16:00");
     }
-}
 
+    @Test
+    @DisplayName("Horaires identiques -> même instance partagée, lue ou construite")
+    void identicalSchedulesAreShared() {
+        WeeklySchedule built = WeeklySchedule.of(Map.of(
+                DayOfWeek.SATURDAY, List.of(new OpeningTime(LocalTime.of(9, 0), LocalTime.of(13, 0))),
+                DayOfWeek.MONDAY, List.of(new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0)))));
+        assertThat(WeeklySchedule.parse("1=08:00-12:00;6=09:00-13:00")).isSameAs(built);
+        assertThat(WeeklySchedule.of(Map.of())).isSameAs(WeeklySchedule.EMPTY);
+        assertThat(WeeklySchedule.parse(null)).isSameAs(WeeklySchedule.EMPTY);
+        assertThatThrownBy(() -> WeeklySchedule.parse("lundi")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
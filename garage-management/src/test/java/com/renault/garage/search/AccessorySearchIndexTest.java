@@ -0,0 +1,119 @@
+package com.renault.garage.search;
+
+import com.renault.garage.dao.entity.Accessory;
+import com.renault.garage.dao.repository.AccessoryRepository;
+import com.renault.garage.dto.AccessoryDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessorySearchIndexTest {
+
+    AccessoryRepository accessoryRepository = mock(AccessoryRepository.class);
+    AccessorySearchIndex index;
+
+    @BeforeEach
+    void setup() throws IOException {
+        index = new AccessorySearchIndex(accessoryRepository);
+        when(accessoryRepository.findAll()).thenReturn(List.of());
+        index.rebuild();
+        index.index(new AccessoryDto(1L, "Caméra recul", "Caméra haute définition", 180.0, "ELECTRONIC"));
+        index.index(new AccessoryDto(2L, "Siège enfant", "Homologué ISOFIX", 250.0, "SAFETY"));
+        index.index(new AccessoryDto(3L, "GPS", "Système navigation intégré", 299.9, "ELECTRONIC"));
+        index.index(new AccessoryDto(4L, "Pack LED", "Éclairage caméra et coffre", 130.0, "ELECTRIC"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    private List<Long> search(String text) {
+        return index.search(text, 10).stream().map(AccessorySearchIndex.Hit::accessoryId).toList();
+    }
+
+    @Test
+    @DisplayName("Recherche sans accents ni majuscules -> trouve les noms accentués")
+    void accentAndCaseInsensitive() {
+        assertThat(search("siege")).containsExactly(2L);
+        assertThat(search("SIÈGE")).containsExactly(2L);
+        assertThat(search("eclairage")).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Préfixe et faute de frappe -> trouvés")
+    void prefixAndTypo() {
+        assertThat(search("navig")).containsExactly(3L);
+        assertThat(search("camra")).contains(1L);
+        assertThat(search("homologe")).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Le nom compte plus que la description")
+    void nameRanksAboveDescription() {
+        assertThat(search("camera")).containsExactly(1L, 4L);
+    }
+
+    @Test
+    @DisplayName("Tous les mots doivent correspondre")
+    void allWordsMustMatch() {
+        assertThat(search("camera recul")).containsExactly(1L);
+        assertThat(search("camera enfant")).isEmpty();
+        assertThat(search("  ")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Mise à jour et suppression -> visibles dans la recherche suivante")
+    void updateAndRemove() {
+        index.index(new AccessoryDto(3L, "Navigateur", "Système intégré", 299.9, "ELECTRONIC"));
+        assertThat(search("gps")).isEmpty();
+        assertThat(search("navigateur")).containsExactly(3L);
+
+        index.remove(3L);
+        assertThat(search("navigateur")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Recherche avant ApplicationReadyEvent -> index construit depuis la base, pas de résultat vide")
+    void buildsOnFirstSearch() throws IOException {
+        AccessorySearchIndex fresh = new AccessorySearchIndex(accessoryRepository);
+        when(accessoryRepository.findAll()).thenReturn(List.of(accessory(7L, "Attelage")));
+        try {
+            assertThat(fresh.search("attelage", 10)).extracting(AccessorySearchIndex.Hit::accessoryId).containsExactly(7L);
+        } finally {
+            fresh.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Modification appliquée pendant la reconstruction -> conservée malgré les lignes lues avant elle")
+    void changeDuringRebuildIsReplayed() {
+        when(accessoryRepository.findAll()).thenAnswer(invocation -> {
+            // committed while the rows are read: the rows still have the old names
+            index.index(new AccessoryDto(1L, "Radar recul", null, 180.0, "ELECTRONIC"));
+            index.remove(2L);
+            return List.of(accessory(1L, "Caméra recul"), accessory(2L, "Siège enfant"));
+        });
+
+        index.rebuild();
+
+        assertThat(search("radar")).containsExactly(1L);
+        assertThat(search("siege")).isEmpty();
+        assertThat(search("gps")).isEmpty();
+    }
+
+    private static Accessory accessory(long id, String name) {
+        Accessory accessory = new Accessory();
+        accessory.setId(id);
+        accessory.setName(name);
+        return accessory;
+    }
+}
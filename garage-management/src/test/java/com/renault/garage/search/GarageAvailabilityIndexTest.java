@@ -0,0 +1,136 @@
+package com.renault.garage.search;
+
+import com.renault.garage.dao.entity.OpeningTime;
+import com.renault.garage.dao.entity.WeeklySchedule;
+import com.renault.garage.dao.projection.GarageRow;
+import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GarageAvailabilityIndexTest {
+
+    // 2024-01-01 is a Monday
+    static final LocalDateTime MONDAY = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    GarageRepository garageRepository = mock(GarageRepository.class);
+    GarageAvailabilityIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new GarageAvailabilityIndex(garageRepository);
+        when(garageRepository.findAllRows()).thenReturn(List.of());
+        index.rebuild();
+        index.index(1L, 0, Map.of(DayOfWeek.MONDAY, List.of(slot(8, 0, 12, 0), slot(13, 30, 18, 0))));
+        index.index(2L, 0, Map.of(DayOfWeek.MONDAY, List.of(slot(7, 32, 12, 33))));
+        index.index(3L, 0, Map.of(DayOfWeek.SUNDAY, List.of(slot(22, 0, 2, 0))));
+    }
+
+    private static OpeningTime slot(int startHour, int startMinute, int endHour, int endMinute) {
+        return new OpeningTime(LocalTime.of(startHour, startMinute), LocalTime.of(endHour, endMinute));
+    }
+
+    private List<Integer> openAt(LocalDateTime at) {
+        return index.openAt(at).stream().boxed().toList();
+    }
+
+    @Test
+    @DisplayName("Ouvert pendant un créneau, fermé en dehors, fin de créneau exclue")
+    void openDuringSlots() {
+        assertThat(openAt(MONDAY.withHour(9))).containsExactly(1, 2);
+        assertThat(openAt(MONDAY.withHour(12).withMinute(15))).containsExactly(2);
+        assertThat(openAt(MONDAY.withHour(13))).isEmpty();
+        assertThat(openAt(MONDAY.withHour(17).withMinute(59))).containsExactly(1);
+        assertThat(openAt(MONDAY.withHour(18))).isEmpty();
+        assertThat(openAt(MONDAY.plusDays(1).withHour(9))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Ouverture et fermeture au milieu d'un intervalle de 5 minutes -> vérifiées à la minute")
+    void boundariesAtTheMinute() {
+        assertThat(openAt(MONDAY.withHour(7).withMinute(31))).isEmpty();
+        assertThat(openAt(MONDAY.withHour(7).withMinute(32))).containsExactly(2);
+        assertThat(openAt(MONDAY.withHour(12).withMinute(32))).containsExactly(2);
+        assertThat(openAt(MONDAY.withHour(12).withMinute(33))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Créneau après minuit le dimanche -> ouvert le lundi matin")
+    void slotRunningPastTheEndOfTheWeek() {
+        assertThat(openAt(MONDAY.plusDays(6).withHour(23))).containsExactly(3);
+        assertThat(openAt(MONDAY.withHour(1).withMinute(59))).containsExactly(3);
+        assertThat(openAt(MONDAY.withHour(2))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Mise à jour et suppression des horaires -> visibles dans la requête suivante")
+    void updateAndRemove() {
+        index.index(1L, 1, Map.of(DayOfWeek.TUESDAY, List.of(slot(8, 0, 12, 0))));
+        assertThat(openAt(MONDAY.withHour(9))).containsExactly(2);
+        assertThat(openAt(MONDAY.plusDays(1).withHour(9))).containsExactly(1);
+
+        index.remove(2L, 1);
+        index.index(1L, 2, null);
+        assertThat(openAt(MONDAY.withHour(9))).isEmpty();
+        assertThat(openAt(MONDAY.plusDays(1).withHour(9))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Première recherche avant ApplicationReadyEvent -> index construit depuis la base")
+    void buildsOnFirstSearch() {
+        GarageAvailabilityIndex fresh = new GarageAvailabilityIndex(garageRepository);
+        when(garageRepository.findAllRows()).thenReturn(List.of(row(7L, "1=08:00-12:00")));
+
+        assertThat(fresh.openAt(MONDAY.withHour(9)).stream().boxed().toList()).containsExactly(7);
+    }
+
+    @Test
+    @DisplayName("Modification appliquée pendant la reconstruction -> conservée malgré les lignes lues avant elle")
+    void changeDuringRebuildIsReplayed() {
+        when(garageRepository.findAllRows()).thenAnswer(invocation -> {
+            // committed while the rows are read: the rows still have the old hours
+            index.index(1L, 1, Map.of(DayOfWeek.TUESDAY, List.of(slot(8, 0, 12, 0))));
+            index.remove(2L, 1);
+            return List.of(row(1L, "1=08:00-12:00"), row(2L, "1=07:32-12:33"));
+        });
+
+        index.rebuild();
+
+        assertThat(openAt(MONDAY.withHour(9))).isEmpty();
+        assertThat(openAt(MONDAY.plusDays(1).withHour(9))).containsExactly(1);
+    }
+
+    @Test
+    @DisplayName("Changements reçus dans le désordre -> la version la plus récente est conservée")
+    void changesOutOfOrder() {
+        index.onGarageChanged(new GarageChangedEvent(ChangeType.UPDATED, 1L, 2, garage(1L, Map.of(DayOfWeek.TUESDAY, List.of(slot(8, 0, 12, 0))))));
+        index.onGarageChanged(new GarageChangedEvent(ChangeType.UPDATED, 1L, 1, garage(1L, Map.of(DayOfWeek.WEDNESDAY, List.of(slot(8, 0, 12, 0))))));
+        assertThat(openAt(MONDAY.plusDays(1).withHour(9))).containsExactly(1);
+        assertThat(openAt(MONDAY.plusDays(2).withHour(9))).isEmpty();
+
+        index.onGarageChanged(new GarageChangedEvent(ChangeType.DELETED, 2L, 1, null));
+        index.onGarageChanged(new GarageChangedEvent(ChangeType.UPDATED, 2L, 0, garage(2L, Map.of(DayOfWeek.MONDAY, List.of(slot(7, 32, 12, 33))))));
+        assertThat(openAt(MONDAY.withHour(9))).isEmpty();
+    }
+
+    private static GarageDto garage(long id, Map<DayOfWeek, List<OpeningTime>> openingHours) {
+        return new GarageDto(id, "G" + id, null, null, null, openingHours);
+    }
+
+    private static GarageRow row(long id, String openingHours) {
+        return new GarageRow(id, "G" + id, null, null, null, WeeklySchedule.parse(openingHours), null, null, 0);
+    }
+}
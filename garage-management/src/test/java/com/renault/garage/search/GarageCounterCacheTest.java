@@ -0,0 +1,99 @@
+package com.renault.garage.search;
+
+import com.renault.garage.dao.entity.Vehicle.FuelType;
+import com.renault.garage.dao.repository.GarageFuelTypeCountRepository;
+import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import com.renault.garage.event.VehicleChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class GarageCounterCacheTest {
+
+    GarageFuelTypeCountRepository repository = mock(GarageFuelTypeCountRepository.class);
+    GarageCounterCache cache = new GarageCounterCache(repository);
+
+    private static VehicleDto vehicle(long id, FuelType fuelType) {
+        return new VehicleDto(id, "Clio", 2022, fuelType);
+    }
+
+    private List<Integer> withFuelType(FuelType fuelType) {
+        return cache.garagesWithFuelType(fuelType).stream().boxed().toList();
+    }
+
+    @Test
+    @DisplayName("Garages d'un carburant lus une fois, relus après un véhicule retiré de ce carburant ou une suppression de garage")
+    void loadedOnceUntilInvalidated() {
+        when(repository.findGarageIdsByFuelType(FuelType.DIESEL, 1)).thenReturn(List.of(1L, 3L)).thenReturn(List.of(3L)).thenReturn(List.of(4L));
+
+        assertThat(withFuelType(FuelType.DIESEL)).containsExactly(1, 3);
+        assertThat(withFuelType(FuelType.DIESEL)).containsExactly(1, 3);
+        verify(repository, times(1)).findGarageIdsByFuelType(FuelType.DIESEL, 1);
+
+        cache.onGarageChanged(new GarageChangedEvent(ChangeType.UPDATED, 1L, 1, null));
+        assertThat(withFuelType(FuelType.DIESEL)).containsExactly(1, 3);
+
+        cache.onVehicleChanged(new VehicleChangedEvent(ChangeType.DELETED, 5L, FuelType.DIESEL, null));
+        assertThat(withFuelType(FuelType.DIESEL)).containsExactly(3);
+
+        cache.onGarageChanged(new GarageChangedEvent(ChangeType.DELETED, 3L, 1, null));
+        assertThat(withFuelType(FuelType.DIESEL)).containsExactly(4);
+    }
+
+    @Test
+    @DisplayName("Changement de carburant -> seuls l'ancien et le nouveau carburant sont relus, rien si le carburant est inchangé")
+    void onlyTheFuelTypesOfTheChangeAreDropped() {
+        when(repository.findGarageIdsByFuelType(any(), eq(1))).thenReturn(List.of(1L));
+        withFuelType(FuelType.DIESEL);
+        withFuelType(FuelType.ELECTRIC);
+        withFuelType(FuelType.GASOLINE);
+
+        cache.onVehicleChanged(new VehicleChangedEvent(ChangeType.UPDATED, 5L, FuelType.DIESEL, vehicle(5L, FuelType.DIESEL)));
+        withFuelType(FuelType.DIESEL);
+        verify(repository, times(1)).findGarageIdsByFuelType(FuelType.DIESEL, 1);
+
+        cache.onVehicleChanged(new VehicleChangedEvent(ChangeType.UPDATED, 5L, FuelType.DIESEL, vehicle(5L, FuelType.ELECTRIC)));
+        withFuelType(FuelType.DIESEL);
+        withFuelType(FuelType.ELECTRIC);
+        withFuelType(FuelType.GASOLINE);
+        verify(repository, times(2)).findGarageIdsByFuelType(FuelType.DIESEL, 1);
+        verify(repository, times(2)).findGarageIdsByFuelType(FuelType.ELECTRIC, 1);
+        verify(repository, times(1)).findGarageIdsByFuelType(FuelType.GASOLINE, 1);
+
+        // linked to another garage: counted there for its fuel type
+        cache.onVehicleChanged(new VehicleChangedEvent(ChangeType.UPDATED, 5L, null, vehicle(5L, FuelType.ELECTRIC)));
+        withFuelType(FuelType.ELECTRIC);
+        verify(repository, times(3)).findGarageIdsByFuelType(FuelType.ELECTRIC, 1);
+    }
+
+    @Test
+    @DisplayName("Modification d'un autre carburant pendant la lecture -> résultat conservé")
+    void loadRacingAnotherFuelTypeIsKept() {
+        when(repository.findGarageIdsByFuelType(FuelType.HYBRID, 1)).thenAnswer(invocation -> {
+            cache.invalidate(FuelType.DIESEL);
+            return List.of(1L);
+        });
+
+        assertThat(withFuelType(FuelType.HYBRID)).containsExactly(1);
+        assertThat(withFuelType(FuelType.HYBRID)).containsExactly(1);
+        verify(repository, times(1)).findGarageIdsByFuelType(FuelType.HYBRID, 1);
+    }
+
+    @Test
+    @DisplayName("Modification pendant la lecture -> résultat non conservé")
+    void loadRacingAChangeIsNotKept() {
+        when(repository.findGarageIdsByFuelType(FuelType.ELECTRIC, 1)).thenAnswer(invocation -> {
+            cache.invalidate();
+            return List.of(1L);
+        }).thenReturn(List.of(2L));
+
+        assertThat(withFuelType(FuelType.ELECTRIC)).containsExactly(1);
+        assertThat(withFuelType(FuelType.ELECTRIC)).containsExactly(2);
+    }
+}
@@ -0,0 +1,200 @@
+package com.renault.garage.search;
+
+import com.renault.garage.dao.projection.GarageRow;
+import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.dto.GarageDto;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GarageLocationIndexTest {
+
+    GarageRepository garageRepository = mock(GarageRepository.class);
+    GarageLocationIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new GarageLocationIndex(garageRepository);
+        when(garageRepository.findAllRows()).thenReturn(List.of());
+        index.rebuild();
+        index.index(1L, 0, 48.8566, 2.3522);   // Paris
+        index.index(2L, 0, 48.9362, 2.3574);   // Saint-Denis
+        index.index(3L, 0, 45.7640, 4.8357);   // Lyon
+        index.index(4L, 0, 51.5072, -0.1276);  // Londres
+        index.index(5L, 0, null, null);
+    }
+
+    private List<Long> nearest(double latitude, double longitude, double radiusKm, int limit) {
+        return index.nearest(latitude, longitude, radiusKm, limit, id -> true).stream()
+                .map(GarageLocationIndex.Hit::garageId)
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Distance orthodromique Paris - Londres")
+    void distance() {
+        assertThat(GarageLocationIndex.distanceKm(48.8566, 2.3522, 51.5072, -0.1276)).isCloseTo(343.5, within(1.0));
+        assertThat(GarageLocationIndex.distanceKm(0, 179.95, 0, -179.95)).isCloseTo(11.1, within(0.1));
+    }
+
+    @Test
+    @DisplayName("Plus proches d'abord, limités en nombre et au rayon")
+    void nearestWithinRadius() {
+        assertThat(nearest(48.86, 2.35, 20, 10)).containsExactly(1L, 2L);
+        assertThat(nearest(48.86, 2.35, 1000, 3)).containsExactly(1L, 2L, 4L);
+        assertThat(nearest(48.86, 2.35, 1000, 10)).containsExactly(1L, 2L, 4L, 3L);
+        assertThat(nearest(48.86, 2.35, 1, 10)).containsExactly(1L);
+        assertThat(nearest(48.93, 2.36, 20, 1)).containsExactly(2L);
+        assertThat(index.nearest(48.86, 2.35, 1000, 10, id -> id != 1L)).extracting(GarageLocationIndex.Hit::garageId)
+                .containsExactly(2L, 4L, 3L);
+    }
+
+    @Test
+    @DisplayName("Recherche de part et d'autre de l'antiméridien et près du pôle")
+    void wrapsAroundTheEarth() {
+        index.index(6L, 0, 0.0, 179.99);
+        index.index(7L, 0, 89.99, 45.0);
+        assertThat(nearest(0.0, -179.99, 5, 10)).containsExactly(6L);
+        assertThat(nearest(89.99, -135.0, 5, 10)).containsExactly(7L);
+    }
+
+    @Test
+    @DisplayName("Déplacement et suppression d'un garage -> visibles dans la recherche suivante")
+    void updateAndRemove() {
+        index.index(1L, 1, 45.76, 4.84);
+        assertThat(nearest(48.86, 2.35, 20, 10)).containsExactly(2L);
+        assertThat(nearest(45.76, 4.84, 20, 10)).containsExactly(1L, 3L);
+
+        index.remove(3L, 1);
+        index.index(1L, 2, null, null);
+        assertThat(nearest(45.76, 4.84, 20, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Résultats identiques à un calcul exhaustif sur 2000 garages aléatoires")
+    void sameAsBruteForce() {
+        Random random = new Random(42);
+        double[][] locations = new double[2000][];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = new double[]{44 + random.nextDouble() * 6, -2 + random.nextDouble() * 8};
+            index.index(100L + i, 0, locations[i][0], locations[i][1]);
+        }
+        for (int query = 0; query < 50; query++) {
+            double latitude = 44 + random.nextDouble() * 6;
+            double longitude = -2 + random.nextDouble() * 8;
+            List<Long> expected = IntStream.range(0, locations.length)
+                    .filter(i -> GarageLocationIndex.distanceKm(latitude, longitude, locations[i][0], locations[i][1]) <= 150)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(i -> GarageLocationIndex.distanceKm(latitude, longitude, locations[i][0], locations[i][1])))
+                    .limit(7)
+                    .map(i -> 100L + i)
+                    .toList();
+            assertThat(index.nearest(latitude, longitude, 150, 7, id -> id >= 100)).extracting(GarageLocationIndex.Hit::garageId)
+                    .containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("Filtre sélectif et grand rayon, jusqu'à toutes les longitudes -> résultats identiques à un calcul exhaustif")
+    void sparseFilterWithLargeRadius() {
+        Random random = new Random(7);
+        double[][] locations = new double[5000][];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = new double[]{36 + random.nextDouble() * 34, -10 + random.nextDouble() * 40};
+            index.index(100L + i, 0, locations[i][0], locations[i][1]);
+        }
+        for (int query = 0; query < 30; query++) {
+            // the last queries are near the pole, their circles end up covering all the longitudes
+            double latitude = query < 20 ? 36 + random.nextDouble() * 34 : 80 + random.nextDouble() * 9;
+            double longitude = -10 + random.nextDouble() * 40;
+            List<Long> expected = IntStream.range(0, locations.length)
+                    .filter(i -> i % 700 == 0)
+                    .filter(i -> GarageLocationIndex.distanceKm(latitude, longitude, locations[i][0], locations[i][1]) <= 4000)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(i -> GarageLocationIndex.distanceKm(latitude, longitude, locations[i][0], locations[i][1])))
+                    .limit(3)
+                    .map(i -> 100L + i)
+                    .toList();
+            assertThat(index.nearest(latitude, longitude, 4000, 3, id -> id >= 100 && (id - 100) % 700 == 0))
+                    .extracting(GarageLocationIndex.Hit::garageId)
+                    .containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("Recherche avant la construction de l'index -> index construit depuis la base")
+    void buildsOnFirstSearch() {
+        GarageLocationIndex fresh = new GarageLocationIndex(garageRepository);
+        when(garageRepository.findAllRows()).thenReturn(List.of(row(7L, 48.8566, 2.3522)));
+
+        assertThat(fresh.nearest(48.86, 2.35, 20, 10, id -> true)).extracting(GarageLocationIndex.Hit::garageId)
+                .containsExactly(7L);
+    }
+
+    @Test
+    @DisplayName("Déplacement appliqué pendant la reconstruction -> conservé malgré les lignes lues avant lui")
+    void changeDuringRebuildIsReplayed() {
+        when(garageRepository.findAllRows()).thenAnswer(invocation -> {
+            // committed while the rows are read: the rows still have the old locations
+            index.index(1L, 1, 45.7640, 4.8357);
+            index.remove(2L, 1);
+            return List.of(row(1L, 48.8566, 2.3522), row(2L, 48.9362, 2.3574));
+        });
+
+        index.rebuild();
+
+        assertThat(nearest(48.86, 2.35, 20, 10)).isEmpty();
+        assertThat(nearest(45.76, 4.84, 20, 10)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Changements reçus dans le désordre -> la version la plus récente est conservée")
+    void changesOutOfOrder() {
+        index.onGarageChanged(new GarageChangedEvent(ChangeType.UPDATED, 1L, 2, located(1L, 45.7640, 4.8357)));
+        index.onGarageChanged(new GarageChangedEvent(ChangeType.UPDATED, 1L, 1, located(1L, 51.5072, -0.1276)));
+        assertThat(nearest(45.76, 4.84, 20, 10)).containsExactly(1L, 3L);
+        assertThat(nearest(51.51, -0.13, 20, 10)).containsExactly(4L);
+
+        index.onGarageChanged(new GarageChangedEvent(ChangeType.DELETED, 2L, 1, null));
+        index.onGarageChanged(new GarageChangedEvent(ChangeType.UPDATED, 2L, 0, located(2L, 48.9362, 2.3574)));
+        assertThat(nearest(48.93, 2.36, 20, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Changement plus ancien que les lignes lues pendant la reconstruction -> ignoré au rejeu")
+    void staleChangeDuringRebuildIsNotReplayed() {
+        when(garageRepository.findAllRows()).thenAnswer(invocation -> {
+            index.index(1L, 1, 45.7640, 4.8357);
+            return List.of(row(1L, 2, 51.5072, -0.1276));
+        });
+
+        index.rebuild();
+
+        assertThat(nearest(45.76, 4.84, 20, 10)).isEmpty();
+        assertThat(nearest(51.51, -0.13, 20, 10)).containsExactly(1L);
+    }
+
+    private static GarageDto located(long id, double latitude, double longitude) {
+        return new GarageDto(id, "G" + id, null, null, null, null, latitude, longitude);
+    }
+
+    private static GarageRow row(long id, double latitude, double longitude) {
+        return row(id, 0, latitude, longitude);
+    }
+
+    private static GarageRow row(long id, long version, double latitude, double longitude) {
+        return new GarageRow(id, "G" + id, null, null, null, null, latitude, longitude, version);
+    }
+}
@@ -2,10 +2,13 @@ package com.renault.garage.service;
 
 import com.renault.garage.dao.entity.Accessory;
 import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.projection.EntityVersion;
 import com.renault.garage.dao.repository.AccessoryRepository;
 import com.renault.garage.dao.repository.VehicleRepository;
 import com.renault.garage.dto.AccessoryDto;
 import com.renault.garage.dto.CreateAccessoryDto;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.exception.StaleVersionException;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,6 +30,8 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class AccessoryServiceTest {
 
+    @Mock
+    ApplicationEventPublisher publisher;
     @Mock
     AccessoryRepository accessoryRepository;
     @Mock
@@ -37,10 +43,7 @@ class AccessoryServiceTest {
     @Test
     @DisplayName("getAccessoryById - présent -> retourne DTO")
     void getAccessoryById_ok() {
-        Accessory accessory = new Accessory();
-        accessory.setId(10L);
-        accessory.setName("GPS");
-        when(accessoryRepository.findById(10L)).thenReturn(Optional.of(accessory));
+        when(accessoryRepository.findDtoById(10L)).thenReturn(Optional.of(new AccessoryDto(10L, "GPS", null, null, null)));
 
         AccessoryDto dto = accessoryService.getAccessoryById(10L);
 
@@ -52,7 +55,7 @@ class AccessoryServiceTest {
     @Test
     @DisplayName("getAccessoryById - absent -> null")
     void getAccessoryById_notFound() {
-        when(accessoryRepository.findById(99L)).thenReturn(Optional.empty());
+        when(accessoryRepository.findDtoById(99L)).thenReturn(Optional.empty());
         assertThat(accessoryService.getAccessoryById(99L)).isNull();
     }
 
@@ -130,25 +133,62 @@ class AccessoryServiceTest {
         accessory.setId(88L);
         accessory.setName("OLD");
         when(accessoryRepository.findById(88L)).thenReturn(Optional.of(accessory));
-        when(accessoryRepository.save(any(Accessory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(accessoryRepository.saveAndFlush(any(Accessory.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         AccessoryDto updated = accessoryService.updateAccessory(88L, new CreateAccessoryDto("NEW", "desc", 10.0, "TYPE"));
         assertThat(updated).isNotNull();
         assertThat(updated.name()).isEqualTo("NEW");
     }
 
+    @Test
+    @DisplayName("updateAccessory - version attendue périmée -> StaleVersionException")
+    void updateAccessory_staleVersion() {
+        Accessory accessory = new Accessory();
+        accessory.setId(88L);
+        accessory.setVersion(1L);
+        when(accessoryRepository.findById(88L)).thenReturn(Optional.of(accessory));
+
+        assertThrows(StaleVersionException.class,
+                () -> accessoryService.updateAccessory(88L, new CreateAccessoryDto("NEW", "desc", 10.0, "TYPE"), 0L));
+        verify(accessoryRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     @DisplayName("getAllByVehicleId - retourne liste mappée")
     void getAllByVehicleId_ok() {
-        Accessory a1 = new Accessory();
-        a1.setId(1L);
-        a1.setName("A1");
-        Accessory a2 = new Accessory();
-        a2.setId(2L);
-        a2.setName("A2");
-        when(accessoryRepository.findByVehicleId(10L)).thenReturn(List.of(a1, a2));
+        when(accessoryRepository.findByVehicleId(10L)).thenReturn(List.of(
+                new AccessoryDto(1L, "A1", null, null, null), new AccessoryDto(2L, "A2", null, null, null)));
         List<AccessoryDto> list = accessoryService.getAllByVehicleId(10L);
         assertThat(list).hasSize(2);
         assertThat(list.stream().map(AccessoryDto::name)).containsExactlyInAnyOrder("A1", "A2");
     }
+
+    @Test
+    @DisplayName("getListVersion - véhicule absent -> null")
+    void getListVersion_unknownVehicle() {
+        when(vehicleRepository.existsById(10L)).thenReturn(false);
+        assertThat(accessoryService.getListVersion(10L)).isNull();
+        verify(accessoryRepository, never()).findVersionsByVehicleId(any());
+    }
+
+    @Test
+    @DisplayName("getVersionedList - liste et version lues ensemble, la même que getListVersion")
+    void getVersionedList_ok() {
+        when(vehicleRepository.existsById(10L)).thenReturn(true);
+        when(accessoryRepository.findByVehicleId(10L)).thenReturn(List.of(new AccessoryDto(1L, "A1", null, null, null)));
+        when(accessoryRepository.findVersionsByVehicleId(10L)).thenReturn(List.of(new EntityVersion(1L, 2L)));
+
+        VersionedDto<List<AccessoryDto>> list = accessoryService.getVersionedList(10L);
+
+        assertThat(list.body()).extracting(AccessoryDto::name).containsExactly("A1");
+        assertThat(list.version()).isEqualTo(accessoryService.getListVersion(10L));
+    }
+
+    @Test
+    @DisplayName("getVersionedList - véhicule absent -> null")
+    void getVersionedList_unknownVehicle() {
+        when(vehicleRepository.existsById(10L)).thenReturn(false);
+        assertThat(accessoryService.getVersionedList(10L)).isNull();
+        verify(accessoryRepository, never()).findByVehicleId(anyLong());
+    }
 }
@@ -0,0 +1,62 @@
+package com.renault.garage.service;
+
+import com.renault.garage.dto.BatchGetResultDto;
+import com.renault.garage.exception.InvalidBatchRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchLoaderTest {
+
+    private final List<List<Long>> chunks = new ArrayList<>();
+
+    /**
+     * Every even id exists, returned in reverse order as a database would return them in any order.
+     */
+    private final Function<List<Long>, List<Long>> evenIds = ids -> {
+        chunks.add(List.copyOf(ids));
+        return ids.stream().filter(id -> id % 2 == 0).sorted((a, b) -> Long.compare(b, a)).toList();
+    };
+
+    @Test
+    @DisplayName("Ids découpés en lots, résultats dans l'ordre demandé, doublons lus une fois, manquants listés")
+    void loadsByChunksInRequestOrder() {
+        BatchLoader loader = new BatchLoader(100, 2);
+
+        BatchGetResultDto<String> result = loader.load(List.of(8L, 3L, 2L, 8L, 6L, 5L), evenIds, Function.identity(), id -> "#" + id);
+
+        assertThat(result.found()).containsExactly("#8", "#2", "#6");
+        assertThat(result.missing()).containsExactly(3L, 5L);
+        assertThat(chunks).containsExactly(List.of(8L, 3L), List.of(2L, 6L), List.of(5L));
+    }
+
+    @Test
+    @DisplayName("Liste vide ou absente -> aucun appel à la base")
+    void emptyRequest() {
+        BatchLoader loader = new BatchLoader(100, 2);
+
+        assertThat(loader.load(List.of(), evenIds, Function.identity(), String::valueOf).found()).isEmpty();
+        assertThat(loader.load(null, evenIds, Function.identity(), String::valueOf).missing()).isEmpty();
+        assertThat(chunks).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Trop d'ids distincts ou id null -> InvalidBatchRequestException sans appel à la base")
+    void rejectsInvalidRequests() {
+        BatchLoader loader = new BatchLoader(3, 2);
+
+        assertThat(loader.load(List.of(1L, 1L, 2L, 4L, 4L), evenIds, Function.identity(), String::valueOf).found()).containsExactly("2", "4");
+        assertThatThrownBy(() -> loader.load(List.of(1L, 2L, 3L, 4L), evenIds, Function.identity(), String::valueOf))
+                .isInstanceOf(InvalidBatchRequestException.class);
+        assertThatThrownBy(() -> loader.load(Arrays.asList(1L, null), evenIds, Function.identity(), String::valueOf))
+                .isInstanceOf(InvalidBatchRequestException.class);
+        assertThat(chunks).hasSize(2);
+    }
+}
@@ -1,39 +1,81 @@
 package com.renault.garage.service;
 
 import com.renault.garage.dao.entity.Garage;
-import com.renault.garage.dao.entity.OpeningSlot;
+import com.renault.garage.dao.entity.GarageFuelTypeCount;
+import com.renault.garage.dao.entity.GarageOccupancy;
 import com.renault.garage.dao.entity.OpeningTime;
 import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.entity.WeeklySchedule;
+import com.renault.garage.dao.projection.GarageRow;
+import com.renault.garage.dao.projection.VehicleAccessoryRow;
+import com.renault.garage.dao.repository.GarageFuelTypeCountRepository;
+import com.renault.garage.dao.repository.GarageOccupancyRepository;
 import com.renault.garage.dao.repository.GarageRepository;
+import com.renault.garage.dao.repository.VehicleRepository;
 import com.renault.garage.dto.CreateGarageDto;
 import com.renault.garage.dto.GarageDto;
+import com.renault.garage.dto.GarageScrollDto;
+import com.renault.garage.dto.GarageSummaryDto;
+import com.renault.garage.dto.NearbyGarageDto;
+import com.renault.garage.dto.ScrollCursor;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.GarageChangedEvent;
+import com.renault.garage.exception.InvalidLocationException;
+import com.renault.garage.exception.InvalidOpeningHoursException;
+import com.renault.garage.exception.StaleVersionException;
+import com.renault.garage.search.GarageAvailabilityIndex;
+import com.renault.garage.search.GarageCounterCache;
+import com.renault.garage.search.GarageLocationIndex;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.DayOfWeek;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class GarageServiceTest {
 
+    @Mock
+    ApplicationEventPublisher publisher;
     @Mock
     GarageRepository garageRepository;
+    @Mock
+    GarageOccupancyRepository garageOccupancyRepository;
+    @Mock
+    GarageFuelTypeCountRepository garageFuelTypeCountRepository;
+    @Mock
+    VehicleRepository vehicleRepository;
+    @Mock
+    GarageAvailabilityIndex garageAvailabilityIndex;
+    @Mock
+    GarageLocationIndex garageLocationIndex;
+    @Mock
+    GarageCounterCache garageCounterCache;
 
     @InjectMocks
     GarageService garageService;
@@ -44,7 +86,7 @@ class GarageServiceTest {
         Garage g = new Garage();
         g.setId(1L);
         g.setName("GAR1");
-        g.setOpeningSlots(new ArrayList<>(List.of(new OpeningSlot(1L, DayOfWeek.MONDAY, new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0))))));
+        g.setOpeningHours(WeeklySchedule.parse("1=08:00-12:00"));
         when(garageRepository.findById(1L)).thenReturn(Optional.of(g));
         GarageDto dto = garageService.getGarageById(1L);
         assertThat(dto).isNotNull();
@@ -59,20 +101,42 @@ class GarageServiceTest {
         assertThat(garageService.getGarageById(9L)).isNull();
     }
 
+    @Test
+    @DisplayName("getVersionedGarage - présent -> DTO avec la version de l'entité lue")
+    void getVersionedGarage_present() {
+        Garage g = new Garage();
+        g.setId(1L);
+        g.setName("G1");
+        g.setVersion(4L);
+        when(garageRepository.findById(1L)).thenReturn(Optional.of(g));
+
+        VersionedDto<GarageDto> garage = garageService.getVersionedGarage(1L);
+
+        assertThat(garage.body().name()).isEqualTo("G1");
+        assertThat(garage.version()).isEqualTo("4");
+        verify(garageRepository, never()).findVersionById(anyLong());
+    }
+
     @Test
     @DisplayName("deleteGarage - absent -> false")
     void deleteGarage_absent() {
-        when(garageRepository.existsById(5L)).thenReturn(false);
+        when(garageRepository.findById(5L)).thenReturn(Optional.empty());
         assertThat(garageService.deleteGarage(5L)).isFalse();
-        verify(garageRepository, never()).deleteById(anyLong());
+        verify(garageRepository, never()).delete(any());
     }
 
     @Test
     @DisplayName("deleteGarage - présent -> true")
     void deleteGarage_present() {
-        when(garageRepository.existsById(5L)).thenReturn(true);
+        Garage g = new Garage();
+        g.setId(5L);
+        g.setVersion(3L);
+        when(garageRepository.findById(5L)).thenReturn(Optional.of(g));
         assertThat(garageService.deleteGarage(5L)).isTrue();
-        verify(garageRepository).deleteById(5L);
+        verify(garageOccupancyRepository).deleteById(5L);
+        verify(garageFuelTypeCountRepository).deleteByGarageId(5L);
+        verify(garageRepository).delete(g);
+        verify(publisher).publishEvent(new GarageChangedEvent(ChangeType.DELETED, 5L, 4, null));
     }
 
     @Test
@@ -98,6 +162,9 @@ class GarageServiceTest {
         assertThat(created).isNotNull();
         assertThat(created.id()).isEqualTo(10L);
         assertThat(created.openingHours()).containsKey(DayOfWeek.MONDAY);
+        verify(garageOccupancyRepository).save(argThat((GarageOccupancy o) -> o.getGarageId() == 10L && o.getVehicleCount() == 0));
+        verify(garageFuelTypeCountRepository).saveAll(argThat((List<GarageFuelTypeCount> counts) -> counts.size() == Vehicle.FuelType.values().length
+                && counts.stream().allMatch(c -> c.getGarageId() == 10L && c.getVehicleCount() == 0)));
     }
 
     @Test
@@ -114,33 +181,120 @@ class GarageServiceTest {
         g.setId(2L);
         g.setName("OLD");
         g.setAddress("ADDR1");
-        g.setOpeningSlots(new ArrayList<>(List.of(new OpeningSlot())));
+        g.setOpeningHours(WeeklySchedule.parse("1=08:00-12:00"));
         when(garageRepository.findById(2L)).thenReturn(Optional.of(g));
-        when(garageRepository.save(any(Garage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(garageRepository.saveAndFlush(any(Garage.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Map<DayOfWeek, List<OpeningTime>> newOpening = Map.of(DayOfWeek.TUESDAY, List.of(new OpeningTime(LocalTime.of(9, 0), LocalTime.of(13, 0))));
         GarageDto updated = garageService.updateGarage(2L, new CreateGarageDto("NEW", null, null, null, newOpening));
         assertThat(updated).isNotNull();
         assertThat(updated.name()).isEqualTo("NEW");
         assertThat(updated.address()).isEqualTo("ADDR1");
-        assertThat(updated.openingHours()).containsKey(DayOfWeek.TUESDAY);
+        assertThat(updated.openingHours()).containsOnlyKeys(DayOfWeek.TUESDAY);
+    }
+
+    @Test
+    @DisplayName("updateGarage - version renvoyée -> celle de l'entité enregistrée, sans relecture")
+    void updateGarage_returnsSavedVersion() {
+        Garage g = new Garage();
+        g.setId(2L);
+        g.setName("OLD");
+        g.setVersion(1L);
+        when(garageRepository.findById(2L)).thenReturn(Optional.of(g));
+        when(garageRepository.saveAndFlush(any(Garage.class))).thenAnswer(invocation -> {
+            // the version is incremented when the changes are flushed
+            Garage flushed = invocation.getArgument(0);
+            flushed.setVersion(flushed.getVersion() + 1);
+            return flushed;
+        });
+
+        VersionedDto<GarageDto> updated = garageService.updateGarage(2L, new CreateGarageDto("NEW", null, null, null, null), 1L);
+
+        assertThat(updated.body().name()).isEqualTo("NEW");
+        assertThat(updated.version()).isEqualTo("2");
+        verify(garageRepository, never()).findVersionById(anyLong());
+    }
+
+    @Test
+    @DisplayName("updateGarage - version attendue périmée -> StaleVersionException, rien n'est modifié")
+    void updateGarage_staleVersion() {
+        Garage g = new Garage();
+        g.setId(3L);
+        g.setName("OLD");
+        g.setVersion(5L);
+        when(garageRepository.findById(3L)).thenReturn(Optional.of(g));
+
+        assertThatThrownBy(() -> garageService.updateGarage(3L, new CreateGarageDto("NEW", null, null, null, null), 4L))
+                .isInstanceOf(StaleVersionException.class);
+        assertThat(g.getName()).isEqualTo("OLD");
+        verify(garageRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("createGarage - latitude sans longitude -> InvalidLocationException, rien n'est enregistré")
+    void createGarage_halfLocation() {
+        CreateGarageDto dto = new CreateGarageDto("GAR", "ADDR", "TEL", "MAIL", Map.of(), 48.85, null);
+
+        assertThatThrownBy(() -> garageService.createGarage(dto)).isInstanceOf(InvalidLocationException.class);
+        verify(garageRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("updateGarage - latitude hors limites -> InvalidLocationException, rien n'est modifié")
+    void updateGarage_invalidLocation() {
+        Garage g = new Garage();
+        g.setId(2L);
+        g.setLatitude(48.85);
+        g.setLongitude(2.35);
+        when(garageRepository.findById(2L)).thenReturn(Optional.of(g));
+
+        assertThatThrownBy(() -> garageService.updateGarage(2L, new CreateGarageDto(null, null, null, null, null, 95.0, 2.35)))
+                .isInstanceOf(InvalidLocationException.class);
+        assertThat(g.getLatitude()).isEqualTo(48.85);
+        verify(garageRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("clearLocation - position supprimée et publiée, garage sans position -> rien n'est écrit")
+    void clearLocation() {
+        Garage g = new Garage();
+        g.setId(2L);
+        g.setLatitude(48.85);
+        g.setLongitude(2.35);
+        when(garageRepository.findById(2L)).thenReturn(Optional.of(g));
+        when(garageRepository.saveAndFlush(any(Garage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        GarageDto cleared = garageService.clearLocation(2L, null).body();
+        assertThat(cleared.latitude()).isNull();
+        assertThat(cleared.longitude()).isNull();
+        assertThat(g.getLatitude()).isNull();
+        verify(publisher).publishEvent(any(Object.class));
+
+        garageService.clearLocation(2L, null);
+        verify(garageRepository, times(1)).saveAndFlush(any());
     }
 
     @Test
     @DisplayName("getGarages - page mapping")
     void getGarages_page() {
-        Garage g1 = new Garage();
-        g1.setId(1L);
-        g1.setName("G1");
-        g1.setOpeningSlots(new ArrayList<>(List.of(new OpeningSlot(1L, DayOfWeek.MONDAY, new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0))))));
-        Garage g2 = new Garage();
-        g2.setId(2L);
-        g2.setName("G2");
-        g2.setOpeningSlots(new ArrayList<>(List.of(new OpeningSlot(2L, DayOfWeek.TUESDAY, new OpeningTime(LocalTime.of(9, 0), LocalTime.of(13, 0))))));
-        Page<Garage> page = new PageImpl<>(List.of(g1, g2), PageRequest.of(0, 2), 2);
-        when(garageRepository.findAll(any(Pageable.class))).thenReturn(page);
+        Page<Long> ids = new PageImpl<>(List.of(2L, 1L), PageRequest.of(0, 2), 2);
+        when(garageRepository.findPageOfIds(any(Pageable.class))).thenReturn(ids);
+        when(garageRepository.findRowsByIdIn(List.of(2L, 1L))).thenReturn(List.of(
+                new GarageRow(1L, "G1", null, null, null, WeeklySchedule.parse("1=08:00-12:00,14:00-18:00"), null, null, 0),
+                new GarageRow(2L, "G2", null, null, null, WeeklySchedule.EMPTY, null, null, 0)));
         Page<GarageDto> result = garageService.getGarages(PageRequest.of(0, 2));
-        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.getContent()).extracting(GarageDto::name).containsExactly("G2", "G1");
+        assertThat(result.getContent().get(0).openingHours()).isEmpty();
+        assertThat(result.getContent().get(1).openingHours().get(DayOfWeek.MONDAY)).hasSize(2);
+        verify(garageRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("getGarages - page vide -> pas de chargement des garages")
+    void getGarages_emptyPage() {
+        when(garageRepository.findPageOfIds(any(Pageable.class))).thenReturn(Page.empty());
+        assertThat(garageService.getGarages(PageRequest.of(3, 2)).getContent()).isEmpty();
+        verify(garageRepository, never()).findRowsByIdIn(any());
     }
 
     @Test
@@ -153,16 +307,201 @@ class GarageServiceTest {
     @Test
     @DisplayName("getGaragesHavingVehiclesWithFuelType - type valide -> page mappée")
     void getGaragesHavingVehiclesWithFuelType_valid() {
-        Garage g = new Garage();
-        g.setId(3L);
-        g.setName("G3");
-        OpeningSlot slot = new OpeningSlot(1L, DayOfWeek.WEDNESDAY, new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0)));
-        g.setOpeningSlots(new ArrayList<>(List.of(slot)));
-        Page<Garage> page = new PageImpl<>(List.of(g));
-        when(garageRepository.findDistinctByVehicles_FuelTypeIgnoreCase(eq(Vehicle.FuelType.GASOLINE), any(Pageable.class))).thenReturn(page);
+        when(garageRepository.findPageOfIdsByVehicleFuelTypes(eq(Set.of(Vehicle.FuelType.GASOLINE)), eq(1), eq(1L), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(3L)));
+        when(garageRepository.findRowsByIdIn(List.of(3L))).thenReturn(List.of(
+                new GarageRow(3L, "G3", null, null, null, WeeklySchedule.parse("3=08:00-12:00"), null, null, 0)));
         Page<GarageDto> result = garageService.getGaragesHavingVehiclesWithFuelType("GASOLINE", PageRequest.of(0, 5));
         assertThat(result.getTotalElements()).isEqualTo(1);
         assertThat(result.getContent().getFirst().name()).isEqualTo("G3");
     }
-}
 
+    @Test
+    @DisplayName("getGarageSummary - garage inconnu -> null sans requête sur les véhicules")
+    void getGarageSummary_unknown() {
+        when(garageRepository.findRowById(9L)).thenReturn(Optional.empty());
+        assertThat(garageService.getGarageSummary(9L)).isNull();
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    @DisplayName("getGarageSummary - lignes à plat -> véhicules, accessoires et agrégats")
+    void getGarageSummary_aggregates() {
+        garageService.setMaxVehiclesPerGarage(5);
+        when(garageRepository.findRowById(1L)).thenReturn(Optional.of(
+                new GarageRow(1L, "G1", "A", "T", "E", WeeklySchedule.parse("1=08:00-12:00,14:00-18:00"), null, null, 0)));
+        when(vehicleRepository.findAccessoryRowsByGarageId(1L)).thenReturn(List.of(
+                new VehicleAccessoryRow(10L, "Clio", 2020, Vehicle.FuelType.DIESEL, 100L, "GPS", "d", 200.0, "T"),
+                new VehicleAccessoryRow(10L, "Clio", 2020, Vehicle.FuelType.DIESEL, 101L, "Attelage", "d", 300.0, "T"),
+                new VehicleAccessoryRow(11L, "Zoe", 2022, Vehicle.FuelType.ELECTRIC, 100L, "GPS", "d", 200.0, "T"),
+                new VehicleAccessoryRow(12L, "Megane", 2019, Vehicle.FuelType.DIESEL, null, null, null, null, null)));
+
+        GarageSummaryDto summary = garageService.getGarageSummary(1L);
+
+        assertThat(summary.garage().openingHours().get(DayOfWeek.MONDAY)).hasSize(2);
+        assertThat(summary.vehicles()).extracting(v -> v.accessories().size()).containsExactly(2, 1, 0);
+        assertThat(summary.vehicleCountByFuelType()).containsEntry(Vehicle.FuelType.DIESEL, 2L)
+                .containsEntry(Vehicle.FuelType.ELECTRIC, 1L).containsEntry(Vehicle.FuelType.HYBRID, 0L);
+        assertThat(summary.remainingCapacity()).isEqualTo(2);
+        assertThat(summary.totalAccessoryValue()).isEqualTo(500.0);
+    }
+
+    @Test
+    @DisplayName("getGaragesHavingVehiclesWithFuelTypes - ALL exige chaque carburant, ANY un seul, minCount au moins 1")
+    void getGaragesHavingVehiclesWithFuelTypes_match() {
+        Set<Vehicle.FuelType> fuelTypes = Set.of(Vehicle.FuelType.DIESEL, Vehicle.FuelType.ELECTRIC);
+        when(garageRepository.findPageOfIdsByVehicleFuelTypes(eq(fuelTypes), anyInt(), anyLong(), any(Pageable.class))).thenReturn(Page.empty());
+
+        garageService.getGaragesHavingVehiclesWithFuelTypes(fuelTypes, 3, true, PageRequest.of(0, 5));
+        garageService.getGaragesHavingVehiclesWithFuelTypes(fuelTypes, 0, false, PageRequest.of(0, 5));
+
+        verify(garageRepository).findPageOfIdsByVehicleFuelTypes(eq(fuelTypes), eq(3), eq(2L), any(Pageable.class));
+        verify(garageRepository).findPageOfIdsByVehicleFuelTypes(eq(fuelTypes), eq(1), eq(1L), any(Pageable.class));
+        assertThat(garageService.getGaragesHavingVehiclesWithFuelTypes(Set.of(), 1, true, PageRequest.of(0, 5))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getOpenGarages - garages ouverts filtrés par carburant, paginés par identifiant")
+    void getOpenGarages_filteredAndPaged() {
+        LocalDateTime at = LocalDateTime.of(2024, 1, 1, 9, 0);
+        BitSet open = new BitSet();
+        open.set(1);
+        open.set(3);
+        open.set(4);
+        open.set(7);
+        when(garageAvailabilityIndex.openAt(at)).thenReturn(open);
+        BitSet diesel = new BitSet();
+        diesel.set(2, 5);
+        diesel.set(7);
+        when(garageCounterCache.garagesWithFuelType(Vehicle.FuelType.DIESEL)).thenReturn(diesel);
+        when(garageRepository.findRowsByIdIn(List.of(4L))).thenReturn(List.of(
+                new GarageRow(4L, "G4", null, null, null, WeeklySchedule.parse("1=08:00-12:00"), null, null, 0)));
+
+        Page<GarageDto> page = garageService.getOpenGarages(at, Vehicle.FuelType.DIESEL, PageRequest.of(1, 1));
+
+        assertThat(page.getContent()).extracting(GarageDto::id).containsExactly(4L);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("getNearbyGarages - filtre carburant en mémoire, places libres vérifiées sur les candidats, garages lus dans l'ordre des distances")
+    void getNearbyGarages_filteredAndOrdered() {
+        garageService.setMaxVehiclesPerGarage(5);
+        BitSet electric = new BitSet();
+        electric.set(1, 4);
+        when(garageCounterCache.garagesWithFuelType(Vehicle.FuelType.ELECTRIC)).thenReturn(electric);
+        ArgumentCaptor<LongPredicate> filter = ArgumentCaptor.forClass(LongPredicate.class);
+        when(garageLocationIndex.nearest(eq(48.85), eq(2.35), eq(10.0), eq(2), filter.capture())).thenReturn(List.of(
+                new GarageLocationIndex.Hit(3L, 1.5), new GarageLocationIndex.Hit(2L, 4.0)));
+        when(garageOccupancyRepository.findGarageIdsByVehicleCountAtMost(List.of(3L, 2L), 3)).thenReturn(List.of(2L, 3L));
+        when(garageRepository.findRowsByIdIn(List.of(3L, 2L))).thenReturn(List.of(
+                new GarageRow(2L, "G2", null, null, null, WeeklySchedule.EMPTY, 48.88, 2.36, 0),
+                new GarageRow(3L, "G3", null, null, null, WeeklySchedule.EMPTY, 48.86, 2.34, 0)));
+
+        List<NearbyGarageDto> nearby = garageService.getNearbyGarages(48.85, 2.35, 10, Vehicle.FuelType.ELECTRIC, 2, 2);
+
+        assertThat(nearby).extracting(n -> n.garage().id()).containsExactly(3L, 2L);
+        assertThat(nearby).extracting(NearbyGarageDto::distanceKm).containsExactly(1.5, 4.0);
+        assertThat(filter.getValue().test(2)).isTrue();
+        assertThat(filter.getValue().test(4)).isFalse();
+        verify(garageFuelTypeCountRepository, never()).findGarageIdsByFuelType(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("getNearbyGarages - candidats sans place -> recherche élargie jusqu'à trouver la limite")
+    void getNearbyGarages_fetchesMoreCandidates() {
+        garageService.setMaxVehiclesPerGarage(5);
+        List<GarageLocationIndex.Hit> hits = List.of(new GarageLocationIndex.Hit(1L, 1.0), new GarageLocationIndex.Hit(2L, 2.0),
+                new GarageLocationIndex.Hit(3L, 3.0), new GarageLocationIndex.Hit(4L, 4.0), new GarageLocationIndex.Hit(5L, 5.0));
+        when(garageLocationIndex.nearest(eq(48.85), eq(2.35), eq(10.0), eq(1), any())).thenReturn(hits.subList(0, 1));
+        when(garageLocationIndex.nearest(eq(48.85), eq(2.35), eq(10.0), eq(4), any())).thenReturn(hits.subList(0, 4));
+        when(garageOccupancyRepository.findGarageIdsByVehicleCountAtMost(List.of(1L), 4)).thenReturn(List.of());
+        when(garageOccupancyRepository.findGarageIdsByVehicleCountAtMost(List.of(1L, 2L, 3L, 4L), 4)).thenReturn(List.of(3L, 4L));
+        when(garageRepository.findRowsByIdIn(List.of(3L))).thenReturn(List.of(
+                new GarageRow(3L, "G3", null, null, null, WeeklySchedule.EMPTY, 48.86, 2.34, 0)));
+
+        List<NearbyGarageDto> nearby = garageService.getNearbyGarages(48.85, 2.35, 10, null, 1, 1);
+
+        assertThat(nearby).extracting(n -> n.garage().id()).containsExactly(3L);
+        verify(garageLocationIndex, times(2)).nearest(anyDouble(), anyDouble(), anyDouble(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("patchOpeningHours - horaires plus longs que la colonne -> InvalidOpeningHoursException, rien n'est modifié")
+    void patchOpeningHours_tooLong() {
+        Garage g = new Garage();
+        g.setId(6L);
+        g.setOpeningHours(WeeklySchedule.parse("1=08:00-12:00"));
+        when(garageRepository.findById(6L)).thenReturn(Optional.of(g));
+        // 100 slots of one minute: about 1200 characters
+        List<OpeningTime> slots = IntStream.range(0, 100)
+                .mapToObj(i -> new OpeningTime(LocalTime.of(8, 0).plusMinutes(2L * i), LocalTime.of(8, 1).plusMinutes(2L * i)))
+                .toList();
+
+        assertThatThrownBy(() -> garageService.patchOpeningHours(6L, Map.of(DayOfWeek.TUESDAY, slots), null))
+                .isInstanceOf(InvalidOpeningHoursException.class);
+        assertThat(g.getOpeningHours().encoded()).isEqualTo("1=08:00-12:00");
+        verify(garageRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("patchOpeningHours - remplace les jours fournis, ferme les jours vides, garde les autres")
+    void patchOpeningHours_changedDays() {
+        Garage g = new Garage();
+        g.setId(6L);
+        g.setOpeningHours(WeeklySchedule.parse("1=08:00-12:00;2=08:00-12:00;6=09:00-13:00"));
+        when(garageRepository.findById(6L)).thenReturn(Optional.of(g));
+        when(garageRepository.saveAndFlush(any(Garage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Map<DayOfWeek, List<OpeningTime>> days = Map.of(
+                DayOfWeek.TUESDAY, List.of(new OpeningTime(LocalTime.of(14, 0), LocalTime.of(18, 0))),
+                DayOfWeek.SATURDAY, List.of());
+        GarageDto updated = garageService.patchOpeningHours(6L, days, null).body();
+
+        assertThat(g.getOpeningHours().encoded()).isEqualTo("1=08:00-12:00;2=14:00-18:00");
+        assertThat(updated.openingHours()).containsOnlyKeys(DayOfWeek.MONDAY, DayOfWeek.TUESDAY);
+        verify(publisher).publishEvent(any(Object.class));
+    }
+
+    @Test
+    @DisplayName("patchOpeningHours - horaires identiques -> ni écriture ni événement")
+    void patchOpeningHours_unchanged() {
+        Garage g = new Garage();
+        g.setId(7L);
+        g.setOpeningHours(WeeklySchedule.parse("1=08:00-12:00"));
+        when(garageRepository.findById(7L)).thenReturn(Optional.of(g));
+
+        g.setVersion(3L);
+        VersionedDto<GarageDto> result = garageService.patchOpeningHours(7L,
+                Map.of(DayOfWeek.MONDAY, List.of(new OpeningTime(LocalTime.of(8, 0), LocalTime.of(12, 0))), DayOfWeek.SUNDAY, List.of()), null);
+
+        assertThat(result.body().openingHours()).containsOnlyKeys(DayOfWeek.MONDAY);
+        assertThat(result.version()).isEqualTo("3");
+        verify(garageRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(publisher);
+    }
+
+    @Test
+    @DisplayName("scrollGarages - une ligne de plus que la page -> curseur sur le dernier garage, tri repris du curseur")
+    void scrollGarages_nextCursor() {
+        when(garageRepository.findRowsAfter(Sort.Order.asc("name"), null, null, null, 3)).thenReturn(List.of(
+                new GarageRow(4L, "A", null, null, null, WeeklySchedule.EMPTY, null, null, 0),
+                new GarageRow(2L, null, null, null, null, WeeklySchedule.EMPTY, null, null, 0),
+                new GarageRow(9L, "C", null, null, null, WeeklySchedule.EMPTY, null, null, 0)));
+
+        GarageScrollDto first = garageService.scrollGarages(Sort.Order.asc("name"), null, null, 2, false);
+
+        assertThat(first.content()).extracting(GarageDto::id).containsExactly(4L, 2L);
+        assertThat(ScrollCursor.decode(first.nextCursor())).isEqualTo(new ScrollCursor("name", Sort.Direction.ASC, null, 2L));
+        assertThat(first.totalElements()).isNull();
+
+        ScrollCursor cursor = new ScrollCursor("email", Sort.Direction.DESC, "x@y", 9L);
+        when(garageRepository.findRowsAfter(Sort.Order.desc("email"), "x@y", 9L, Vehicle.FuelType.HYBRID, 3)).thenReturn(List.of());
+        when(garageRepository.countCachedByVehicleFuelType(Vehicle.FuelType.HYBRID)).thenReturn(5L);
+
+        GarageScrollDto last = garageService.scrollGarages(Sort.Order.asc("id"), cursor, Vehicle.FuelType.HYBRID, 2, true);
+
+        assertThat(last.content()).isEmpty();
+        assertThat(last.nextCursor()).isNull();
+        assertThat(last.totalElements()).isEqualTo(5L);
+    }
+}
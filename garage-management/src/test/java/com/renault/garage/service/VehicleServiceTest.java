@@ -2,22 +2,34 @@ package com.renault.garage.service;
 
 import com.renault.garage.dao.entity.Garage;
 import com.renault.garage.dao.entity.Vehicle;
+import com.renault.garage.dao.projection.AccessoryVehicle;
+import com.renault.garage.dao.repository.GarageFuelTypeCountRepository;
+import com.renault.garage.dao.repository.GarageOccupancyRepository;
 import com.renault.garage.dao.repository.GarageRepository;
 import com.renault.garage.dao.repository.VehicleRepository;
 import com.renault.garage.dto.CreateVehicleDto;
 import com.renault.garage.dto.VehicleDto;
+import com.renault.garage.dto.VehiclePageDto;
+import com.renault.garage.dto.VersionedDto;
+import com.renault.garage.event.ChangeType;
+import com.renault.garage.event.VehicleChangedEvent;
 import com.renault.garage.exception.GarageCapacityExceededException;
+import com.renault.garage.exception.StaleVersionException;
+import com.renault.garage.search.AccessorySearchIndex;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -32,10 +44,16 @@ class VehicleServiceTest {
     @Mock
     GarageRepository garageRepository;
     @Mock
+    GarageOccupancyRepository garageOccupancyRepository;
+    @Mock
+    GarageFuelTypeCountRepository garageFuelTypeCountRepository;
+    @Mock
     ApplicationEventPublisher publisher;
+    @Mock
+    AccessorySearchIndex accessorySearchIndex;
 
     @InjectMocks
-    VehicleService vehicleService; // sera instancié avec le constructeur (publisher, vehicleRepository, garageRepository)
+    VehicleService vehicleService; // sera instancié avec le constructeur (publisher, vehicleRepository, garageRepository, garageOccupancyRepository, garageFuelTypeCountRepository, accessorySearchIndex, batchLoader)
 
     @BeforeEach
     void setup() {
@@ -43,6 +61,10 @@ class VehicleServiceTest {
         vehicleService.setMaxVehiclesPerGarage(2);
     }
 
+    private static VehicleDto vehicleDto(long id) {
+        return new VehicleDto(id, "Renault", 2024, Vehicle.FuelType.GASOLINE);
+    }
+
     private CreateVehicleDto sampleDto() {
         return new CreateVehicleDto("Renault", 2024, Vehicle.FuelType.GASOLINE);
     }
@@ -50,34 +72,37 @@ class VehicleServiceTest {
     @Test
     @DisplayName("create - garage inexistant -> EntityNotFoundException")
     void create_garageNotFound() {
-        when(garageRepository.findById(1L)).thenReturn(Optional.empty());
+        when(garageOccupancyRepository.reserve(1L, 1, 2)).thenReturn(0);
+        when(garageRepository.existsById(1L)).thenReturn(false);
         assertThrows(EntityNotFoundException.class, () -> vehicleService.create(1L, sampleDto()));
+        verify(vehicleRepository, never()).save(any());
     }
 
     @Test
     @DisplayName("create - capacité dépassée -> GarageCapacityExceededException")
     void create_capacityExceeded() {
-        Garage g = new Garage(); g.setId(5L);
-        List<Vehicle> existing = new ArrayList<>();
-        Vehicle v1 = new Vehicle(); v1.setId(10L); existing.add(v1);
-        Vehicle v2 = new Vehicle(); v2.setId(11L); existing.add(v2);
-        g.setVehicles(existing);
-        when(garageRepository.findById(5L)).thenReturn(Optional.of(g));
+        when(garageOccupancyRepository.reserve(5L, 1, 2)).thenReturn(0);
+        when(garageRepository.existsById(5L)).thenReturn(true);
         assertThrows(GarageCapacityExceededException.class, () -> vehicleService.create(5L, sampleDto()));
+        verify(vehicleRepository, never()).save(any());
     }
 
     @Test
-    @DisplayName("create - ok -> relation bidirectionnelle + save")
+    @DisplayName("create - ok -> place réservée, lien vers le garage + save")
     void create_ok() throws Exception {
-        Garage g = new Garage(); g.setId(3L); g.setVehicles(new ArrayList<>());
-        when(garageRepository.findById(3L)).thenReturn(Optional.of(g));
+        Garage g = new Garage(); g.setId(3L);
+        when(garageOccupancyRepository.reserve(3L, 1, 2)).thenReturn(1);
+        when(garageRepository.getReferenceById(3L)).thenReturn(g);
         when(vehicleRepository.save(any(Vehicle.class))).thenAnswer(invocation -> { Vehicle veh = invocation.getArgument(0); veh.setId(100L); return veh;});
 
         VehicleDto created = vehicleService.create(3L, sampleDto());
         assertThat(created).isNotNull();
         assertThat(created.id()).isEqualTo(100L);
-        assertThat(g.getVehicles()).hasSize(1);
-        assertThat(g.getVehicles().getFirst().getId()).isEqualTo(100L);
+        ArgumentCaptor<Vehicle> captor = ArgumentCaptor.forClass(Vehicle.class);
+        verify(vehicleRepository).save(captor.capture());
+        assertThat(captor.getValue().getGarages()).containsExactly(g);
+        verify(garageRepository, never()).findById(any());
+        verify(garageFuelTypeCountRepository).add(3L, Vehicle.FuelType.GASOLINE, 1);
     }
 
     @Test
@@ -92,79 +117,164 @@ class VehicleServiceTest {
     void update_present() {
         Vehicle vehicle = new Vehicle(); vehicle.setId(7L); vehicle.setBrand("OLD"); vehicle.setYearOfManufacture(2000); vehicle.setFuelType(Vehicle.FuelType.DIESEL);
         when(vehicleRepository.findById(7L)).thenReturn(Optional.of(vehicle));
-        when(vehicleRepository.save(any(Vehicle.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(vehicleRepository.saveAndFlush(any(Vehicle.class))).thenAnswer(invocation -> invocation.getArgument(0));
         VehicleDto updated = vehicleService.update(7L, sampleDto());
         assertThat(updated.brand()).isEqualTo("Renault");
         assertThat(updated.yearOfManufacture()).isEqualTo(2024);
         assertThat(updated.fuelType()).isEqualTo(Vehicle.FuelType.GASOLINE);
+        verify(garageFuelTypeCountRepository).addVehicle(7L, Vehicle.FuelType.DIESEL, -1);
+        verify(garageFuelTypeCountRepository).addVehicle(7L, Vehicle.FuelType.GASOLINE, 1);
+        verify(publisher).publishEvent(new VehicleChangedEvent(ChangeType.UPDATED, 7L, Vehicle.FuelType.DIESEL, updated));
+    }
+
+    @Test
+    @DisplayName("update - carburant inchangé -> compteurs par carburant intacts")
+    void update_sameFuelType() {
+        Vehicle vehicle = new Vehicle(); vehicle.setId(7L); vehicle.setFuelType(Vehicle.FuelType.GASOLINE);
+        when(vehicleRepository.findById(7L)).thenReturn(Optional.of(vehicle));
+        when(vehicleRepository.saveAndFlush(any(Vehicle.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        vehicleService.update(7L, sampleDto());
+        verifyNoInteractions(garageFuelTypeCountRepository);
+    }
+
+    @Test
+    @DisplayName("update - version attendue courante -> champs mis à jour")
+    void update_expectedVersion() {
+        Vehicle vehicle = new Vehicle(); vehicle.setId(7L); vehicle.setBrand("OLD"); vehicle.setVersion(2L);
+        when(vehicleRepository.findById(7L)).thenReturn(Optional.of(vehicle));
+        when(vehicleRepository.saveAndFlush(any(Vehicle.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        assertThat(vehicleService.update(7L, sampleDto(), 2L).body().brand()).isEqualTo("Renault");
+    }
+
+    @Test
+    @DisplayName("update - version attendue périmée -> StaleVersionException")
+    void update_staleVersion() {
+        Vehicle vehicle = new Vehicle(); vehicle.setId(7L); vehicle.setBrand("OLD"); vehicle.setVersion(3L);
+        when(vehicleRepository.findById(7L)).thenReturn(Optional.of(vehicle));
+        assertThrows(StaleVersionException.class, () -> vehicleService.update(7L, sampleDto(), 2L));
+        assertThat(vehicle.getBrand()).isEqualTo("OLD");
+        verify(vehicleRepository, never()).saveAndFlush(any());
     }
 
     @Test
     @DisplayName("delete - absent -> false")
     void delete_absent() {
-        when(vehicleRepository.existsById(50L)).thenReturn(false);
+        when(vehicleRepository.findById(50L)).thenReturn(Optional.empty());
         assertThat(vehicleService.delete(50L)).isFalse();
-        verify(vehicleRepository, never()).deleteById(anyLong());
+        verify(vehicleRepository, never()).delete(any());
     }
 
     @Test
     @DisplayName("delete - présent -> true")
     void delete_present() {
-        when(vehicleRepository.existsById(51L)).thenReturn(true);
+        Vehicle vehicle = new Vehicle(); vehicle.setId(51L); vehicle.setFuelType(Vehicle.FuelType.HYBRID);
+        when(vehicleRepository.findById(51L)).thenReturn(Optional.of(vehicle));
         assertThat(vehicleService.delete(51L)).isTrue();
-        verify(vehicleRepository).deleteById(51L);
+        verify(garageOccupancyRepository).releaseVehicle(51L);
+        verify(garageFuelTypeCountRepository).addVehicle(51L, Vehicle.FuelType.HYBRID, -1);
+        verify(vehicleRepository).delete(vehicle);
     }
 
     @Test
     @DisplayName("get - présent -> dto")
     void get_present() {
-        Vehicle v = new Vehicle(); v.setId(60L); v.setBrand("B");
-        when(vehicleRepository.findById(60L)).thenReturn(Optional.of(v));
+        when(vehicleRepository.findDtoById(60L)).thenReturn(Optional.of(vehicleDto(60L)));
         assertThat(vehicleService.get(60L)).isNotNull();
+        verify(vehicleRepository, never()).findById(any());
     }
 
     @Test
-    @DisplayName("getAll -> mapping liste")
-    void getAll() {
-        Vehicle v1 = new Vehicle(); v1.setId(1L);
-        Vehicle v2 = new Vehicle(); v2.setId(2L);
-        when(vehicleRepository.findAll()).thenReturn(List.of(v1, v2));
-        assertThat(vehicleService.getAll()).hasSize(2);
+    @DisplayName("getVersioned - présent -> dto avec sa version")
+    void getVersioned_present() {
+        when(vehicleRepository.findVersionById(60L)).thenReturn(Optional.of(3L));
+        when(vehicleRepository.findDtoById(60L)).thenReturn(Optional.of(vehicleDto(60L)));
+
+        VersionedDto<VehicleDto> vehicle = vehicleService.getVersioned(60L);
+
+        assertThat(vehicle.body().id()).isEqualTo(60L);
+        assertThat(vehicle.version()).isEqualTo("3");
+    }
+
+    @Test
+    @DisplayName("getVersioned - absent -> null")
+    void getVersioned_absent() {
+        when(vehicleRepository.findVersionById(61L)).thenReturn(Optional.empty());
+        assertThat(vehicleService.getVersioned(61L)).isNull();
+        verify(vehicleRepository, never()).findDtoById(anyLong());
+    }
+
+    @Test
+    @DisplayName("streamAll -> chaque véhicule est transmis dans l'ordre du curseur")
+    void streamAll() {
+        when(vehicleRepository.streamAll()).thenReturn(Stream.of(vehicleDto(1L), vehicleDto(2L)));
+        List<VehicleDto> received = new ArrayList<>();
+        vehicleService.streamAll(received::add);
+        assertThat(received).extracting(VehicleDto::id).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("getPage - page pleine -> curseur sur le dernier id")
+    void getPage_hasNext() {
+        when(vehicleRepository.findNextPage(3L, Limit.of(3))).thenReturn(List.of(vehicleDto(4L), vehicleDto(5L), vehicleDto(8L)));
+        VehiclePageDto page = vehicleService.getPage(3L, 2);
+        assertThat(page.content()).extracting(VehicleDto::id).containsExactly(4L, 5L);
+        assertThat(page.nextCursor()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("getPage - dernière page -> pas de curseur")
+    void getPage_last() {
+        when(vehicleRepository.findNextPage(0L, Limit.of(11))).thenReturn(List.of(vehicleDto(1L)));
+        VehiclePageDto page = vehicleService.getPage(null, 10);
+        assertThat(page.content()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
     }
 
     @Test
     @DisplayName("getByGarage -> repository délégué")
     void getByGarage() {
-        when(vehicleRepository.findByGarageId(5L)).thenReturn(List.of(new Vehicle()));
+        when(vehicleRepository.findByGarageId(5L)).thenReturn(List.of(vehicleDto(1L)));
         assertThat(vehicleService.getByGarage(5L)).hasSize(1);
     }
 
     @Test
     @DisplayName("getByBrand -> repository délégué")
     void getByBrand() {
-        when(vehicleRepository.findByBrandIs("Renault")).thenReturn(List.of(new Vehicle()));
+        when(vehicleRepository.findByBrandIs("Renault")).thenReturn(List.of(vehicleDto(1L)));
         assertThat(vehicleService.getByBrand("Renault")).hasSize(1);
     }
 
     @Test
-    @DisplayName("getByAccessory -> repository délégué")
+    @DisplayName("getByAccessory -> véhicules classés par leur accessoire le plus pertinent, puis paginés")
     void getByAccessory() {
-        when(vehicleRepository.findByAccessoryName("GPS")).thenReturn(List.of(new Vehicle()));
-        assertThat(vehicleService.getByAccessory("GPS")).hasSize(1);
+        when(accessorySearchIndex.search("GPS", VehicleService.MAX_SEARCH_HITS)).thenReturn(List.of(
+                new AccessorySearchIndex.Hit(10L, 3f), new AccessorySearchIndex.Hit(2L, 1f)));
+        when(vehicleRepository.findByAccessoryIdIn(List.of(10L, 2L))).thenReturn(List.of(
+                new AccessoryVehicle(2L, 1L), new AccessoryVehicle(10L, 5L), new AccessoryVehicle(2L, 5L), new AccessoryVehicle(10L, 7L)));
+        when(vehicleRepository.findDtosByIdIn(List.of(5L, 7L))).thenReturn(List.of(vehicleDto(7L), vehicleDto(5L)));
+
+        assertThat(vehicleService.getByAccessory("GPS", 0, 2)).extracting(VehicleDto::id).containsExactly(5L, 7L);
+    }
+
+    @Test
+    @DisplayName("getByAccessory - aucun accessoire trouvé -> liste vide, sans requête")
+    void getByAccessory_noHit() {
+        when(accessorySearchIndex.search("inconnu", VehicleService.MAX_SEARCH_HITS)).thenReturn(List.of());
+        assertThat(vehicleService.getByAccessory("inconnu", 0, 20)).isEmpty();
+        verify(vehicleRepository, never()).findByAccessoryIdIn(any());
     }
 
     @Test
     @DisplayName("linkVehicleToGarage - garage inexistant -> EntityNotFoundException")
     void link_garageNotFound() {
-        when(garageRepository.findById(1L)).thenReturn(Optional.empty());
+        when(garageRepository.existsById(1L)).thenReturn(false);
         assertThrows(EntityNotFoundException.class, () -> vehicleService.linkVehicleToGarage(1L, 2L));
     }
 
     @Test
     @DisplayName("linkVehicleToGarage - véhicule inexistant -> EntityNotFoundException")
     void link_vehicleNotFound() {
-        Garage g = new Garage(); g.setId(1L); g.setVehicles(new ArrayList<>());
-        when(garageRepository.findById(1L)).thenReturn(Optional.of(g));
+        when(garageRepository.existsById(1L)).thenReturn(true);
         when(vehicleRepository.findById(2L)).thenReturn(Optional.empty());
         assertThrows(EntityNotFoundException.class, () -> vehicleService.linkVehicleToGarage(1L, 2L));
     }
@@ -172,42 +282,45 @@ class VehicleServiceTest {
     @Test
     @DisplayName("linkVehicleToGarage - déjà lié -> retourne liste existante")
     void link_alreadyLinked() throws Exception {
-        Garage g = new Garage(); g.setId(1L); g.setVehicles(new ArrayList<>());
         Vehicle v = new Vehicle(); v.setId(2L);
-        g.getVehicles().add(v);
-        when(garageRepository.findById(1L)).thenReturn(Optional.of(g));
+        when(garageRepository.existsById(1L)).thenReturn(true);
         when(vehicleRepository.findById(2L)).thenReturn(Optional.of(v));
-        when(vehicleRepository.findByGarageId(1L)).thenReturn(List.of(v));
+        when(vehicleRepository.isLinkedToGarage(2L, 1L)).thenReturn(true);
+        when(vehicleRepository.findByGarageId(1L)).thenReturn(List.of(vehicleDto(2L)));
         List<VehicleDto> list = vehicleService.linkVehicleToGarage(1L,2L);
         assertThat(list).hasSize(1);
         verify(vehicleRepository, never()).save(any());
+        verify(garageOccupancyRepository, never()).reserve(anyLong(), anyInt(), anyInt());
     }
 
     @Test
     @DisplayName("linkVehicleToGarage - capacité ok -> lien créé")
     void link_ok() throws Exception {
-        Garage g = new Garage(); g.setId(1L); g.setVehicles(new ArrayList<>());
-        Vehicle v = new Vehicle(); v.setId(2L);
-        when(garageRepository.findById(1L)).thenReturn(Optional.of(g));
+        Garage g = new Garage(); g.setId(1L);
+        Vehicle v = new Vehicle(); v.setId(2L); v.setFuelType(Vehicle.FuelType.ELECTRIC);
+        when(garageRepository.existsById(1L)).thenReturn(true);
         when(vehicleRepository.findById(2L)).thenReturn(Optional.of(v));
-        when(vehicleRepository.findByGarageId(1L)).thenReturn(List.of(v));
+        when(vehicleRepository.isLinkedToGarage(2L, 1L)).thenReturn(false);
+        when(garageOccupancyRepository.reserve(1L, 1, 2)).thenReturn(1);
+        when(garageRepository.getReferenceById(1L)).thenReturn(g);
+        when(vehicleRepository.findByGarageId(1L)).thenReturn(List.of(vehicleDto(2L)));
 
         List<VehicleDto> list = vehicleService.linkVehicleToGarage(1L,2L);
         assertThat(list).hasSize(1);
-        assertThat(g.getVehicles()).hasSize(1);
-        assertThat(v.getGarages()).hasSize(1);
+        assertThat(v.getGarages()).containsExactly(g);
         verify(vehicleRepository).save(v);
+        verify(garageFuelTypeCountRepository).add(1L, Vehicle.FuelType.ELECTRIC, 1);
     }
 
     @Test
     @DisplayName("linkVehicleToGarage - capacité dépassée -> exception")
     void link_capacityExceeded() {
-        Garage g = new Garage(); g.setId(1L); g.setVehicles(new ArrayList<>());
-        Vehicle v1 = new Vehicle(); v1.setId(10L); Vehicle v2 = new Vehicle(); v2.setId(11L);
-        g.getVehicles().add(v1); g.getVehicles().add(v2); // atteint max (2)
         Vehicle v = new Vehicle(); v.setId(2L);
-        when(garageRepository.findById(1L)).thenReturn(Optional.of(g));
+        when(garageRepository.existsById(1L)).thenReturn(true);
         when(vehicleRepository.findById(2L)).thenReturn(Optional.of(v));
+        when(vehicleRepository.isLinkedToGarage(2L, 1L)).thenReturn(false);
+        when(garageOccupancyRepository.reserve(1L, 1, 2)).thenReturn(0);
         assertThrows(GarageCapacityExceededException.class, () -> vehicleService.linkVehicleToGarage(1L,2L));
+        verify(vehicleRepository, never()).save(any());
     }
 }